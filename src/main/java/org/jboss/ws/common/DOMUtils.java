@@ -28,6 +28,11 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
@@ -55,6 +60,12 @@ import org.xml.sax.SAXException;
  * DOM2 utilities: this extends the {@link org.jboss.wsf.util.DOMUtils} adding parse and creation methods.
  * These leverage static thread-local instances of {@link org.w3c.dom.Document} and {@link javax.xml.parsers.DocumentBuilder}.
  * The ThreadLocal attributes can be reset using the clearThreadLocals() method.
+ * When the org.jboss.ws.document_builder_pool_size system property is set to a positive value, the parse methods
+ * use DocumentBuilder instances from a {@link DocumentBuilderPool} of that size instead of the thread-local one,
+ * and the thread-local owner documents are created using pooled builders as well, so that no builder is bound
+ * to a thread; this is meant for large or short-lived thread pools, e.g. when running on virtual threads. The
+ * pool only holds builders of the default factory: threads whose context classloader provides a different factory
+ * keep using thread-local builders.
  *
  * @author Thomas.Diesler@jboss.org
  * @author alessio.soldano@jboss.com
@@ -65,12 +76,21 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
    private static final String DEFER_NODE_EXPANSION_FEATURE = "http://apache.org/xml/features/dom/defer-node-expansion";
    private static final String ENABLE_DOCTYPE_DECL = "org.jboss.ws.enable_doctype_decl";
    private static final String DISALLOW_DOCTYPE_DECL_FEATURE = "http://apache.org/xml/features/disallow-doctype-decl";
+   private static final String DOCUMENT_BUILDER_POOL_SIZE = "org.jboss.ws.document_builder_pool_size";
    
    private static final String documentBuilderFactoryName;
    private static final DocumentBuilderFactory documentBuilderFactory;
+   private static final DocumentBuilderPool documentBuilderPool;
+   //whether the factory provided by a context classloader is the default one, whose builders are pooled;
+   //the classloaders are weakly referenced, so that undeployed applications are not retained
+   private static final ConcurrentMap<LoaderKey, Boolean> defaultFactoryLoaders = new ConcurrentHashMap<LoaderKey, Boolean>();
+   private static final ReferenceQueue<ClassLoader> collectedLoaders = new ReferenceQueue<ClassLoader>();
+   //same as defaultFactoryLoaders, for threads with no context classloader
+   private static volatile Boolean nullLoaderDefaultFactory;
 
    private static final boolean disableDeferedNodeExpansion = Boolean.getBoolean(DISABLE_DEFERRED_NODE_EXPANSION);
    private static final boolean enableDoctypeDeclaration = Boolean.getBoolean(ENABLE_DOCTYPE_DECL);
+   private static final int documentBuilderPoolSize = Integer.getInteger(DOCUMENT_BUILDER_POOL_SIZE, 0);
    
    static
    {
@@ -84,6 +104,7 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
          initializeFactory(factory);
          documentBuilderFactoryName = factory.getClass().getCanonicalName();
          documentBuilderFactory = factory;
+         documentBuilderPool = documentBuilderPoolSize > 0 ? new DocumentBuilderPool(factory, documentBuilderPoolSize) : null;
       }
       finally
       {
@@ -103,8 +124,7 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
             //check if the factory we'd get for this thread is equivalent to the default one;
             //in that case re-use the default one and skip the initialization, which is time-consuming
             final DocumentBuilderFactory threadFactory ;
-            if (factory.getClass().getClassLoader() == documentBuilderFactory.getClass().getClassLoader() &&
-                documentBuilderFactoryName.equals(factory.getClass().getCanonicalName()))
+            if (isDefaultFactory(factory))
             {
                threadFactory = documentBuilderFactory ;
             }
@@ -125,6 +145,82 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
       
    };
    
+   private static boolean isDefaultFactory(DocumentBuilderFactory factory)
+   {
+      return factory.getClass().getClassLoader() == documentBuilderFactory.getClass().getClassLoader() &&
+             documentBuilderFactoryName.equals(factory.getClass().getCanonicalName());
+   }
+
+   /**
+    * Gets the document builder pool to be used by the current thread; that's null if
+    * builders are not pooled or if the thread context classloader provides a factory
+    * other than the default one, whose builders are then thread-local.
+    */
+   private static DocumentBuilderPool getDocumentBuilderPool()
+   {
+      if (documentBuilderPool == null)
+      {
+         return null;
+      }
+      final ClassLoader classLoader = SecurityActions.getContextClassLoader();
+      Boolean defaultFactory = classLoader != null ? defaultFactoryLoaders.get(new LoaderKey(classLoader, null)) : nullLoaderDefaultFactory;
+      if (defaultFactory == null)
+      {
+         //the factory lookup is expensive, so it's done once per classloader
+         defaultFactory = isDefaultFactory(DocumentBuilderFactory.newInstance());
+         if (classLoader != null)
+         {
+            Reference<? extends ClassLoader> collected;
+            while ((collected = collectedLoaders.poll()) != null)
+            {
+               defaultFactoryLoaders.remove(collected);
+            }
+            defaultFactoryLoaders.put(new LoaderKey(classLoader, collectedLoaders), defaultFactory);
+         }
+         else
+         {
+            nullLoaderDefaultFactory = defaultFactory;
+         }
+      }
+      return defaultFactory ? documentBuilderPool : null;
+   }
+
+   /**
+    * A weak reference to a classloader, comparing the referenced classloaders by identity
+    */
+   private static final class LoaderKey extends WeakReference<ClassLoader>
+   {
+      private final int hash;
+
+      LoaderKey(ClassLoader classLoader, ReferenceQueue<ClassLoader> queue)
+      {
+         super(classLoader, queue);
+         this.hash = System.identityHashCode(classLoader);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hash;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+         {
+            return true;
+         }
+         if (!(obj instanceof LoaderKey))
+         {
+            return false;
+         }
+         //cleared keys are only equal to themselves
+         ClassLoader classLoader = get();
+         return classLoader != null && classLoader == ((LoaderKey)obj).get();
+      }
+   }
+
    private static void initializeFactory(final DocumentBuilderFactory factory)
    {
       factory.setValidating(false);
@@ -227,30 +323,69 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
          xmlStream.close();
       }
    }
+
+   /**
+    * Parse the given XML stream using a builder from the pool, which
+    * is exclusively owned by the current thread until it's released
+    */
+   private static Element parse(InputStream xmlStream, DocumentBuilderPool pool) throws IOException
+   {
+      DocumentBuilder builder = pool.acquire();
+      try
+      {
+         return builder.parse(xmlStream).getDocumentElement();
+      }
+      catch (SAXException se)
+      {
+         throw new IOException(se.toString());
+      }
+      finally
+      {
+         pool.release(builder);
+         xmlStream.close();
+      }
+   }
    
    /**
     * Parse the given XML stream and return the root Element
-    * This uses the document builder associated with the current thread.
+    * This uses the document builder associated with the current thread,
+    * or a pooled one if the document builder pool is enabled.
     */
    public static Element parse(InputStream xmlStream) throws IOException
    {
+      final DocumentBuilderPool pool = getDocumentBuilderPool();
+      if (pool != null)
+      {
+         return parse(xmlStream, pool);
+      }
       DocumentBuilder builder = getDocumentBuilder();
       return parse(xmlStream, builder);
    }
 
    /**
     * Parse the given input source and return the root Element.
-    * This uses the document builder associated with the current thread.
+    * This uses the document builder associated with the current thread,
+    * or a pooled one if the document builder pool is enabled.
     */
    public static Element parse(InputSource source) throws IOException
    {
+      final DocumentBuilderPool pool = getDocumentBuilderPool();
+      DocumentBuilder pooledBuilder = null;
       try
       {
          Document doc;
-         DocumentBuilder builder = getDocumentBuilder();
-         synchronized (builder) //synchronize to prevent concurrent parsing on the same DocumentBuilder
+         if (pool != null)
+         {
+            pooledBuilder = pool.acquire();
+            doc = pooledBuilder.parse(source);
+         }
+         else
          {
-            doc = builder.parse(source);
+            DocumentBuilder builder = getDocumentBuilder();
+            synchronized (builder) //synchronize to prevent concurrent parsing on the same DocumentBuilder
+            {
+               doc = builder.parse(source);
+            }
          }
          return doc.getDocumentElement();
       }
@@ -260,6 +395,10 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
       }
       finally
       {
+         if (pooledBuilder != null)
+         {
+            pool.release(pooledBuilder);
+         }
          InputStream is = source.getByteStream();
          if (is != null)
          {
@@ -344,13 +483,33 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
       documentThreadLocal.set(doc);
    }
    
-   /** Get the owner document that is associated with the current thread */
+   /**
+    * Get the owner document that is associated with the current thread; when document
+    * builders are pooled, it's created using a pooled builder.
+    */
    public static Document getOwnerDocument()
    {
       Document doc = documentThreadLocal.get();
       if (doc == null)
       {
-         doc = getDocumentBuilder().newDocument();
+         final DocumentBuilderPool pool = getDocumentBuilderPool();
+         if (pool != null)
+         {
+            //DOM documents are not thread-safe, so each thread still gets its own one
+            DocumentBuilder builder = pool.acquire();
+            try
+            {
+               doc = builder.newDocument();
+            }
+            finally
+            {
+               pool.release(builder);
+            }
+         }
+         else
+         {
+            doc = getDocumentBuilder().newDocument();
+         }
          documentThreadLocal.set(doc);
       }
       return doc;
@@ -63,6 +63,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -103,6 +104,8 @@ public class DOMWriter
    private boolean completeNamespaces = true;
    // The current default namespace
    private String currentDefaultNamespace;
+   // The prefixes declared from the root node down to the current element
+   private final NamespaceScope scope = new NamespaceScope();
 
    public DOMWriter(Writer w)
    {
@@ -231,7 +234,14 @@ public class DOMWriter
          throw MESSAGES.cannotPrettyPrintAndIgnoreWhiteSpaces();
       
       rootNode = node;
-      printInternal(node, false);
+      try
+      {
+         printInternal(node, false);
+      }
+      finally
+      {
+         scope.clear();
+      }
    }
 
    private void printInternal(Node node, boolean indentEndMarker)
@@ -293,16 +303,19 @@ public class DOMWriter
             out.print('<');
             out.print(nodeName);
 
+            Attr attrs[] = sortAttributes(node.getAttributes());
+            scope.enter();
+            declareNamespaces(attrs);
+
             Map<String, String> nsMap = new HashMap<String, String>();
             String elPrefix = node.getPrefix();
             String elNamespaceURI = node.getNamespaceURI();
             if (elPrefix != null)
             {
-               String nsURI = getNamespaceURI(elPrefix, element, rootNode);
+               String nsURI = scope.getNamespaceURI(elPrefix);
                nsMap.put(elPrefix, nsURI);
             }
 
-            Attr attrs[] = sortAttributes(node.getAttributes());
             for (int i = 0; i < attrs.length; i++)
             {
                Attr attr = attrs[i];
@@ -315,19 +328,19 @@ public class DOMWriter
 
                if (atPrefix != null && !atPrefix.equals("xmlns") && !atPrefix.equals("xml"))
                {
-                  String nsURI = getNamespaceURI(atPrefix, element, rootNode);
+                  String nsURI = scope.getNamespaceURI(atPrefix);
                   nsMap.put(atPrefix, nsURI);
                   // xsi:type='ns1:SubType', xsi:type='xsd:string'
                   if (atName.equals(atPrefix + ":type") && atValue.indexOf(":") > 0)
                   {
                      // xsi defined on the envelope
                      if (nsURI == null)
-                        nsURI = getNamespaceURI(atPrefix, element, null);
+                        nsURI = getNamespaceURIAboveRoot(atPrefix);
 
                      if ("http://www.w3.org/2001/XMLSchema-instance".equals(nsURI))
                      {
                         String typePrefix = atValue.substring(0, atValue.indexOf(":"));
-                        String typeURI = getNamespaceURI(typePrefix, element, rootNode);
+                        String typeURI = scope.getNamespaceURI(typePrefix);
                         nsMap.put(typePrefix, typeURI);
                      }
                   }
@@ -345,7 +358,7 @@ public class DOMWriter
                   String nsURI = e.getValue();
                   if (nsURI == null)
                   {
-                     nsURI = getNamespaceURI(prefix, element, null);
+                     nsURI = getNamespaceURIAboveRoot(prefix);
                      out.print(" xmlns:" + prefix + "='" + nsURI + "'");
                   }
                }
@@ -383,6 +396,7 @@ public class DOMWriter
                Node childNode = childNodes.item(i);
                printInternal(childNode, false);
             }
+            scope.exit();
             break;
          }
 
@@ -513,14 +527,39 @@ public class DOMWriter
       out.flush();
    }
 
-   private String getNamespaceURI(String prefix, Element element, Node stopNode)
+   /**
+    * Declares the namespace prefixes defined by the given attributes
+    * in the current element scope
+    */
+   private void declareNamespaces(Attr[] attrs)
    {
-      Node parent = element.getParentNode();
-      String nsURI = element.getAttribute("xmlns:" + prefix);
-      if (nsURI.length() == 0 && element != stopNode && parent instanceof Element)
-         return getNamespaceURI(prefix, (Element)parent, stopNode);
+      for (int i = 0; i < attrs.length; i++)
+      {
+         String name = attrs[i].getNodeName();
+         if (name.startsWith("xmlns:"))
+         {
+            String nsURI = attrs[i].getNodeValue();
+            if (nsURI.length() > 0)
+               scope.declare(name.substring(6), nsURI);
+         }
+      }
+   }
 
-      return (nsURI.length() > 0 ? nsURI : null);
+   /**
+    * Looks up a prefix which is not declared in scope on the ancestors of the root node
+    */
+   private String getNamespaceURIAboveRoot(String prefix)
+   {
+      Node parent = rootNode != null ? rootNode.getParentNode() : null;
+      String attrName = "xmlns:" + prefix;
+      while (parent instanceof Element)
+      {
+         String nsURI = ((Element)parent).getAttribute(attrName);
+         if (nsURI.length() > 0)
+            return nsURI;
+         parent = parent.getParentNode();
+      }
+      return null;
    }
 
    private boolean isEndMarkerIndented(Node node)
@@ -541,38 +580,69 @@ public class DOMWriter
       return false;
    }
 
-   /** Returns a sorted list of attributes. */
+   /**
+    * Returns a sorted list of attributes; the DOM implementations usually
+    * keep the attributes ordered by name already, so that's checked first.
+    */
    private Attr[] sortAttributes(NamedNodeMap attrs)
    {
 
       int len = (attrs != null) ? attrs.getLength() : 0;
       Attr array[] = new Attr[len];
+      boolean sorted = true;
+      String previous = null;
       for (int i = 0; i < len; i++)
       {
-         array[i] = (Attr)attrs.item(i);
-      }
-      for (int i = 0; i < len - 1; i++)
-      {
-         String name = array[i].getNodeName();
-         int index = i;
-         for (int j = i + 1; j < len; j++)
-         {
-            String curName = array[j].getNodeName();
-            if (curName.compareTo(name) < 0)
-            {
-               name = curName;
-               index = j;
-            }
-         }
-         if (index != i)
+         Attr attr = (Attr)attrs.item(i);
+         array[i] = attr;
+         String name = attr.getNodeName();
+         if (sorted && previous != null && previous.compareTo(name) > 0)
          {
-            Attr temp = array[i];
-            array[i] = array[index];
-            array[index] = temp;
+            sorted = false;
          }
+         previous = name;
+      }
+      if (!sorted)
+      {
+         sortByName(array, len);
       }
       return (array);
    }
+
+   /**
+    * Sorts the first len attributes of the given array by name,
+    * getting each name only once.
+    */
+   static void sortByName(Attr[] array, int len)
+   {
+      AttrSortKey[] keys = new AttrSortKey[len];
+      for (int i = 0; i < len; i++)
+      {
+         keys[i] = new AttrSortKey(array[i]);
+      }
+      Arrays.sort(keys);
+      for (int i = 0; i < len; i++)
+      {
+         array[i] = keys[i].attr;
+      }
+   }
+
+   private static final class AttrSortKey implements Comparable<AttrSortKey>
+   {
+      private final String name;
+      private final Attr attr;
+
+      AttrSortKey(Attr attr)
+      {
+         this.name = attr.getNodeName();
+         this.attr = attr;
+      }
+
+      public int compareTo(AttrSortKey o)
+      {
+         return name.compareTo(o.name);
+      }
+   }
    
    /** Normalizes the given string. */
    public static String normalize(String s, boolean canonical)
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common;
+
+import static org.jboss.ws.common.Messages.MESSAGES;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * A bounded pool of DocumentBuilder instances created by a given factory.
+ * 
+ * Builders are owned exclusively by the caller between {@link #acquire()} and
+ * {@link #release(DocumentBuilder)}, so they can be used without synchronizing on
+ * them; they're reset when given back. When the pool is empty, a new builder
+ * is created; when it's full, returned builders are dropped. The number of
+ * builders is hence bounded by the number of concurrent parses, not by the
+ * number of threads (which can be large or short-lived, e.g. with virtual threads).
+ * 
+ * @since 18-Oct-2026
+ */
+public final class DocumentBuilderPool
+{
+   private final DocumentBuilderFactory factory;
+   private final ArrayBlockingQueue<DocumentBuilder> builders;
+
+   public DocumentBuilderPool(DocumentBuilderFactory factory, int maxSize)
+   {
+      if (maxSize < 1)
+         throw new IllegalArgumentException(String.valueOf(maxSize));
+      this.factory = factory;
+      this.builders = new ArrayBlockingQueue<DocumentBuilder>(maxSize);
+   }
+
+   /**
+    * Gets an idle builder from the pool or creates a new one; the
+    * builder should be given back using {@link #release(DocumentBuilder)}
+    */
+   public DocumentBuilder acquire()
+   {
+      DocumentBuilder builder = builders.poll();
+      if (builder == null)
+      {
+         try
+         {
+            builder = factory.newDocumentBuilder();
+         }
+         catch (Exception e)
+         {
+            throw MESSAGES.unableToCreateInstanceOf(e, DocumentBuilder.class.getName());
+         }
+      }
+      return builder;
+   }
+
+   /**
+    * Resets the given builder and puts it back in the pool, unless the pool is full
+    * 
+    * @param builder a builder obtained from {@link #acquire()}
+    */
+   public void release(DocumentBuilder builder)
+   {
+      try
+      {
+         builder.reset();
+      }
+      catch (UnsupportedOperationException e)
+      {
+         //can't be safely reused
+         return;
+      }
+      builders.offer(builder);
+   }
+
+   /**
+    * Gets the number of idle builders in the pool
+    */
+   public int getIdleCount()
+   {
+      return builders.size();
+   }
+
+   public int getMaxSize()
+   {
+      return builders.size() + builders.remainingCapacity();
+   }
+}
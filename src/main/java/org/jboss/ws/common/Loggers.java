@@ -24,6 +24,7 @@ import static org.jboss.logging.Logger.Level.INFO;
 import static org.jboss.logging.Logger.Level.TRACE;
 import static org.jboss.logging.Logger.Level.WARN;
 
+import java.io.File;
 import java.net.URL;
 
 import javax.management.ObjectName;
@@ -227,4 +228,12 @@ public interface Loggers extends BasicLogger
     @LogMessage(level = WARN)
     @Message(id = 22119, value = "Cannot obtain port for vituralHost %s, use default port")
     void cannotObtainPort(String host);
+    
+    @LogMessage(level = WARN)
+    @Message(id = 22122, value = "Cannot process record of group %s")
+    void cannotProcessRecord(String groupID, @Cause Throwable cause);
+    
+    @LogMessage(level = WARN)
+    @Message(id = 22123, value = "Cannot write record of group %s to %s")
+    void cannotWriteRecord(String groupID, File directory, @Cause Throwable cause);
 }
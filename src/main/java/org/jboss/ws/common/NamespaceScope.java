@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The namespace prefix declarations in scope while traversing a DOM tree.
+ * 
+ * Declarations are pushed when entering an element and popped when leaving it;
+ * each prefix is mapped to the index of its innermost declaration, which in turn
+ * links to the declaration it shadows, so that lookups don't need to walk the
+ * ancestor elements.
+ * 
+ * @since 18-Oct-2026
+ */
+final class NamespaceScope
+{
+   private final Map<String, Integer> index = new HashMap<String, Integer>();
+   private String[] prefixes = new String[16];
+   private String[] uris = new String[16];
+   private int[] shadowed = new int[16];
+   private int size;
+   private int[] marks = new int[16];
+   private int depth;
+
+   /**
+    * Opens the scope of a new element
+    */
+   void enter()
+   {
+      if (depth == marks.length)
+      {
+         marks = Arrays.copyOf(marks, depth * 2);
+      }
+      marks[depth++] = size;
+   }
+
+   /**
+    * Declares a prefix in the current element scope
+    * 
+    * @param prefix
+    * @param uri
+    */
+   void declare(String prefix, String uri)
+   {
+      if (size == prefixes.length)
+      {
+         prefixes = Arrays.copyOf(prefixes, size * 2);
+         uris = Arrays.copyOf(uris, size * 2);
+         shadowed = Arrays.copyOf(shadowed, size * 2);
+      }
+      Integer previous = index.put(prefix, size);
+      prefixes[size] = prefix;
+      uris[size] = uri;
+      shadowed[size] = previous != null ? previous : -1;
+      size++;
+   }
+
+   /**
+    * Closes the current element scope, dropping its declarations
+    */
+   void exit()
+   {
+      final int mark = marks[--depth];
+      while (size > mark)
+      {
+         size--;
+         if (shadowed[size] >= 0)
+         {
+            index.put(prefixes[size], shadowed[size]);
+         }
+         else
+         {
+            index.remove(prefixes[size]);
+         }
+         prefixes[size] = null;
+         uris[size] = null;
+      }
+   }
+
+   /**
+    * Gets the namespace URI the given prefix is bound to in the current scope
+    * 
+    * @param prefix
+    * @return the namespace URI or null if the prefix is not declared
+    */
+   String getNamespaceURI(String prefix)
+   {
+      if (size == 0)
+      {
+         return null;
+      }
+      Integer i = index.get(prefix);
+      return i != null ? uris[i] : null;
+   }
+
+   void clear()
+   {
+      while (depth > 0)
+      {
+         exit();
+      }
+   }
+}
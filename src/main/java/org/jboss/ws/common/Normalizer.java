@@ -18,10 +18,12 @@
  */
 package org.jboss.ws.common;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
+* Escapes the XML markup chars of a string.
+* 
+* The input is first scanned for chars needing escaping, which is
+* the usual case for text nodes: if none is found, the string itself
+* is returned, without copying it.
 *
 * @author <a href="mailto:mvecera@redhat.com">Martin Vecera</a>
 * @author <a href="mailto:alessio.soldano@jboss.com">Alessio Soldano</a>
@@ -30,7 +32,9 @@ import java.util.regex.Pattern;
 */
 final public class Normalizer
 {
-   private static final Pattern PATTERN = Pattern.compile("[&<>'\"\r\n]");
+   // Bit masks of the chars (all below 64) to be escaped; CR and LF are escaped in canonical mode only
+   private static final long ESCAPED = (1L << '&') | (1L << '<') | (1L << '>') | (1L << '\'') | (1L << '"');
+   private static final long ESCAPED_CANONICAL = ESCAPED | (1L << '\r') | (1L << '\n');
 
    public static String normalize(String strValue)
    {
@@ -39,89 +43,107 @@ final public class Normalizer
 
    public static String normalize(String strValue, boolean canonical)
    {
-      Matcher m = PATTERN.matcher(strValue);
-      if (m.find())
+      final int pos = indexOfEscaped(strValue, 0, canonical);
+      if (pos < 0)
       {
-         int pos = m.start(); // we can use previous match to skip some part at the string beginning
-         int len = strValue.length(); // just a single call to length()
-         char[] input = new char[len]; // this is to ommit calls to String.charAt()
-         strValue.getChars(0, len, input, 0);
-         StringBuilder sb = new StringBuilder(len * 3); // faster than StringBuffer, not thread safe
+         return strValue;
+      }
+      final int len = strValue.length();
+      StringBuilder sb = new StringBuilder(len + (len >> 2) + 16);
+      escape(strValue, pos, canonical, sb);
+      return sb.toString();
+   }
 
-         int copyStart = 0;
+   /**
+    * Appends the normalized string to the provided buffer; unlike
+    * {@link #normalize(String, boolean)}, this never creates an
+    * intermediate string.
+    * 
+    * @param strValue  the string to normalize
+    * @param canonical whether CR and LF should be escaped too
+    * @param sb        the buffer to append to
+    * @return the provided buffer
+    */
+   public static StringBuilder normalize(String strValue, boolean canonical, StringBuilder sb)
+   {
+      final int pos = indexOfEscaped(strValue, 0, canonical);
+      if (pos < 0)
+      {
+         return sb.append(strValue);
+      }
+      escape(strValue, pos, canonical, sb);
+      return sb;
+   }
 
-         for (int i = pos; i < len; i++)
+   /**
+    * Returns the index of the first char to be escaped, starting from the given
+    * position, or -1 if there's none; a single comparison rules out all the chars
+    * from '?' on, that is the letters and most of the non-ASCII text.
+    */
+   private static int indexOfEscaped(String s, int from, boolean canonical)
+   {
+      final long mask = canonical ? ESCAPED_CANONICAL : ESCAPED;
+      final int len = s.length();
+      for (int i = from; i < len; i++)
+      {
+         final char ch = s.charAt(i);
+         if (ch < 64 && ((mask >>> ch) & 1L) != 0)
          {
-            char ch = input[i];
-            switch (ch)
-            {
-               case '<':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&lt;");
-                  break;
-               case '>':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&gt;");
-                  break;
-               case '"':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&quot;");
-                  break;
-               case '\'':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&apos;");
-                  break;
-               case '&':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&amp;");
-                  break;
-               case '\r':
-               case '\n':
-                  if (canonical)
-                  {
-                     if (copyStart < i)
-                     {
-                        sb.append(input, copyStart, i - copyStart);
-                     }
-                     copyStart = i + 1;
-                     sb.append("&#");
-                     sb.append(Integer.toString(ch));
-                     sb.append(';');
-                     break;
-                  }
+            return i;
+         }
+      }
+      return -1;
+   }
 
-            }
+   /**
+    * Appends the escaped string to the buffer, copying the runs between
+    * the chars to be escaped in bulk
+    * 
+    * @param s         the string to escape
+    * @param pos       the position of the first char to be escaped
+    * @param canonical
+    * @param sb
+    */
+   private static void escape(String s, int pos, boolean canonical, StringBuilder sb)
+   {
+      int copyStart = 0;
+      while (pos >= 0)
+      {
+         if (copyStart < pos)
+         {
+            sb.append(s, copyStart, pos);
          }
-         if (copyStart < len)
+         char ch = s.charAt(pos);
+         switch (ch)
          {
-            sb.append(input, copyStart, len - copyStart);
+            case '<':
+               sb.append("&lt;");
+               break;
+            case '>':
+               sb.append("&gt;");
+               break;
+            case '"':
+               sb.append("&quot;");
+               break;
+            case '\'':
+               sb.append("&apos;");
+               break;
+            case '&':
+               sb.append("&amp;");
+               break;
+            case '\r':
+               sb.append("&#13;");
+               break;
+            case '\n':
+               sb.append("&#10;");
+               break;
          }
-
-         return sb.toString();
+         copyStart = pos + 1;
+         pos = indexOfEscaped(s, copyStart, canonical);
       }
-      else
+      if (copyStart < s.length())
       {
-         return strValue;
+         sb.append(s, copyStart, s.length());
       }
    }
 }
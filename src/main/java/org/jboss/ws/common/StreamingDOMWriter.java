@@ -0,0 +1,744 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common;
+
+import static org.jboss.ws.common.Messages.MESSAGES;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A {@link DOMWriter} alternative which encodes the document straight into
+ * an UTF-8 byte sink.
+ * 
+ * The output is the same as the one of a DOMWriter writing to the same stream
+ * with the same settings (canonical, pretty printing, namespace completion, etc.);
+ * however markup and escaped text are written into a reusable byte buffer
+ * (which is flushed to the stream only when full) instead of going through a
+ * PrintWriter one String at a time, and the namespace prefixes in scope are
+ * tracked while traversing the tree instead of looking them up on the
+ * ancestor elements.
+ * 
+ * Instances are not thread safe.
+ * 
+ * @since 18-Oct-2026
+ */
+public class StreamingDOMWriter
+{
+   private static final String XSI_NS = "http://www.w3.org/2001/XMLSchema-instance";
+   private static final String LINE_SEPARATOR = System.lineSeparator();
+   // Escape sequences by ASCII char, null if the char is written as it is
+   private static final byte[][] RAW = new byte[128][];
+   private static final byte[][] ESCAPED = new byte[128][];
+   private static final byte[][] ESCAPED_CANONICAL = new byte[128][];
+   static
+   {
+      ESCAPED['<'] = ascii("&lt;");
+      ESCAPED['>'] = ascii("&gt;");
+      ESCAPED['"'] = ascii("&quot;");
+      ESCAPED['\''] = ascii("&apos;");
+      ESCAPED['&'] = ascii("&amp;");
+      System.arraycopy(ESCAPED, 0, ESCAPED_CANONICAL, 0, ESCAPED.length);
+      ESCAPED_CANONICAL['\r'] = ascii("&#13;");
+      ESCAPED_CANONICAL['\n'] = ascii("&#10;");
+   }
+
+   // The byte sink
+   private final OutputStream out;
+   // The reusable encoding buffer
+   private final byte[] buffer;
+   private int pos;
+   // True, if canonical output
+   private boolean canonical;
+   // True, if pretty printing should be used
+   private boolean prettyprint;
+   // True, if the XML declaration should be written
+   private boolean writeXMLDeclaration;
+   // True, if whitespace should be ignored
+   private boolean ignoreWhitespace;
+   // Explicit character set encoding
+   private String charsetName;
+   // indent for the pretty printer
+   private int prettyIndent;
+   // True, if the XML declaration has been written
+   private boolean wroteXMLDeclaration;
+   // The node that started the write
+   private Node rootNode;
+   // True if we want namespace completion
+   private boolean completeNamespaces = true;
+   // The current default namespace
+   private String currentDefaultNamespace;
+   // The prefixes declared from the root node down to the current element
+   private final NamespaceScope scope = new NamespaceScope();
+   // Scratch arrays for the attributes and the prefixes used by the current element
+   private Attr[] attrs = new Attr[16];
+   private String[] usedPrefixes = new String[8];
+   private String[] usedURIs = new String[8];
+   private int usedCount;
+
+   public StreamingDOMWriter(OutputStream stream)
+   {
+      this.out = stream;
+      this.buffer = new byte[8192];
+   }
+
+   /**
+    * Creates a writer which also writes the XML declaration
+    * 
+    * @param stream
+    * @param charsetName the encoding name, which must denote UTF-8
+    */
+   public StreamingDOMWriter(OutputStream stream, String charsetName)
+   {
+      this(stream);
+      if (!StandardCharsets.UTF_8.equals(Charset.forName(charsetName)))
+         throw new IllegalArgumentException(charsetName);
+      this.charsetName = charsetName;
+      this.writeXMLDeclaration = true;
+   }
+
+   public boolean isCanonical()
+   {
+      return canonical;
+   }
+
+   /** 
+    * Set wheter entities should appear in their canonical form.
+    * The default is false.
+    */
+   public StreamingDOMWriter setCanonical(boolean canonical)
+   {
+      this.canonical = canonical;
+      return this;
+   }
+
+   public boolean isIgnoreWhitespace()
+   {
+      return ignoreWhitespace;
+   }
+
+   /**
+    * Set whether whitespace should be ignored.
+    * The default is false.
+    */
+   public StreamingDOMWriter setIgnoreWhitespace(boolean ignoreWhitespace)
+   {
+      this.ignoreWhitespace = ignoreWhitespace;
+      return this;
+   }
+
+   /**
+    * Set wheter subelements should have their namespaces completed.
+    * Setting this to false may lead to invalid XML fragments.
+    * The default is true.
+    */
+   public StreamingDOMWriter setCompleteNamespaces(boolean complete)
+   {
+      this.completeNamespaces = complete;
+      return this;
+   }
+
+   public boolean isPrettyprint()
+   {
+      return prettyprint;
+   }
+
+   /** 
+    * Set wheter element should be indented.
+    * The default is false.
+    */
+   public StreamingDOMWriter setPrettyprint(boolean prettyprint)
+   {
+      this.prettyprint = prettyprint;
+      return this;
+   }
+
+   public boolean isWriteXMLDeclaration()
+   {
+      return writeXMLDeclaration;
+   }
+
+   /** 
+    * Set wheter the XML declaration should be written.
+    * The default is false.
+    */
+   public StreamingDOMWriter setWriteXMLDeclaration(boolean flag)
+   {
+      this.writeXMLDeclaration = flag;
+      return this;
+   }
+
+   /**
+    * Writes the given node and flushes the stream
+    * 
+    * @param node
+    * @throws IOException
+    */
+   public void print(Node node) throws IOException
+   {
+      if (prettyprint && ignoreWhitespace)
+         throw MESSAGES.cannotPrettyPrintAndIgnoreWhiteSpaces();
+
+      rootNode = node;
+      try
+      {
+         printInternal(node, false);
+      }
+      finally
+      {
+         scope.clear();
+         rootNode = null;
+      }
+      flush();
+   }
+
+   public void flush() throws IOException
+   {
+      flushBuffer();
+      out.flush();
+   }
+
+   private void printInternal(Node node, boolean indentEndMarker) throws IOException
+   {
+      // is there anything to do?
+      if (node == null)
+      {
+         return;
+      }
+
+      if (wroteXMLDeclaration == false && writeXMLDeclaration == true && canonical == false)
+      {
+         write("<?xml version='1.0'");
+         if (charsetName != null)
+         {
+            write(" encoding='");
+            write(charsetName);
+            write('\'');
+         }
+         write("?>");
+         if (prettyprint)
+            write(LINE_SEPARATOR);
+
+         wroteXMLDeclaration = true;
+      }
+
+      int type = node.getNodeType();
+      // sibling navigation does not depend on the DOM node list caching
+      Node firstChild = node.getFirstChild();
+      boolean hasChildNodes = firstChild != null;
+
+      String nodeName = node.getNodeName();
+      switch (type)
+      {
+         case Node.DOCUMENT_NODE:
+         {
+            printChildren(firstChild);
+            break;
+         }
+
+         case Node.ELEMENT_NODE:
+         {
+            Element element = (Element)node;
+            if (prettyprint)
+            {
+               indent();
+               prettyIndent++;
+            }
+
+            write('<');
+            write(nodeName);
+
+            scope.enter();
+            final int attrCount = collectAttributes(element);
+            usedCount = 0;
+            String elPrefix = node.getPrefix();
+            String elNamespaceURI = node.getNamespaceURI();
+            if (elPrefix != null)
+            {
+               use(elPrefix, scope.getNamespaceURI(elPrefix));
+            }
+
+            boolean declaresDefaultNamespace = false;
+            for (int i = 0; i < attrCount; i++)
+            {
+               Attr attr = attrs[i];
+               String atPrefix = attr.getPrefix();
+               String atName = attr.getNodeName();
+               String atValue = attr.getNodeValue();
+
+               if (atName.equals("xmlns"))
+               {
+                  currentDefaultNamespace = Normalizer.normalize(atValue, canonical);
+                  declaresDefaultNamespace = atValue.length() > 0;
+               }
+
+               if (atPrefix != null && !atPrefix.equals("xmlns") && !atPrefix.equals("xml"))
+               {
+                  String nsURI = scope.getNamespaceURI(atPrefix);
+                  use(atPrefix, nsURI);
+                  // xsi:type='ns1:SubType', xsi:type='xsd:string'
+                  if (isTypeAttribute(atName, atPrefix) && atValue.indexOf(':') > 0)
+                  {
+                     // xsi defined on the envelope
+                     if (nsURI == null)
+                        nsURI = getNamespaceURIAboveRoot(atPrefix);
+
+                     if (XSI_NS.equals(nsURI))
+                     {
+                        String normalized = Normalizer.normalize(atValue, canonical);
+                        String typePrefix = normalized.substring(0, normalized.indexOf(':'));
+                        use(typePrefix, scope.getNamespaceURI(typePrefix));
+                     }
+                  }
+               }
+
+               write(' ');
+               write(atName);
+               write('=');
+               write('\'');
+               write(atValue, canonical ? ESCAPED_CANONICAL : ESCAPED);
+               write('\'');
+            }
+            Arrays.fill(attrs, 0, attrCount, null);
+
+            // Add namespace declaration for prefixes 
+            // that are defined further up the tree
+            if (completeNamespaces)
+            {
+               completeNamespaces();
+            }
+
+            // The SAX ContentHandler will by default not add the namespace declaration 
+            // <Hello xmlns='http://somens'>World</Hello>
+            if (elPrefix == null && elNamespaceURI != null)
+            {
+               if (!declaresDefaultNamespace && !elNamespaceURI.equals(currentDefaultNamespace))
+               {
+                  write(" xmlns='");
+                  write(elNamespaceURI);
+                  write('\'');
+                  currentDefaultNamespace = elNamespaceURI;
+               }
+            }
+
+            if (hasChildNodes)
+            {
+               write('>');
+            }
+
+            // Find out if the end marker is indented
+            indentEndMarker = isEndMarkerIndented(firstChild);
+
+            if (indentEndMarker)
+            {
+               write('\n');
+            }
+
+            printChildren(firstChild);
+            scope.exit();
+            break;
+         }
+
+         case Node.ENTITY_REFERENCE_NODE:
+         {
+            if (canonical)
+            {
+               printChildren(firstChild);
+            }
+            else
+            {
+               write('&');
+               write(nodeName);
+               write(';');
+            }
+            break;
+         }
+
+         case Node.CDATA_SECTION_NODE:
+         {
+            if (canonical)
+            {
+               write(node.getNodeValue(), ESCAPED_CANONICAL);
+            }
+            else
+            {
+               write("<![CDATA[");
+               write(node.getNodeValue());
+               write("]]>");
+            }
+            break;
+         }
+
+         case Node.TEXT_NODE:
+         {
+            String text = node.getNodeValue();
+            if ((prettyprint == false && ignoreWhitespace == false) || !isWhitespace(text))
+            {
+               write(text, canonical ? ESCAPED_CANONICAL : ESCAPED);
+            }
+            break;
+         }
+
+         case Node.PROCESSING_INSTRUCTION_NODE:
+         {
+            write("<?");
+            write(nodeName);
+            String data = node.getNodeValue();
+            if (data != null && data.length() > 0)
+            {
+               write(' ');
+               write(data);
+            }
+            write("?>");
+            break;
+         }
+
+         case Node.COMMENT_NODE:
+         {
+            indent();
+            write("<!--");
+            String data = node.getNodeValue();
+            if (data != null)
+            {
+               write(data);
+            }
+            write("-->");
+
+            if (prettyprint)
+            {
+               write('\n');
+            }
+            break;
+         }
+      }
+
+      if (type == Node.ELEMENT_NODE)
+      {
+         if (prettyprint)
+            prettyIndent--;
+
+         if (hasChildNodes == false)
+         {
+            write("/>");
+         }
+         else
+         {
+            if (indentEndMarker)
+            {
+               indent();
+            }
+
+            write("</");
+            write(nodeName);
+            write('>');
+         }
+
+         if (prettyIndent > 0)
+         {
+            write('\n');
+         }
+      }
+   }
+
+   /**
+    * Copies the element attributes into the scratch array, sorted by name,
+    * and declares the namespace prefixes they define
+    * 
+    * @return the number of attributes
+    */
+   private int collectAttributes(Element element)
+   {
+      NamedNodeMap map = element.getAttributes();
+      int len = (map != null) ? map.getLength() : 0;
+      if (len > attrs.length)
+      {
+         attrs = new Attr[Math.max(len, attrs.length * 2)];
+      }
+      boolean sorted = true;
+      String previous = null;
+      for (int i = 0; i < len; i++)
+      {
+         Attr attr = (Attr)map.item(i);
+         String name = attr.getNodeName();
+         if (name.startsWith("xmlns:"))
+         {
+            String uri = attr.getNodeValue();
+            if (uri.length() > 0)
+               scope.declare(name.substring(6), uri);
+         }
+         if (sorted && previous != null && previous.compareTo(name) > 0)
+         {
+            sorted = false;
+         }
+         previous = name;
+         attrs[i] = attr;
+      }
+      if (!sorted)
+      {
+         DOMWriter.sortByName(attrs, len);
+      }
+      return len;
+   }
+
+   /**
+    * Records a prefix used by the current element, along with the
+    * namespace URI it's bound to (null if it's not declared in scope)
+    */
+   private void use(String prefix, String nsURI)
+   {
+      for (int i = 0; i < usedCount; i++)
+      {
+         if (usedPrefixes[i].equals(prefix))
+         {
+            return;
+         }
+      }
+      if (usedCount == usedPrefixes.length)
+      {
+         usedPrefixes = Arrays.copyOf(usedPrefixes, usedCount * 2);
+         usedURIs = Arrays.copyOf(usedURIs, usedCount * 2);
+      }
+      usedPrefixes[usedCount] = prefix;
+      usedURIs[usedCount] = nsURI;
+      usedCount++;
+   }
+
+   private void completeNamespaces() throws IOException
+   {
+      int missing = 0;
+      int last = -1;
+      for (int i = 0; i < usedCount; i++)
+      {
+         if (usedURIs[i] == null)
+         {
+            missing++;
+            last = i;
+         }
+      }
+      if (missing == 1)
+      {
+         declareNamespace(usedPrefixes[last]);
+      }
+      else if (missing > 1)
+      {
+         // same declaration order as DOMWriter
+         Map<String, String> nsMap = new HashMap<String, String>();
+         for (int i = 0; i < usedCount; i++)
+         {
+            nsMap.put(usedPrefixes[i], usedURIs[i]);
+         }
+         for (Entry<String, String> e : nsMap.entrySet())
+         {
+            if (e.getValue() == null)
+            {
+               declareNamespace(e.getKey());
+            }
+         }
+      }
+      for (int i = 0; i < usedCount; i++)
+      {
+         usedPrefixes[i] = null;
+         usedURIs[i] = null;
+      }
+      usedCount = 0;
+   }
+
+   private void declareNamespace(String prefix) throws IOException
+   {
+      write(" xmlns:");
+      write(prefix);
+      write('=');
+      write('\'');
+      write(String.valueOf(getNamespaceURIAboveRoot(prefix)));
+      write('\'');
+   }
+
+   /**
+    * Looks up a prefix which is not declared in scope on the ancestors of the root node
+    */
+   private String getNamespaceURIAboveRoot(String prefix)
+   {
+      Node parent = rootNode != null ? rootNode.getParentNode() : null;
+      String attrName = "xmlns:" + prefix;
+      while (parent instanceof Element)
+      {
+         String nsURI = ((Element)parent).getAttribute(attrName);
+         if (nsURI.length() > 0)
+            return nsURI;
+         parent = parent.getParentNode();
+      }
+      return null;
+   }
+
+   private static boolean isTypeAttribute(String atName, String atPrefix)
+   {
+      return atName.length() == atPrefix.length() + 5 && atName.startsWith(atPrefix) && atName.endsWith(":type");
+   }
+
+   private void printChildren(Node firstChild) throws IOException
+   {
+      for (Node child = firstChild; child != null; child = child.getNextSibling())
+      {
+         printInternal(child, false);
+      }
+   }
+
+   private boolean isEndMarkerIndented(Node firstChild)
+   {
+      if (prettyprint)
+      {
+         for (Node child = firstChild; child != null; child = child.getNextSibling())
+         {
+            if (child.getNodeType() == Node.ELEMENT_NODE)
+            {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Returns true if the text would be blank once normalized
+    */
+   private boolean isWhitespace(String text)
+   {
+      for (int i = 0; i < text.length(); i++)
+      {
+         char c = text.charAt(i);
+         if (c > ' ' || (canonical && (c == '\r' || c == '\n')))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private void indent() throws IOException
+   {
+      for (int i = 0; i < prettyIndent; i++)
+      {
+         write(' ');
+      }
+   }
+
+   private void write(char c) throws IOException
+   {
+      if (pos == buffer.length)
+      {
+         flushBuffer();
+      }
+      buffer[pos++] = (byte)c;
+   }
+
+   private void write(String s) throws IOException
+   {
+      write(s, RAW);
+   }
+
+   /**
+    * Encodes the given string in UTF-8, replacing the ASCII chars
+    * which have an escape sequence in the provided table
+    */
+   private void write(String s, byte[][] escapes) throws IOException
+   {
+      final byte[] b = buffer;
+      final int limit = b.length - 8; // room for the longest escape sequence
+      final int len = s.length();
+      int p = pos;
+      for (int i = 0; i < len; i++)
+      {
+         if (p > limit)
+         {
+            pos = p;
+            flushBuffer();
+            p = 0;
+         }
+         char c = s.charAt(i);
+         if (c < 0x80)
+         {
+            byte[] escape = escapes[c];
+            if (escape == null)
+            {
+               b[p++] = (byte)c;
+            }
+            else
+            {
+               for (int j = 0; j < escape.length; j++)
+               {
+                  b[p++] = escape[j];
+               }
+            }
+         }
+         else if (c < 0x800)
+         {
+            b[p++] = (byte)(0xc0 | (c >> 6));
+            b[p++] = (byte)(0x80 | (c & 0x3f));
+         }
+         else if (Character.isSurrogate(c))
+         {
+            if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1)))
+            {
+               int cp = Character.toCodePoint(c, s.charAt(++i));
+               b[p++] = (byte)(0xf0 | (cp >> 18));
+               b[p++] = (byte)(0x80 | ((cp >> 12) & 0x3f));
+               b[p++] = (byte)(0x80 | ((cp >> 6) & 0x3f));
+               b[p++] = (byte)(0x80 | (cp & 0x3f));
+            }
+            else
+            {
+               // malformed, replaced as done by the UTF-8 encoder
+               b[p++] = '?';
+            }
+         }
+         else
+         {
+            b[p++] = (byte)(0xe0 | (c >> 12));
+            b[p++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+            b[p++] = (byte)(0x80 | (c & 0x3f));
+         }
+      }
+      pos = p;
+   }
+
+   private void flushBuffer() throws IOException
+   {
+      if (pos > 0)
+      {
+         out.write(buffer, 0, pos);
+         pos = 0;
+      }
+   }
+
+   private static byte[] ascii(String s)
+   {
+      return s.getBytes(StandardCharsets.US_ASCII);
+   }
+}
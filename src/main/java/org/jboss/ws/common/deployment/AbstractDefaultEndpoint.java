@@ -30,6 +30,10 @@ import org.jboss.ws.api.monitoring.RecordFilter;
 import org.jboss.ws.api.monitoring.RecordProcessor;
 import org.jboss.ws.common.Messages;
 import org.jboss.ws.common.injection.PreDestroyHolder;
+import org.jboss.ws.common.monitoring.AbstractRecordProcessor;
+import org.jboss.ws.common.monitoring.RecordImpl;
+import org.jboss.ws.common.monitoring.RecordingState;
+import org.jboss.ws.common.monitoring.SamplingDecision;
 import org.jboss.wsf.spi.deployment.AbstractExtensible;
 import org.jboss.wsf.spi.deployment.Endpoint;
 import org.jboss.wsf.spi.deployment.EndpointState;
@@ -66,6 +70,7 @@ public abstract class AbstractDefaultEndpoint extends AbstractExtensible impleme
    protected volatile EndpointMetrics metrics;
    private volatile String address;
    private volatile List<RecordProcessor> recordProcessors = new CopyOnWriteArrayList<RecordProcessor>();
+   private volatile RecordingState recordingState;
    private volatile SecurityDomainContext securityDomainContext;
    private volatile InstanceProvider instanceProvider;
    private volatile EndpointConfig endpointConfig;
@@ -267,16 +272,39 @@ public abstract class AbstractDefaultEndpoint extends AbstractExtensible impleme
    public void setRecordProcessors(List<RecordProcessor> recordProcessors)
    {
       this.recordProcessors = new CopyOnWriteArrayList<RecordProcessor>(recordProcessors);
+      this.recordingState = null;
+   }
+
+   /**
+    * Gets the aggregate state of the endpoint record processors, per-operation
+    * metrics and flight recordings, which is cached until any of them changes.
+    * 
+    * @return the current recording state of this endpoint, never null
+    */
+   public RecordingState getRecordingState()
+   {
+      RecordingState state = recordingState;
+      if (state == null || !state.isCurrent())
+      {
+         state = RecordingState.compute(recordProcessors, getEndpointMetrics());
+         recordingState = state;
+      }
+      return state;
    }
    
    public void processRecord(Record record)
    {
+      SamplingDecision sampling = record instanceof RecordImpl ? ((RecordImpl)record).getSamplingDecision() : null;
       for (RecordProcessor processor : recordProcessors)
       {
-         if (processor.isRecording())
+         if (processor.isRecording() && (sampling == null || sampling.isKept(processor)))
          {
             boolean match = true;
-            if (processor.getFilters() != null)
+            if (processor instanceof AbstractRecordProcessor)
+            {
+               match = ((AbstractRecordProcessor)processor).matches(record);
+            }
+            else if (processor.getFilters() != null)
             {
                for (Iterator<RecordFilter> it = processor.getFilters().iterator(); it.hasNext() && match;)
                {
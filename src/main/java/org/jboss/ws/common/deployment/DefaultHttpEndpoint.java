@@ -18,6 +18,7 @@
  */
 package org.jboss.ws.common.deployment;
 
+import org.jboss.ws.common.monitoring.RecordingState;
 import org.jboss.wsf.spi.deployment.HttpEndpoint;
 import org.jboss.wsf.spi.management.EndpointMetrics;
 
@@ -45,6 +46,7 @@ public class DefaultHttpEndpoint extends AbstractDefaultEndpoint implements Http
    {
       assertEndpointSetterAccess();
       this.metrics = metrics;
+      RecordingState.configurationChanged();
 
    }
 
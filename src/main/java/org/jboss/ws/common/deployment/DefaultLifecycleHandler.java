@@ -20,10 +20,13 @@ package org.jboss.ws.common.deployment;
 
 import org.jboss.ws.common.Loggers;
 import org.jboss.ws.common.Messages;
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.EndpointRegistry;
 import org.jboss.wsf.spi.deployment.Endpoint;
 import org.jboss.wsf.spi.deployment.EndpointState;
 import org.jboss.wsf.spi.deployment.LifecycleHandler;
 import org.jboss.wsf.spi.invocation.InvocationHandler;
+import org.jboss.wsf.spi.management.EndpointMetrics;
 
 /**
  * A basic lifecycle handler
@@ -53,8 +56,13 @@ public class DefaultLifecycleHandler implements LifecycleHandler
       }
       else
       {
-         if (ep.getEndpointMetrics() != null)
-            ep.getEndpointMetrics().start();
+         EndpointMetrics metrics = ep.getEndpointMetrics();
+         if (metrics != null)
+         {
+            if (metrics instanceof EndpointMetricsImpl)
+               ((EndpointMetricsImpl)metrics).setEndpointName(ep.getShortName());
+            metrics.start();
+         }
 
          InvocationHandler invHandler = ep.getInvocationHandler();
          if (invHandler == null)
@@ -62,6 +70,7 @@ public class DefaultLifecycleHandler implements LifecycleHandler
          invHandler.init(ep);
 
          ep.setState(EndpointState.STARTED);
+         EndpointRegistry.register(ep);
       }
    }
 
@@ -78,6 +87,7 @@ public class DefaultLifecycleHandler implements LifecycleHandler
       }
       else
       {
+         EndpointRegistry.unregister(ep);
          if (ep.getEndpointMetrics() != null)
             ep.getEndpointMetrics().stop();
 
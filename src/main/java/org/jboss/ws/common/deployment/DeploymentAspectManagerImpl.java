@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.jboss.ws.common.management.JfrEvents;
 import org.jboss.wsf.spi.deployment.Deployment;
 import org.jboss.wsf.spi.deployment.DeploymentAspect;
 import org.jboss.wsf.spi.deployment.DeploymentAspectManager;
@@ -109,6 +110,7 @@ public class DeploymentAspectManagerImpl implements DeploymentAspectManager
          {
             logInvocation(aspect, "Start");
             ClassLoader origClassLoader = SecurityActions.getContextClassLoader();
+            Object event = JfrEvents.beginDeploymentAspect();
             try
             {
                SecurityActions.setContextClassLoader(aspect.getLoader());
@@ -116,6 +118,7 @@ public class DeploymentAspectManagerImpl implements DeploymentAspectManager
             }
             finally
             {
+               JfrEvents.endDeploymentAspect(event, dep.getSimpleName(), aspect.getClass().getName(), "start");
                SecurityActions.setContextClassLoader(origClassLoader);
             }
          }
@@ -156,7 +159,15 @@ public class DeploymentAspectManagerImpl implements DeploymentAspectManager
       try
       {
          logInvocation(aspect, "Stop");
-         aspect.stop(dep);
+         Object event = JfrEvents.beginDeploymentAspect();
+         try
+         {
+            aspect.stop(dep);
+         }
+         finally
+         {
+            JfrEvents.endDeploymentAspect(event, dep.getSimpleName(), aspect.getClass().getName(), "stop");
+         }
       }
       catch (RuntimeException rte)
       {
@@ -29,6 +29,9 @@ import org.jboss.ws.api.monitoring.RecordProcessor;
 import org.jboss.ws.common.Loggers;
 import org.jboss.ws.common.ObjectNameFactory;
 import org.jboss.ws.common.integration.AbstractDeploymentAspect;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher.OverflowPolicy;
+import org.jboss.ws.common.monitoring.FileRecorder;
 import org.jboss.ws.common.monitoring.ManagedRecordProcessor;
 import org.jboss.wsf.spi.deployment.Deployment;
 import org.jboss.wsf.spi.deployment.Endpoint;
@@ -43,12 +46,49 @@ public class EndpointRecordProcessorDeploymentAspect extends AbstractDeploymentA
 {
    private MBeanServer mbeanServer;
    private List<RecordProcessor> processors;
+   private boolean asyncDispatch;
+   private int asyncQueueSize = 1024;
+   private int asyncWorkers = 1;
+   private OverflowPolicy asyncOverflowPolicy = OverflowPolicy.DROP_NEWEST;
 
    public void setProcessors(List<RecordProcessor> processors)
    {
       this.processors = processors;
    }
 
+   /**
+    * Set whether records are passed to the record processors by a pool of
+    * worker threads instead of the request threads. The default is false.
+    */
+   public void setAsyncDispatch(boolean asyncDispatch)
+   {
+      this.asyncDispatch = asyncDispatch;
+   }
+
+   public void setAsyncQueueSize(int asyncQueueSize)
+   {
+      this.asyncQueueSize = asyncQueueSize;
+   }
+
+   /**
+    * Set the maximum number of worker threads processing the records of
+    * each endpoint at the same time; the worker threads are taken from a
+    * pool shared by all the endpoints. The default is 1.
+    */
+   public void setAsyncWorkers(int asyncWorkers)
+   {
+      this.asyncWorkers = asyncWorkers;
+   }
+
+   /**
+    * Set the policy to apply when the records queue is full, one of
+    * DROP_NEWEST (the default), DROP_OLDEST or BLOCK.
+    */
+   public void setAsyncOverflowPolicy(String asyncOverflowPolicy)
+   {
+      this.asyncOverflowPolicy = OverflowPolicy.valueOf(asyncOverflowPolicy.trim().toUpperCase());
+   }
+
    @Override
    public void start(Deployment dep)
    {
@@ -62,6 +102,10 @@ public class EndpointRecordProcessorDeploymentAspect extends AbstractDeploymentA
                try
                {
                   RecordProcessor clone = (RecordProcessor)pr.clone();
+                  if (clone instanceof FileRecorder)
+                  {
+                     ((FileRecorder)clone).initFilePrefix(ep);
+                  }
                   registerRecordProcessor(clone, ep);
                   processorList.add(clone);
                }
@@ -72,6 +116,12 @@ public class EndpointRecordProcessorDeploymentAspect extends AbstractDeploymentA
             }
          }
          ep.setRecordProcessors(processorList);
+         if (asyncDispatch)
+         {
+            AsyncRecordDispatcher dispatcher = new AsyncRecordDispatcher(ep, asyncQueueSize, asyncOverflowPolicy, asyncWorkers);
+            ep.addAttachment(AsyncRecordDispatcher.class, dispatcher);
+            dispatcher.start();
+         }
       }
    }
 
@@ -80,10 +130,19 @@ public class EndpointRecordProcessorDeploymentAspect extends AbstractDeploymentA
    {
       for (Endpoint ep : dep.getService().getEndpoints())
       {
+         AsyncRecordDispatcher dispatcher = ep.getAttachment(AsyncRecordDispatcher.class);
+         if (dispatcher != null)
+         {
+            dispatcher.stop();
+         }
          List<RecordProcessor> processors = ep.getRecordProcessors();
          for (RecordProcessor processor : processors)
          {
             this.unregisterRecordProcessor(processor, ep);
+            if (processor instanceof FileRecorder)
+            {
+               ((FileRecorder)processor).close();
+            }
          }
       }
    }
@@ -22,7 +22,6 @@ import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
 
 import java.net.URL;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -37,11 +36,19 @@ import org.jboss.ws.api.handler.GenericSOAPHandler;
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.Record.MessageType;
 import org.jboss.ws.api.monitoring.RecordGroupAssociation;
-import org.jboss.ws.api.monitoring.RecordProcessor;
 import org.jboss.ws.common.DOMWriter;
+import org.jboss.ws.common.deployment.AbstractDefaultEndpoint;
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.JfrEvents;
+import org.jboss.ws.common.management.OperationMetrics;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher;
 import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+import org.jboss.ws.common.monitoring.RecordingState;
+import org.jboss.ws.common.monitoring.SamplingDecision;
 import org.jboss.wsf.spi.deployment.Endpoint;
 import org.jboss.wsf.spi.invocation.EndpointAssociation;
+import org.jboss.wsf.spi.management.EndpointMetrics;
 
 /**
  * This handler is responsible for collecting the information about the
@@ -49,20 +56,64 @@ import org.jboss.wsf.spi.invocation.EndpointAssociation;
  * is performed delegating to the RecordProcessors installed into the
  * current endpoint.
  * 
+ * The envelope of each record is captured lazily and serialized only when
+ * a record processor reads it. Once the record processors are done with a
+ * record, its envelope source is released, as the message is going to be
+ * changed or reused: a processor keeping a record for later (e.g. for
+ * processing it on another thread) must call {@link Record#getEnvelope()}
+ * from its processRecord method, otherwise the envelope reads as null later on.
+ * 
  * @author alessio.soldano@jboss.com
  * @since 8-Dec-2007
  */
 public class RecordingServerHandler extends GenericSOAPHandler<SOAPMessageContext>
 {
+   public static final String ENVELOPE_MAX_SIZE_PROPERTY = "org.jboss.ws.monitoring.envelope_max_size";
+   private static final int ENVELOPE_MAX_SIZE = Integer.getInteger(ENVELOPE_MAX_SIZE_PROPERTY, 1024 * 1024);
+   private static final String OPERATION_BEGIN_TIME = RecordingServerHandler.class.getName() + ".operationBeginTime";
+   private static final String SAMPLING_DECISION = RecordingServerHandler.class.getName() + ".samplingDecision";
+   private static final String OPERATION_EVENT = RecordingServerHandler.class.getName() + ".operationEvent";
+
    @SuppressWarnings("unchecked")
    protected boolean handleInbound(SOAPMessageContext ctx)
    {
       Endpoint endpoint = EndpointAssociation.getEndpoint();
-      if (endpoint != null && isRecording(endpoint))
+      RecordingState state = getRecordingState(endpoint);
+      if (!state.isActive())
+      {
+         return true;
+      }
+      if (state.isOperationMetrics())
+      {
+         OperationMetrics operationMetrics = getOperationMetrics(endpoint);
+         if (operationMetrics != null)
+         {
+            operationMetrics.processRequest((QName)ctx.get(MessageContext.WSDL_OPERATION));
+            ctx.put(OPERATION_BEGIN_TIME, System.nanoTime());
+         }
+      }
+      if (state.isFlightRecording())
+      {
+         Object event = JfrEvents.beginOperation();
+         if (event != null)
+         {
+            ctx.put(OPERATION_EVENT, event);
+         }
+      }
+      SamplingDecision sampling = null;
+      if (state.isRecording() && state.isSampling())
+      {
+         //decide once for the whole group
+         sampling = SamplingDecision.sample(endpoint.getRecordProcessors(), endpoint.getAttachment(AsyncRecordDispatcher.class));
+         ctx.put(SAMPLING_DECISION, sampling);
+      }
+      if (state.isRecording() && (sampling == null || !sampling.isDropped()))
       {
          Record record = RecordFactory.newRecord();
+         setSamplingDecision(record, sampling);
          RecordGroupAssociation.pushGroupID(record.getGroupID());
-         record.setDate(new Date());
+         setTimestamp(record);
+         //hosts and headers are always set, as processor filters might need them
          HttpServletRequest httpServletRequest = (HttpServletRequest)ctx.get(MessageContext.SERVLET_REQUEST);
          if (httpServletRequest != null)
          {
@@ -79,94 +130,197 @@ public class RecordingServerHandler extends GenericSOAPHandler<SOAPMessageContex
          record.setHeaders((Map<String,List<String>>)(ctx.get(MessageContext.HTTP_REQUEST_HEADERS)));
          record.setMessageType(MessageType.INBOUND);
          record.setOperation((QName)ctx.get(MessageContext.WSDL_OPERATION));
-         boolean processEnvelope = false;
-         for (Iterator<RecordProcessor> it = endpoint.getRecordProcessors().iterator(); it.hasNext() && !processEnvelope; )
+         if (state.isProcessEnvelope()) //skip message processing if not required since it's very time-consuming
          {
-            processEnvelope = it.next().isProcessEnvelope();
+            captureEnvelope(ctx, record);
          }
-         if (processEnvelope) //skip message processing if not required since it's very time-consuming
+         processRecord(endpoint, record);
+         if (sampling != null)
          {
-            try
-            {
-               SOAPEnvelope soapEnv = ctx.getMessage().getSOAPPart().getEnvelope();
-               if (soapEnv != null)
-               {
-                  record.setEnvelope(DOMWriter.printNode(soapEnv, true));
-               }
-            }
-            catch (SOAPException ex)
-            {
-               MONITORING_LOGGER.cannotTraceSoapMessage(ex);
-            }
+            sampling.add(record);
          }
-         endpoint.processRecord(record);
+         releaseEnvelope(record);
       }
       return true;
    }
 
-   @SuppressWarnings("unchecked")
    protected boolean handleOutbound(SOAPMessageContext ctx)
+   {
+      return handleOutbound(ctx, false);
+   }
+
+   public boolean handleFault(SOAPMessageContext ctx)
+   {
+      return handleOutbound(ctx, true);
+   }
+
+   @SuppressWarnings("unchecked")
+   private boolean handleOutbound(SOAPMessageContext ctx, boolean fault)
    {
       Endpoint endpoint = EndpointAssociation.getEndpoint();
-      if (endpoint != null && isRecording(endpoint))
+      RecordingState state = getRecordingState(endpoint);
+      if (!state.isActive())
+      {
+         return true;
+      }
+      if (state.isOperationMetrics())
+      {
+         OperationMetrics operationMetrics = getOperationMetrics(endpoint);
+         Long beginTime = (Long)ctx.get(OPERATION_BEGIN_TIME);
+         if (operationMetrics != null && beginTime != null)
+         {
+            operationMetrics.processResponse((QName)ctx.get(MessageContext.WSDL_OPERATION), System.nanoTime() - beginTime, fault);
+         }
+      }
+      if (state.isFlightRecording())
+      {
+         Object event = ctx.remove(OPERATION_EVENT);
+         if (event != null)
+         {
+            JfrEvents.endOperation(event, endpoint.getShortName(), (QName)ctx.get(MessageContext.WSDL_OPERATION), fault);
+         }
+      }
+      SamplingDecision sampling = state.isRecording() && state.isSampling() ? (SamplingDecision)ctx.get(SAMPLING_DECISION) : null;
+      if (state.isRecording() && (sampling == null || !sampling.isDropped()))
       {
          String groupID = RecordGroupAssociation.popGroupID();
          Record record = RecordFactory.newRecord(groupID);
-         record.setDate(new Date());
+         setSamplingDecision(record, sampling);
+         setTimestamp(record);
          record.setHeaders((Map<String,List<String>>)(ctx.get(MessageContext.HTTP_RESPONSE_HEADERS)));
          record.setMessageType(MessageType.OUTBOUND);
+         if (fault && record instanceof RecordImpl)
+         {
+            ((RecordImpl)record).setFault(true);
+         }
          record.setOperation((QName)ctx.get(MessageContext.WSDL_OPERATION));
-         boolean processEnvelope = false;
-         for (Iterator<RecordProcessor> it = endpoint.getRecordProcessors().iterator(); it.hasNext() && !processEnvelope; )
+         if (state.isProcessEnvelope()) //skip message processing if not required since it's very time-consuming
          {
-            processEnvelope = it.next().isProcessEnvelope();
+            captureEnvelope(ctx, record);
          }
-         if (processEnvelope) //skip message processing if not required since it's very time-consuming
+         processRecord(endpoint, record);
+         if (sampling != null)
          {
-            try
+            sampling.add(record);
+            sampling.complete(fault);
+         }
+         releaseEnvelope(record);
+      }
+      return true;
+   }
+
+   private static void setTimestamp(Record record)
+   {
+      if (record instanceof RecordImpl)
+      {
+         ((RecordImpl)record).setTimestamp(RecordImpl.currentTimestamp());
+      }
+      else
+      {
+         record.setDate(new Date());
+      }
+   }
+
+   private static void setSamplingDecision(Record record, SamplingDecision sampling)
+   {
+      if (sampling != null && record instanceof RecordImpl)
+      {
+         ((RecordImpl)record).setSamplingDecision(sampling);
+      }
+   }
+
+   /**
+    * Returns the endpoint per-operation metrics, if enabled
+    * 
+    * @param endpoint
+    * @return
+    */
+   private static OperationMetrics getOperationMetrics(Endpoint endpoint)
+   {
+      EndpointMetrics metrics = endpoint != null ? endpoint.getEndpointMetrics() : null;
+      return metrics instanceof EndpointMetricsImpl ? ((EndpointMetricsImpl)metrics).getOperationMetrics() : null;
+   }
+
+   /**
+    * Attaches the message envelope to the record; the envelope is serialized
+    * only if a record processor actually reads it.
+    * 
+    * @param ctx
+    * @param record
+    */
+   private static void captureEnvelope(SOAPMessageContext ctx, Record record)
+   {
+      try
+      {
+         SOAPEnvelope soapEnv = ctx.getMessage().getSOAPPart().getEnvelope();
+         if (soapEnv != null)
+         {
+            if (record instanceof RecordImpl)
             {
-               SOAPEnvelope soapEnv = ctx.getMessage().getSOAPPart().getEnvelope();
-               if (soapEnv != null)
-               {
-                  record.setEnvelope(DOMWriter.printNode(soapEnv, true));
-               }
+               ((RecordImpl)record).setEnvelopeSource(soapEnv, ENVELOPE_MAX_SIZE);
             }
-            catch (SOAPException ex)
+            else
             {
-               MONITORING_LOGGER.cannotTraceSoapMessage(ex);
+               record.setEnvelope(DOMWriter.printNode(soapEnv, false));
             }
          }
-         endpoint.processRecord(record);
       }
-      return true;
+      catch (SOAPException ex)
+      {
+         MONITORING_LOGGER.cannotTraceSoapMessage(ex);
+      }
    }
 
-   public boolean handleFault(SOAPMessageContext ctx)
+   /**
+    * Prevents the envelope from being serialized after the message exchange
+    * is over, as the message could have changed in the meantime; the envelope
+    * of a record whose envelope has not been read by the record processors
+    * is null from now on.
+    * 
+    * @param record
+    */
+   private static void releaseEnvelope(Record record)
    {
-      return handleOutbound(ctx);
+      if (record instanceof RecordImpl)
+      {
+         ((RecordImpl)record).releaseEnvelopeSource();
+      }
    }
 
    /**
-    * Returns true if there's at least a record processor in recording mode
+    * Passes the record to the endpoint record processors, either directly or
+    * through the endpoint asynchronous dispatcher, if any.
     * 
     * @param endpoint
-    * @return
+    * @param record
     */
-   private boolean isRecording(Endpoint endpoint)
+   private static void processRecord(Endpoint endpoint, Record record)
    {
-      List<RecordProcessor> processors = endpoint.getRecordProcessors();
-      if (processors == null || processors.isEmpty())
+      AsyncRecordDispatcher dispatcher = endpoint.getAttachment(AsyncRecordDispatcher.class);
+      if (dispatcher != null)
       {
-         return false;
+         dispatcher.dispatch(record);
       }
-      for (RecordProcessor processor : processors)
+      else
       {
-         if (processor.isRecording())
-         {
-            return true;
-         }
+         endpoint.processRecord(record);
+      }
+   }
+
+   /**
+    * Returns the aggregate state of the endpoint record processors
+    * 
+    * @param endpoint
+    * @return
+    */
+   private static RecordingState getRecordingState(Endpoint endpoint)
+   {
+      if (endpoint instanceof AbstractDefaultEndpoint)
+      {
+         return ((AbstractDefaultEndpoint)endpoint).getRecordingState();
       }
-      return false;
+      return endpoint != null ? RecordingState.compute(endpoint.getRecordProcessors(), endpoint.getEndpointMetrics())
+            : RecordingState.NOT_RECORDING;
    }
    
    
@@ -338,6 +338,7 @@ public abstract class AbstractServerConfig implements AbstractServerConfigMBean,
       MBeanServer mbeanServer = getMbeanServer();
       if (mbeanServer != null) {
          mbeanServer.registerMBean(this, AbstractServerConfigMBean.OBJECT_NAME);
+         mbeanServer.registerMBean(new EndpointMetricsService(), EndpointMetricsServiceMBean.OBJECT_NAME);
       }
       
       clientConfigStore.reload();
@@ -366,6 +367,7 @@ public abstract class AbstractServerConfig implements AbstractServerConfigMBean,
       MBeanServer mbeanServer = getMbeanServer();
       if (mbeanServer != null) {
          mbeanServer.unregisterMBean(AbstractServerConfigMBean.OBJECT_NAME);
+         mbeanServer.unregisterMBean(EndpointMetricsServiceMBean.OBJECT_NAME);
       }
       
       clientConfigStore.unload();
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning the start or stop of a deployment aspect
+ * 
+ * @since 18-Oct-2026
+ */
+@Name("org.jboss.ws.DeploymentAspect")
+@Label("Deployment Aspect")
+@Category({ "JBossWS", "Deployment" })
+@Description("The start or stop of a deployment aspect")
+@StackTrace(false)
+final class DeploymentAspectEvent extends jdk.jfr.Event
+{
+   @Label("Deployment")
+   String deployment;
+
+   @Label("Aspect")
+   String aspect;
+
+   @Label("Phase")
+   String phase;
+}
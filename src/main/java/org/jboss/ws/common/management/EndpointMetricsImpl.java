@@ -19,14 +19,19 @@
 package org.jboss.ws.common.management;
 
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
 
+import org.jboss.ws.common.monitoring.RecordingState;
 import org.jboss.wsf.spi.management.EndpointMetrics;
 
 /**
  * Service Endpoint Metrics
+ * 
+ * Counters are striped (LongAdder) so that concurrent request threads do
+ * not contend on the same cache line; readers never block writers and get
+ * a consistent view of the derived values through {@link #snapshot()}.
  *
  * @author alessio.soldano@jboss.com
  * @author Thomas.Diesler@jboss.org
@@ -34,24 +39,33 @@ import org.jboss.wsf.spi.management.EndpointMetrics;
  */
 public class EndpointMetricsImpl implements EndpointMetrics
 {
+   public static final String OPERATION_METRICS = "org.jboss.ws.monitoring.operation_metrics";
+   public static final String OPERATION_METRICS_MAX = "org.jboss.ws.monitoring.operation_metrics_max";
+   private static final boolean operationMetricsDefault = Boolean.getBoolean(OPERATION_METRICS);
+   private static final int operationMetricsMax = Integer.getInteger(OPERATION_METRICS_MAX, OperationMetrics.DEFAULT_MAX_OPERATIONS);
+
+   private static final LongBinaryOperator MAX = new LongBinaryOperator()
+   {
+      public long applyAsLong(long left, long right)
+      {
+         return Math.max(left, right);
+      }
+   };
+
    private volatile boolean started = false;
    
-   //read-write lock for average calculation (there's no CAS function for
-   //atomically computing the average, so we do that on-demand within a
-   //write lock; the updates to sum and response/fault counts, which are
-   //used to compute the average, are updated within read locks)
-   private final ReadWriteLock lock = new ReentrantReadWriteLock();
-   private final Lock r = lock.readLock();
-   private final Lock w = lock.writeLock();
-   
-   private final AtomicLong requestCount = new AtomicLong(0);
-   private final AtomicLong responseCount = new AtomicLong(0);
-   private final AtomicLong faultCount = new AtomicLong(0);
+   private final LongAdder requestCount = new LongAdder();
+   private final LongAdder responseCount = new LongAdder();
+   private final LongAdder faultCount = new LongAdder();
    private final AtomicLong maxProcessingTime = new AtomicLong(0);
    private final AtomicLong minProcessingTime = new AtomicLong(0);
-   private final AtomicLong totalProcessingTime = new AtomicLong(0);
+   private final LongAdder totalProcessingTime = new LongAdder();
+   private final LatencyHistogram processingTimeHistogram = new LatencyHistogram();
+   private final RollingMetrics rollingMetrics = new RollingMetrics();
+   private volatile OperationMetrics operationMetrics = operationMetricsDefault ? new OperationMetrics(operationMetricsMax) : null;
    
-   private volatile long updateTime = 0;
+   private final LongAccumulator updateTime = new LongAccumulator(MAX, 0);
+   private volatile String endpointName;
 
    public void start()
    {
@@ -63,53 +77,66 @@ public class EndpointMetricsImpl implements EndpointMetrics
       started = false;
    }
 
+   /**
+    * Sets the name of the endpoint these metrics belong to, as reported in the JFR events
+    * 
+    * @param endpointName
+    */
+   public void setEndpointName(String endpointName)
+   {
+      this.endpointName = endpointName;
+   }
+
+   public String getEndpointName()
+   {
+      return endpointName;
+   }
+
    public long processRequestMessage()
    {
       if (!started)
       {
          return 0;
       }
-      requestCount.incrementAndGet();
-      updateTime = System.nanoTime();
-      return updateTime;
+      requestCount.increment();
+      final long now = System.nanoTime();
+      updateTime.accumulate(now);
+      rollingMetrics.processRequest(now);
+      return now;
    }
 
    public void processResponseMessage(long beginTime)
    {
       if (beginTime > 0) {
-         final long procTime = System.nanoTime() - beginTime;
-         r.lock();
-         try {
-            responseCount.incrementAndGet();
-            totalProcessingTime.addAndGet(procTime);
-            updateTime = System.nanoTime();
-         } finally {
-            r.unlock();
-         }
-         minProcessingTime.compareAndSet(0, procTime);
-         updateMax(maxProcessingTime, procTime);
-         updateMin(minProcessingTime, procTime);
+         final long now = System.nanoTime();
+         final long procTime = now - beginTime;
+         responseCount.increment();
+         update(now, procTime, false);
       }
    }
 
    public void processFaultMessage(long beginTime)
    {
       if (beginTime > 0) {
-         final long procTime = System.nanoTime() - beginTime;
-         r.lock();
-         try {
-            faultCount.incrementAndGet();
-            totalProcessingTime.addAndGet(procTime);
-            updateTime = System.nanoTime();
-         } finally {
-            r.unlock();
-         }
-         minProcessingTime.compareAndSet(0, procTime);
-         updateMax(maxProcessingTime, procTime);
-         updateMin(minProcessingTime, procTime);
+         final long now = System.nanoTime();
+         final long procTime = now - beginTime;
+         faultCount.increment();
+         update(now, procTime, true);
       }
    }
 
+   private void update(long now, long procTime, boolean fault)
+   {
+      totalProcessingTime.add(procTime);
+      updateTime.accumulate(now);
+      processingTimeHistogram.record(procTime);
+      rollingMetrics.processResponse(now, procTime, fault);
+      minProcessingTime.compareAndSet(0, procTime);
+      updateMax(maxProcessingTime, procTime);
+      updateMin(minProcessingTime, procTime);
+      JfrEvents.endpointInvocation(endpointName, procTime, fault);
+   }
+
    private void updateMin(AtomicLong min, long value)
    {
       long oldValue = min.get();
@@ -132,6 +159,22 @@ public class EndpointMetricsImpl implements EndpointMetrics
       }
    }
 
+   /**
+    * Gets a consistent, immutable view of the current metrics values;
+    * this never blocks the threads updating the metrics.
+    */
+   public EndpointMetricsSnapshot snapshot()
+   {
+      //the updaters increment the counts before adding to the total time, so read
+      //the total time first: every response it includes has already been counted
+      final long total = totalProcessingTime.sum();
+      final long responses = responseCount.sum();
+      final long faults = faultCount.sum();
+      final long requests = requestCount.sum();
+      return new EndpointMetricsSnapshot(requests, responses, faults, minProcessingTime.get(), maxProcessingTime.get(),
+            total, updateTime.get(), processingTimeHistogram.snapshot());
+   }
+
    public long getMinProcessingTime()
    {
       return minProcessingTime.longValue() / 1000000;
@@ -144,50 +187,118 @@ public class EndpointMetricsImpl implements EndpointMetrics
 
    public long getAverageProcessingTime()
    {
-      w.lock();
-      try {
-         final long totResponses = responseCount.get() + faultCount.get();
-         return totResponses != 0 ? totalProcessingTime.get() / (totResponses * 1000000) : 0;
-      } finally {
-         w.unlock();
+      final long total = totalProcessingTime.sum();
+      final long totResponses = responseCount.sum() + faultCount.sum();
+      return totResponses != 0 ? total / (totResponses * 1000000) : 0;
+   }
+
+   /**
+    * Gets the processing time (in milliseconds) below which the given
+    * percentage of the requests have been processed.
+    * 
+    * @param percentile a value between 0 and 100
+    */
+   public long getProcessingTimePercentile(double percentile)
+   {
+      return processingTimeHistogram.snapshot().getValueAtPercentile(percentile) / 1000;
+   }
+
+   public long getP50ProcessingTime()
+   {
+      return getProcessingTimePercentile(50);
+   }
+
+   public long getP90ProcessingTime()
+   {
+      return getProcessingTimePercentile(90);
+   }
+
+   public long getP99ProcessingTime()
+   {
+      return getProcessingTimePercentile(99);
+   }
+
+   public long getP999ProcessingTime()
+   {
+      return getProcessingTimePercentile(99.9);
+   }
+
+   /**
+    * Gets a snapshot of the processing time distribution
+    */
+   public LatencyHistogram.Snapshot getProcessingTimeHistogram()
+   {
+      return processingTimeHistogram.snapshot();
+   }
+
+   /**
+    * Gets the metrics of about the last given minutes
+    * 
+    * @param minutes  the window length, between 1 and 15
+    */
+   public RollingMetrics.Window getRollingWindow(int minutes)
+   {
+      return rollingMetrics.getWindow(minutes);
+   }
+
+   /**
+    * Gets the per-operation metrics, or null when they're not enabled
+    */
+   public OperationMetrics getOperationMetrics()
+   {
+      return operationMetrics;
+   }
+
+   public boolean isOperationMetricsEnabled()
+   {
+      return operationMetrics != null;
+   }
+
+   /**
+    * Enables or disables the per-operation metrics; disabling discards
+    * the values collected so far.
+    */
+   public synchronized void setOperationMetricsEnabled(boolean enabled)
+   {
+      if (enabled && operationMetrics == null)
+      {
+         operationMetrics = new OperationMetrics(operationMetricsMax);
+      }
+      else if (!enabled)
+      {
+         operationMetrics = null;
       }
+      RecordingState.configurationChanged();
    }
 
    public long getTotalProcessingTime()
    {
-      return totalProcessingTime.get() / 1000000;
+      return totalProcessingTime.sum() / 1000000;
    }
 
    public long getRequestCount()
    {
-      return requestCount.get();
+      return requestCount.sum();
    }
 
    public long getFaultCount()
    {
-      return faultCount.get();
+      return faultCount.sum();
    }
 
    public long getResponseCount()
    {
-      return responseCount.get();
+      return responseCount.sum();
    }
 
    public String toString()
    {
-      StringBuilder buffer = new StringBuilder("requestCount=" + requestCount);
-      buffer.append("\n  responseCount=" + responseCount);
-      buffer.append("\n  faultCount=" + faultCount);
-      buffer.append("\n  maxProcessingTime=" + maxProcessingTime);
-      buffer.append("\n  minProcessingTime=" + minProcessingTime);
-      buffer.append("\n  avgProcessingTime=" + getAverageProcessingTime());
-      buffer.append("\n  totalProcessingTime=" + totalProcessingTime);
-      return buffer.toString();
+      return snapshot().toString();
    }
 
    @Override
    public long getUpdateTime()
    {
-      return this.updateTime;
+      return this.updateTime.get();
    }
 }
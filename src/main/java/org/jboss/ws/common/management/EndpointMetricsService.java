@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+
+import org.jboss.wsf.spi.deployment.Endpoint;
+import org.jboss.wsf.spi.management.EndpointMetrics;
+
+/**
+ * Exports the metrics of all the started endpoints at once.
+ * 
+ * @since 18-Oct-2026
+ */
+public class EndpointMetricsService implements EndpointMetricsServiceMBean
+{
+   private static final String[] METRIC_NAMES = new String[] { "requestCount", "responseCount", "faultCount",
+         "minProcessingTime", "maxProcessingTime", "averageProcessingTime", "totalProcessingTime", "p99ProcessingTime",
+         "updateTime" };
+   private static final String[] ITEM_NAMES;
+   private static final CompositeType ROW_TYPE;
+   static
+   {
+      ITEM_NAMES = new String[METRIC_NAMES.length + 1];
+      ITEM_NAMES[0] = "endpoint";
+      System.arraycopy(METRIC_NAMES, 0, ITEM_NAMES, 1, METRIC_NAMES.length);
+      try
+      {
+         OpenType<?>[] types = new OpenType<?>[ITEM_NAMES.length];
+         types[0] = SimpleType.STRING;
+         for (int i = 1; i < types.length; i++)
+         {
+            types[i] = SimpleType.LONG;
+         }
+         ROW_TYPE = new CompositeType("EndpointMetrics", "Metrics of an endpoint", ITEM_NAMES, ITEM_NAMES, types);
+      }
+      catch (OpenDataException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   //reused across exports, sized after the largest one
+   private final StringBuilder buffer = new StringBuilder(8192);
+
+   public int getEndpointCount()
+   {
+      return EndpointRegistry.size();
+   }
+
+   public synchronized String exportOpenMetrics()
+   {
+      buffer.setLength(0);
+      OpenMetricsRenderer.render(EndpointRegistry.getEndpoints(), buffer);
+      return buffer.toString();
+   }
+
+   public CompositeData[] getEndpointMetrics()
+   {
+      List<Endpoint> endpoints = EndpointRegistry.getEndpoints();
+      CompositeData[] result = new CompositeData[endpoints.size()];
+      Object[] values = new Object[ITEM_NAMES.length];
+      long[] metrics = new long[METRIC_NAMES.length];
+      for (int i = 0; i < result.length; i++)
+      {
+         Endpoint ep = endpoints.get(i);
+         fill(ep.getEndpointMetrics(), metrics, 0);
+         values[0] = getName(ep);
+         for (int j = 0; j < metrics.length; j++)
+         {
+            values[j + 1] = metrics[j];
+         }
+         try
+         {
+            result[i] = new CompositeDataSupport(ROW_TYPE, ITEM_NAMES, values);
+         }
+         catch (OpenDataException e)
+         {
+            throw new IllegalStateException(e);
+         }
+      }
+      return result;
+   }
+
+   public String[] getEndpointNames()
+   {
+      List<Endpoint> endpoints = EndpointRegistry.getEndpoints();
+      String[] names = new String[endpoints.size()];
+      for (int i = 0; i < names.length; i++)
+      {
+         names[i] = getName(endpoints.get(i));
+      }
+      return names;
+   }
+
+   public String[] getMetricNames()
+   {
+      return METRIC_NAMES.clone();
+   }
+
+   public long[] getEndpointMetricsValues(String[] endpointNames)
+   {
+      if (endpointNames == null || endpointNames.length == 0)
+      {
+         return new long[0];
+      }
+      List<Endpoint> endpoints = EndpointRegistry.getEndpoints();
+      Map<String, Endpoint> byName = new HashMap<String, Endpoint>(endpoints.size() * 2);
+      for (Endpoint ep : endpoints)
+      {
+         byName.put(getName(ep), ep);
+      }
+      final int n = METRIC_NAMES.length;
+      long[] result = new long[endpointNames.length * n];
+      for (int i = 0; i < endpointNames.length; i++)
+      {
+         Endpoint ep = byName.get(endpointNames[i]);
+         fill(ep != null ? ep.getEndpointMetrics() : null, result, i * n);
+      }
+      return result;
+   }
+
+   private static String getName(Endpoint ep)
+   {
+      ObjectName name = ep.getName();
+      return name != null ? name.getCanonicalName() : ep.getShortName();
+   }
+
+   /**
+    * Copies the given metrics values into the provided array, in the
+    * {@link #METRIC_NAMES} order, starting from the given offset
+    */
+   private static void fill(EndpointMetrics metrics, long[] values, int offset)
+   {
+      if (metrics instanceof EndpointMetricsImpl)
+      {
+         EndpointMetricsSnapshot snapshot = ((EndpointMetricsImpl)metrics).snapshot();
+         values[offset] = snapshot.getRequestCount();
+         values[offset + 1] = snapshot.getResponseCount();
+         values[offset + 2] = snapshot.getFaultCount();
+         values[offset + 3] = snapshot.getMinProcessingTime();
+         values[offset + 4] = snapshot.getMaxProcessingTime();
+         values[offset + 5] = snapshot.getAverageProcessingTime();
+         values[offset + 6] = snapshot.getTotalProcessingTime();
+         values[offset + 7] = snapshot.getProcessingTimePercentile(99);
+         values[offset + 8] = snapshot.getUpdateTime();
+      }
+      else if (metrics != null)
+      {
+         values[offset] = metrics.getRequestCount();
+         values[offset + 1] = metrics.getResponseCount();
+         values[offset + 2] = metrics.getFaultCount();
+         values[offset + 3] = metrics.getMinProcessingTime();
+         values[offset + 4] = metrics.getMaxProcessingTime();
+         values[offset + 5] = metrics.getAverageProcessingTime();
+         values[offset + 6] = metrics.getTotalProcessingTime();
+         values[offset + 7] = -1;
+         values[offset + 8] = metrics.getUpdateTime();
+      }
+      else
+      {
+         for (int i = 0; i < METRIC_NAMES.length; i++)
+         {
+            values[offset + i] = -1;
+         }
+      }
+   }
+}
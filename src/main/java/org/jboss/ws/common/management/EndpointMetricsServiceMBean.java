@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.jboss.ws.common.ObjectNameFactory;
+
+/**
+ * MBean interface.
+ * @since 18-Oct-2026
+ */
+public interface EndpointMetricsServiceMBean
+{
+   /** The object name in the MBean server */
+   ObjectName OBJECT_NAME = ObjectNameFactory.create("jboss.ws:service=EndpointMetrics");
+
+   int getEndpointCount();
+
+   /**
+    * Gets the metrics of all the started endpoints in the OpenMetrics text format
+    */
+   String exportOpenMetrics();
+
+   /**
+    * Gets the metrics of all the started endpoints in a single call; each item
+    * is built from a consistent snapshot of the endpoint metrics.
+    */
+   CompositeData[] getEndpointMetrics();
+
+   /**
+    * Gets the names of all the started endpoints
+    */
+   String[] getEndpointNames();
+
+   /**
+    * Gets the names of the values returned for each endpoint by
+    * {@link #getEndpointMetricsValues(String[])}, in order
+    */
+   String[] getMetricNames();
+
+   /**
+    * Gets the metrics of the given endpoints as a flat array, holding
+    * the values named by {@link #getMetricNames()} for each endpoint in turn;
+    * the values of endpoints which are not started are set to -1.
+    * 
+    * @param endpointNames the endpoint names, as returned by {@link #getEndpointNames()}
+    * @return the values, or an empty array if no endpoint name is provided
+    */
+   long[] getEndpointMetricsValues(String[] endpointNames);
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+/**
+ * An immutable view of the metrics of an endpoint at a given time;
+ * derived values (e.g. the average processing time) are computed on
+ * the values of the snapshot, so they're consistent with each other.
+ * 
+ * Processing times are returned in milliseconds, as done by
+ * {@link org.jboss.wsf.spi.management.EndpointMetrics}.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class EndpointMetricsSnapshot
+{
+   private final long requestCount;
+   private final long responseCount;
+   private final long faultCount;
+   private final long minProcessingTime;
+   private final long maxProcessingTime;
+   private final long totalProcessingTime;
+   private final long updateTime;
+   private final LatencyHistogram.Snapshot histogram;
+
+   EndpointMetricsSnapshot(long requestCount, long responseCount, long faultCount, long minProcessingTime,
+         long maxProcessingTime, long totalProcessingTime, long updateTime, LatencyHistogram.Snapshot histogram)
+   {
+      this.requestCount = requestCount;
+      this.responseCount = responseCount;
+      this.faultCount = faultCount;
+      this.minProcessingTime = minProcessingTime;
+      this.maxProcessingTime = maxProcessingTime;
+      this.totalProcessingTime = totalProcessingTime;
+      this.updateTime = updateTime;
+      this.histogram = histogram;
+   }
+
+   public long getRequestCount()
+   {
+      return requestCount;
+   }
+
+   public long getResponseCount()
+   {
+      return responseCount;
+   }
+
+   public long getFaultCount()
+   {
+      return faultCount;
+   }
+
+   public long getMinProcessingTime()
+   {
+      return minProcessingTime / 1000000;
+   }
+
+   public long getMaxProcessingTime()
+   {
+      return maxProcessingTime / 1000000;
+   }
+
+   public long getAverageProcessingTime()
+   {
+      final long totResponses = responseCount + faultCount;
+      return totResponses != 0 ? totalProcessingTime / (totResponses * 1000000) : 0;
+   }
+
+   public long getTotalProcessingTime()
+   {
+      return totalProcessingTime / 1000000;
+   }
+
+   /**
+    * Gets the total processing time in nanoseconds
+    */
+   public long getTotalProcessingTimeNanos()
+   {
+      return totalProcessingTime;
+   }
+
+   public long getUpdateTime()
+   {
+      return updateTime;
+   }
+
+   /**
+    * Gets the processing time (in milliseconds) below which the given
+    * percentage of the requests have been processed.
+    * 
+    * @param percentile a value between 0 and 100
+    */
+   public long getProcessingTimePercentile(double percentile)
+   {
+      return histogram.getValueAtPercentile(percentile) / 1000;
+   }
+
+   public LatencyHistogram.Snapshot getProcessingTimeHistogram()
+   {
+      return histogram;
+   }
+
+   public String toString()
+   {
+      StringBuilder buffer = new StringBuilder("requestCount=" + requestCount);
+      buffer.append("\n  responseCount=" + responseCount);
+      buffer.append("\n  faultCount=" + faultCount);
+      buffer.append("\n  maxProcessingTime=" + maxProcessingTime);
+      buffer.append("\n  minProcessingTime=" + minProcessingTime);
+      buffer.append("\n  avgProcessingTime=" + getAverageProcessingTime());
+      buffer.append("\n  p99ProcessingTime=" + getProcessingTimePercentile(99));
+      buffer.append("\n  totalProcessingTime=" + totalProcessingTime);
+      return buffer.toString();
+   }
+}
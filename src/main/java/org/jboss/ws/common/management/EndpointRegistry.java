@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * Keeps track of the started endpoints, so that their metrics can be
+ * exported all together (see {@link OpenMetricsRenderer}).
+ * 
+ * Endpoints are registered and unregistered by the
+ * {@link org.jboss.ws.common.deployment.DefaultLifecycleHandler}.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class EndpointRegistry
+{
+   private static final ConcurrentMap<Endpoint, Boolean> endpoints = new ConcurrentHashMap<Endpoint, Boolean>();
+
+   private EndpointRegistry()
+   {
+   }
+
+   public static void register(Endpoint endpoint)
+   {
+      endpoints.put(endpoint, Boolean.TRUE);
+   }
+
+   public static void unregister(Endpoint endpoint)
+   {
+      endpoints.remove(endpoint);
+   }
+
+   /**
+    * Gets the currently registered endpoints
+    */
+   public static List<Endpoint> getEndpoints()
+   {
+      return new ArrayList<Endpoint>(endpoints.keySet());
+   }
+
+   public static int size()
+   {
+      return endpoints.size();
+   }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+import javax.xml.namespace.QName;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+import org.jboss.ws.common.monitoring.RecordingState;
+
+/**
+ * Emits the JBossWS Java Flight Recorder events.
+ * 
+ * The event classes are only loaded if the jdk.jfr module is available, so
+ * that callers don't depend on it. Events are created only when the event type
+ * is enabled in a running recording (and are then cheap to commit); otherwise
+ * the cost is a check on a final field and on the enablement of the cached
+ * event type, without any allocation.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class JfrEvents
+{
+   private static final boolean AVAILABLE = isAvailable();
+
+   private JfrEvents()
+   {
+   }
+
+   private static boolean isAvailable()
+   {
+      try
+      {
+         Class.forName("jdk.jfr.Event", false, JfrEvents.class.getClassLoader());
+         return true;
+      }
+      catch (Throwable t)
+      {
+         return false;
+      }
+   }
+
+   /**
+    * The event types, only loaded if the jdk.jfr module is available
+    */
+   private static final class Types
+   {
+      static final EventType ENDPOINT_INVOCATION = EventType.getEventType(EndpointInvocationEvent.class);
+      static final EventType OPERATION_INVOCATION = EventType.getEventType(OperationInvocationEvent.class);
+      static final EventType DEPLOYMENT_ASPECT = EventType.getEventType(DeploymentAspectEvent.class);
+   }
+
+   /**
+    * Tracks the flight recordings, only loaded if the jdk.jfr module is available
+    */
+   private static final class Recordings
+   {
+      static final boolean LISTENING = addListener();
+      static volatile boolean running = computeRunning();
+
+      private static boolean addListener()
+      {
+         try
+         {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+               @Override
+               public void recordingStateChanged(Recording recording)
+               {
+                  running = computeRunning();
+                  RecordingState.configurationChanged();
+               }
+            });
+            return true;
+         }
+         catch (SecurityException e)
+         {
+            return false;
+         }
+      }
+
+      private static boolean computeRunning()
+      {
+         if (!LISTENING)
+         {
+            //recordings might start without notice
+            return true;
+         }
+         try
+         {
+            if (!FlightRecorder.isInitialized())
+            {
+               return false;
+            }
+            for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings())
+            {
+               if (recording.getState() == jdk.jfr.RecordingState.RUNNING)
+               {
+                  return true;
+               }
+            }
+            return false;
+         }
+         catch (SecurityException e)
+         {
+            return true;
+         }
+      }
+   }
+
+   /**
+    * Returns true if a flight recording is running; the cached
+    * {@link RecordingState} instances become stale whenever a recording
+    * starts or stops.
+    */
+   public static boolean isRecordingRunning()
+   {
+      return AVAILABLE && Recordings.running;
+   }
+
+   /**
+    * Emits an endpoint invocation event
+    * 
+    * @param endpoint        the endpoint name
+    * @param processingTime  the processing time in nanoseconds
+    * @param fault           whether the invocation ended with a fault
+    */
+   public static void endpointInvocation(String endpoint, long processingTime, boolean fault)
+   {
+      if (AVAILABLE && Types.ENDPOINT_INVOCATION.isEnabled())
+      {
+         EndpointInvocationEvent event = new EndpointInvocationEvent();
+         if (event.shouldCommit())
+         {
+            event.endpoint = endpoint;
+            event.processingTime = processingTime;
+            event.fault = fault;
+            event.commit();
+         }
+      }
+   }
+
+   /**
+    * Begins an operation invocation event
+    * 
+    * @return the event to be passed to {@link #endOperation(Object, String, QName, boolean)},
+    *         or null if the event is not enabled
+    */
+   public static Object beginOperation()
+   {
+      if (AVAILABLE && Types.OPERATION_INVOCATION.isEnabled())
+      {
+         OperationInvocationEvent event = new OperationInvocationEvent();
+         event.begin();
+         return event;
+      }
+      return null;
+   }
+
+   public static void endOperation(Object event, String endpoint, QName operation, boolean fault)
+   {
+      if (event != null)
+      {
+         OperationInvocationEvent e = (OperationInvocationEvent)event;
+         e.end();
+         if (e.shouldCommit())
+         {
+            e.endpoint = endpoint;
+            e.operation = operation != null ? operation.toString() : null;
+            e.fault = fault;
+            e.commit();
+         }
+      }
+   }
+
+   /**
+    * Begins a deployment aspect event
+    * 
+    * @return the event to be passed to {@link #endDeploymentAspect(Object, String, String, String)},
+    *         or null if the event is not enabled
+    */
+   public static Object beginDeploymentAspect()
+   {
+      if (AVAILABLE && Types.DEPLOYMENT_ASPECT.isEnabled())
+      {
+         DeploymentAspectEvent event = new DeploymentAspectEvent();
+         event.begin();
+         return event;
+      }
+      return null;
+   }
+
+   public static void endDeploymentAspect(Object event, String deployment, String aspect, String phase)
+   {
+      if (event != null)
+      {
+         DeploymentAspectEvent e = (DeploymentAspectEvent)event;
+         e.end();
+         if (e.shouldCommit())
+         {
+            e.deployment = deployment;
+            e.aspect = aspect;
+            e.phase = phase;
+            e.commit();
+         }
+      }
+   }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed memory, lock-free, log-linear histogram of processing times.
+ * 
+ * Values are recorded with microsecond resolution; values below 2^precisionBits
+ * are counted exactly, greater values are counted in buckets whose width grows
+ * with the magnitude of the value, giving a relative error lower than
+ * 2^-precisionBits. The memory used does not depend on the number of recorded
+ * values.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class LatencyHistogram
+{
+   private final int precisionBits;
+   private final int subBucketCount;
+   private final int maxExponent;
+   private final long maxValue;
+   private final AtomicLongArray counts;
+   private final AtomicLong max = new AtomicLong(0);
+
+   /**
+    * Creates a histogram with 5 bits of precision (about 3% error) and a range of
+    * about 19 hours, using 1024 buckets.
+    */
+   public LatencyHistogram()
+   {
+      this(5, 35);
+   }
+
+   /**
+    * @param precisionBits  the number of bits of the sub-bucket index
+    * @param maxExponent    the exponent of the highest trackable value (in microseconds);
+    *                       greater values are recorded in the last bucket
+    */
+   public LatencyHistogram(int precisionBits, int maxExponent)
+   {
+      if (precisionBits < 1 || maxExponent < precisionBits || maxExponent > 62)
+      {
+         throw new IllegalArgumentException();
+      }
+      this.precisionBits = precisionBits;
+      this.subBucketCount = 1 << precisionBits;
+      this.maxExponent = maxExponent;
+      this.maxValue = (1L << (maxExponent + 1)) - 1;
+      this.counts = new AtomicLongArray((maxExponent - precisionBits + 2) * subBucketCount);
+   }
+
+   /**
+    * Records a processing time
+    * 
+    * @param nanos  the processing time in nanoseconds
+    */
+   public void record(long nanos)
+   {
+      final long micros = Math.min(Math.max(nanos / 1000, 0), maxValue);
+      counts.incrementAndGet(indexOf(micros));
+      long oldMax = max.get();
+      while (micros > oldMax && !max.compareAndSet(oldMax, micros))
+      {
+         oldMax = max.get();
+      }
+   }
+
+   private int indexOf(long micros)
+   {
+      if (micros < subBucketCount)
+      {
+         return (int)micros;
+      }
+      final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+      final int shift = exponent - precisionBits;
+      return (shift + 1) * subBucketCount + (int)((micros >>> shift) - subBucketCount);
+   }
+
+   private long highestValueAt(int index)
+   {
+      if (index < subBucketCount)
+      {
+         return index;
+      }
+      final int shift = index / subBucketCount - 1;
+      final long lowest = ((long)subBucketCount + index % subBucketCount) << shift;
+      return lowest + (1L << shift) - 1;
+   }
+
+   /**
+    * Gets a copy of the current counts, for computing multiple percentiles
+    * on the same data.
+    */
+   public Snapshot snapshot()
+   {
+      final int length = counts.length();
+      final long[] values = new long[length];
+      long total = 0;
+      for (int i = 0; i < length; i++)
+      {
+         values[i] = counts.get(i);
+         total += values[i];
+      }
+      return new Snapshot(values, total, max.get());
+   }
+
+   /**
+    * An immutable copy of the histogram counts.
+    */
+   public final class Snapshot
+   {
+      private final long[] values;
+      private final long total;
+      private final long maxMicros;
+
+      private Snapshot(long[] values, long total, long maxMicros)
+      {
+         this.values = values;
+         this.total = total;
+         this.maxMicros = maxMicros;
+      }
+
+      /**
+       * Gets the number of recorded values
+       */
+      public long getCount()
+      {
+         return total;
+      }
+
+      /**
+       * Gets the highest recorded value, in microseconds
+       */
+      public long getMax()
+      {
+         return maxMicros;
+      }
+
+      /**
+       * Returns a new snapshot holding the counts of this snapshot and the
+       * provided one, which must come from a histogram with the same configuration.
+       */
+      public Snapshot merge(Snapshot other)
+      {
+         if (other.values.length != values.length)
+         {
+            throw new IllegalArgumentException();
+         }
+         final long[] merged = new long[values.length];
+         for (int i = 0; i < values.length; i++)
+         {
+            merged[i] = values[i] + other.values[i];
+         }
+         return new Snapshot(merged, total + other.total, Math.max(maxMicros, other.maxMicros));
+      }
+
+      /**
+       * Gets the number of recorded values lower than or equal to each of the
+       * provided bounds, in a single pass; values whose bucket spans across a
+       * bound are counted as greater than the bound.
+       * 
+       * @param upperBounds  the bounds in microseconds, in ascending order
+       */
+      public long[] getCumulativeCounts(long[] upperBounds)
+      {
+         final long[] result = new long[upperBounds.length];
+         int b = 0;
+         long cumulative = 0;
+         for (int i = 0; i < values.length && b < upperBounds.length; i++)
+         {
+            final long highest = highestValueAt(i);
+            while (b < upperBounds.length && highest > upperBounds[b])
+            {
+               result[b++] = cumulative;
+            }
+            cumulative += values[i];
+         }
+         while (b < upperBounds.length)
+         {
+            result[b++] = cumulative;
+         }
+         return result;
+      }
+
+      /**
+       * Gets the value (in microseconds) below which the given percentage of
+       * the recorded values fall.
+       * 
+       * @param percentile  a value between 0 and 100
+       */
+      public long getValueAtPercentile(double percentile)
+      {
+         if (total == 0)
+         {
+            return 0;
+         }
+         final long target = Math.max(1, (long)Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+         long cumulative = 0;
+         for (int i = 0; i < values.length; i++)
+         {
+            cumulative += values[i];
+            if (cumulative >= target)
+            {
+               return Math.min(highestValueAt(i), maxMicros);
+            }
+         }
+         return maxMicros;
+      }
+   }
+}
@@ -25,11 +25,14 @@ import java.util.List;
 import javax.management.JMException;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
 
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.RecordProcessor;
 import org.jboss.ws.common.ObjectNameFactory;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher;
 import org.jboss.ws.common.monitoring.ManagedRecordProcessor;
+import org.jboss.ws.common.monitoring.RecordingState;
 import org.jboss.wsf.spi.deployment.Endpoint;
 import org.jboss.wsf.spi.management.EndpointMetrics;
 
@@ -79,6 +82,32 @@ public class ManagedEndpoint implements ManagedEndpointMBean
       return metrics != null ? metrics.getMinProcessingTime() : 0;
    }
 
+   public long getP50ProcessingTime()
+   {
+      return getProcessingTimePercentile(50);
+   }
+
+   public long getP90ProcessingTime()
+   {
+      return getProcessingTimePercentile(90);
+   }
+
+   public long getP99ProcessingTime()
+   {
+      return getProcessingTimePercentile(99);
+   }
+
+   public long getP999ProcessingTime()
+   {
+      return getProcessingTimePercentile(99.9);
+   }
+
+   private long getProcessingTimePercentile(double percentile)
+   {
+      EndpointMetrics metrics = endpoint.getEndpointMetrics();
+      return metrics instanceof EndpointMetricsImpl ? ((EndpointMetricsImpl)metrics).getProcessingTimePercentile(percentile) : 0;
+   }
+
    public long getRequestCount()
    {
       EndpointMetrics metrics = endpoint.getEndpointMetrics();
@@ -91,6 +120,106 @@ public class ManagedEndpoint implements ManagedEndpointMBean
       return metrics != null ? metrics.getResponseCount() : 0;
    }
 
+   public double getRequestRate1m()
+   {
+      RollingMetrics.Window window = getRollingWindow(1);
+      return window != null ? window.getRequestRate() : 0;
+   }
+
+   public double getFaultRate1m()
+   {
+      RollingMetrics.Window window = getRollingWindow(1);
+      return window != null ? window.getFaultRate() : 0;
+   }
+
+   public long getAverageProcessingTime1m()
+   {
+      RollingMetrics.Window window = getRollingWindow(1);
+      return window != null ? window.getAverageProcessingTime() : 0;
+   }
+
+   public long getP99ProcessingTime1m()
+   {
+      RollingMetrics.Window window = getRollingWindow(1);
+      return window != null ? window.getProcessingTimePercentile(99) : 0;
+   }
+
+   public double getRequestRate5m()
+   {
+      RollingMetrics.Window window = getRollingWindow(5);
+      return window != null ? window.getRequestRate() : 0;
+   }
+
+   public double getFaultRate5m()
+   {
+      RollingMetrics.Window window = getRollingWindow(5);
+      return window != null ? window.getFaultRate() : 0;
+   }
+
+   public long getAverageProcessingTime5m()
+   {
+      RollingMetrics.Window window = getRollingWindow(5);
+      return window != null ? window.getAverageProcessingTime() : 0;
+   }
+
+   public long getP99ProcessingTime5m()
+   {
+      RollingMetrics.Window window = getRollingWindow(5);
+      return window != null ? window.getProcessingTimePercentile(99) : 0;
+   }
+
+   public double getRequestRate15m()
+   {
+      RollingMetrics.Window window = getRollingWindow(15);
+      return window != null ? window.getRequestRate() : 0;
+   }
+
+   public double getFaultRate15m()
+   {
+      RollingMetrics.Window window = getRollingWindow(15);
+      return window != null ? window.getFaultRate() : 0;
+   }
+
+   public long getAverageProcessingTime15m()
+   {
+      RollingMetrics.Window window = getRollingWindow(15);
+      return window != null ? window.getAverageProcessingTime() : 0;
+   }
+
+   public long getP99ProcessingTime15m()
+   {
+      RollingMetrics.Window window = getRollingWindow(15);
+      return window != null ? window.getProcessingTimePercentile(99) : 0;
+   }
+
+   public boolean isOperationMetricsEnabled()
+   {
+      EndpointMetrics metrics = endpoint.getEndpointMetrics();
+      return metrics instanceof EndpointMetricsImpl && ((EndpointMetricsImpl)metrics).isOperationMetricsEnabled();
+   }
+
+   public void setOperationMetricsEnabled(boolean enabled)
+   {
+      EndpointMetrics metrics = endpoint.getEndpointMetrics();
+      if (metrics instanceof EndpointMetricsImpl)
+      {
+         ((EndpointMetricsImpl)metrics).setOperationMetricsEnabled(enabled);
+      }
+   }
+
+   public TabularData getOperationMetrics()
+   {
+      EndpointMetrics metrics = endpoint.getEndpointMetrics();
+      OperationMetrics operationMetrics = metrics instanceof EndpointMetricsImpl ? ((EndpointMetricsImpl)metrics).getOperationMetrics() : null;
+      return operationMetrics != null ? operationMetrics.toTabularData() : null;
+   }
+
+   private RollingMetrics.Window getRollingWindow(int minutes)
+   {
+      EndpointMetrics metrics = endpoint.getEndpointMetrics();
+      return metrics instanceof EndpointMetricsImpl ? ((EndpointMetricsImpl)metrics).getRollingWindow(minutes) : null;
+   }
+
    public long getTotalProcessingTime()
    {
       EndpointMetrics metrics = endpoint.getEndpointMetrics();
@@ -102,6 +231,13 @@ public class ManagedEndpoint implements ManagedEndpointMBean
       EndpointMetrics metrics = endpoint.getEndpointMetrics();
       return metrics != null ? metrics.getUpdateTime() : 0;
    }
+
+   public long getDroppedRecordCount()
+   {
+      AsyncRecordDispatcher dispatcher = endpoint.getAttachment(AsyncRecordDispatcher.class);
+      return dispatcher != null ? dispatcher.getDroppedCount() : 0;
+   }
+
    public void start()
    {
       endpoint.getLifecycleHandler().start(endpoint);
@@ -121,6 +257,7 @@ public class ManagedEndpoint implements ManagedEndpointMBean
    {
       ObjectName on = ObjectNameFactory.create(endpoint.getName() + ",recordProcessor=" + processor.getName());
       this.getRecordProcessors().add(processor);
+      RecordingState.configurationChanged();
       try
       {
          mbeanServer.registerMBean(processor, on);
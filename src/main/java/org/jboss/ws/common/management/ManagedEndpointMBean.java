@@ -20,6 +20,8 @@ package org.jboss.ws.common.management;
 
 import java.util.List;
 
+import javax.management.openmbean.TabularData;
+
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.RecordProcessor;
 
@@ -43,13 +45,53 @@ public interface ManagedEndpointMBean
 
    long getTotalProcessingTime();
 
+   long getP50ProcessingTime();
+
+   long getP90ProcessingTime();
+
+   long getP99ProcessingTime();
+
+   long getP999ProcessingTime();
+
    long getRequestCount();
 
    long getFaultCount();
 
    long getResponseCount();
+
+   double getRequestRate1m();
+
+   double getFaultRate1m();
+
+   long getAverageProcessingTime1m();
+
+   long getP99ProcessingTime1m();
+
+   double getRequestRate5m();
+
+   double getFaultRate5m();
+
+   long getAverageProcessingTime5m();
+
+   long getP99ProcessingTime5m();
+
+   double getRequestRate15m();
+
+   double getFaultRate15m();
+
+   long getAverageProcessingTime15m();
+
+   long getP99ProcessingTime15m();
    
    long getUpdateTime();
+
+   boolean isOperationMetricsEnabled();
+
+   void setOperationMetricsEnabled(boolean enabled);
+
+   TabularData getOperationMetrics();
+   
+   long getDroppedRecordCount();
    
    void processRecord(Record record);
    
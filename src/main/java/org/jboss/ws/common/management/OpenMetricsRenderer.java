@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher;
+import org.jboss.wsf.spi.deployment.Endpoint;
+import org.jboss.wsf.spi.management.EndpointMetrics;
+
+/**
+ * Renders the metrics of a set of endpoints in the OpenMetrics (Prometheus)
+ * text exposition format.
+ * 
+ * Everything is written in a single pass into the provided buffer, so that
+ * callers can reuse it across scrapes; the metrics are read directly from
+ * the {@link EndpointMetricsImpl} snapshots, without going through JMX.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class OpenMetricsRenderer
+{
+   public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+   //processing time histogram bucket bounds, in microseconds
+   private static final long[] BUCKETS = new long[] { 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000,
+         1000000, 2500000, 5000000, 10000000 };
+   private static final String[] BUCKET_LABELS = new String[] { "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05",
+         "0.1", "0.25", "0.5", "1.0", "2.5", "5.0", "10.0" };
+
+   private OpenMetricsRenderer()
+   {
+   }
+
+   /**
+    * Appends the metrics of the given endpoints to the provided buffer
+    * 
+    * @param endpoints
+    * @param sb
+    */
+   public static void render(List<Endpoint> endpoints, StringBuilder sb)
+   {
+      final int size = endpoints.size();
+      final EndpointMetricsSnapshot[] snapshots = new EndpointMetricsSnapshot[size];
+      final String[] labels = new String[size];
+      for (int i = 0; i < size; i++)
+      {
+         Endpoint ep = endpoints.get(i);
+         EndpointMetrics metrics = ep.getEndpointMetrics();
+         if (metrics instanceof EndpointMetricsImpl)
+         {
+            snapshots[i] = ((EndpointMetricsImpl)metrics).snapshot();
+         }
+         labels[i] = labels(ep);
+      }
+
+      family(sb, "jbossws_endpoint_requests", "counter", "Requests received by the endpoint.");
+      for (int i = 0; i < size; i++)
+      {
+         if (snapshots[i] != null)
+         {
+            sample(sb, "jbossws_endpoint_requests_total", labels[i]).append(snapshots[i].getRequestCount()).append('\n');
+         }
+      }
+      family(sb, "jbossws_endpoint_responses", "counter", "Responses sent by the endpoint.");
+      for (int i = 0; i < size; i++)
+      {
+         if (snapshots[i] != null)
+         {
+            sample(sb, "jbossws_endpoint_responses_total", labels[i]).append(snapshots[i].getResponseCount()).append('\n');
+         }
+      }
+      family(sb, "jbossws_endpoint_faults", "counter", "Faults sent by the endpoint.");
+      for (int i = 0; i < size; i++)
+      {
+         if (snapshots[i] != null)
+         {
+            sample(sb, "jbossws_endpoint_faults_total", labels[i]).append(snapshots[i].getFaultCount()).append('\n');
+         }
+      }
+      family(sb, "jbossws_endpoint_processing_time_max_seconds", "gauge", "Highest processing time.");
+      for (int i = 0; i < size; i++)
+      {
+         if (snapshots[i] != null)
+         {
+            sample(sb, "jbossws_endpoint_processing_time_max_seconds", labels[i]);
+            seconds(sb, snapshots[i].getProcessingTimeHistogram().getMax(), 6).append('\n');
+         }
+      }
+      family(sb, "jbossws_endpoint_processing_time_seconds", "histogram", "Processing time of the endpoint requests.");
+      for (int i = 0; i < size; i++)
+      {
+         if (snapshots[i] != null)
+         {
+            histogram(sb, labels[i], snapshots[i]);
+         }
+      }
+      family(sb, "jbossws_endpoint_dropped_records", "counter", "Records dropped by the asynchronous record dispatcher.");
+      for (int i = 0; i < size; i++)
+      {
+         AsyncRecordDispatcher dispatcher = endpoints.get(i).getAttachment(AsyncRecordDispatcher.class);
+         if (dispatcher != null)
+         {
+            sample(sb, "jbossws_endpoint_dropped_records_total", labels[i]).append(dispatcher.getDroppedCount()).append('\n');
+         }
+      }
+      family(sb, "jbossws_record_processor_recording", "gauge", "Whether the record processor is recording.");
+      for (int i = 0; i < size; i++)
+      {
+         List<RecordProcessor> processors = endpoints.get(i).getRecordProcessors();
+         if (processors != null)
+         {
+            for (RecordProcessor processor : processors)
+            {
+               sb.append("jbossws_record_processor_recording{").append(labels[i]).append(",processor=\"");
+               String name = processor.getName();
+               escape(sb, name != null ? name : "");
+               sb.append("\"} ").append(processor.isRecording() ? 1 : 0).append('\n');
+            }
+         }
+      }
+      sb.append("# EOF\n");
+   }
+
+   private static void histogram(StringBuilder sb, String labels, EndpointMetricsSnapshot snapshot)
+   {
+      final LatencyHistogram.Snapshot histogram = snapshot.getProcessingTimeHistogram();
+      final long[] counts = histogram.getCumulativeCounts(BUCKETS);
+      for (int b = 0; b < BUCKETS.length; b++)
+      {
+         sb.append("jbossws_endpoint_processing_time_seconds_bucket{").append(labels).append(",le=\"")
+            .append(BUCKET_LABELS[b]).append("\"} ").append(counts[b]).append('\n');
+      }
+      sb.append("jbossws_endpoint_processing_time_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ")
+         .append(histogram.getCount()).append('\n');
+      sample(sb, "jbossws_endpoint_processing_time_seconds_count", labels).append(histogram.getCount()).append('\n');
+      sample(sb, "jbossws_endpoint_processing_time_seconds_sum", labels);
+      seconds(sb, snapshot.getTotalProcessingTimeNanos(), 9).append('\n');
+   }
+
+   private static void family(StringBuilder sb, String name, String type, String help)
+   {
+      sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+      sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+   }
+
+   private static StringBuilder sample(StringBuilder sb, String name, String labels)
+   {
+      return sb.append(name).append('{').append(labels).append("} ");
+   }
+
+   /**
+    * Appends value / 10^scale as a decimal number, without going through floating point
+    */
+   private static StringBuilder seconds(StringBuilder sb, long value, int scale)
+   {
+      long unit = 1;
+      for (int i = 0; i < scale; i++)
+      {
+         unit *= 10;
+      }
+      sb.append(value / unit).append('.');
+      final String fraction = Long.toString(value % unit);
+      for (int i = fraction.length(); i < scale; i++)
+      {
+         sb.append('0');
+      }
+      return sb.append(fraction);
+   }
+
+   private static String labels(Endpoint ep)
+   {
+      StringBuilder sb = new StringBuilder();
+      ObjectName name = ep.getName();
+      String context = name != null ? name.getKeyProperty("context") : null;
+      String endpoint = name != null ? name.getKeyProperty("endpoint") : null;
+      if (endpoint == null)
+      {
+         endpoint = ep.getShortName();
+      }
+      sb.append("context=\"");
+      escape(sb, context != null ? context : "");
+      sb.append("\",endpoint=\"");
+      escape(sb, endpoint != null ? endpoint : "");
+      sb.append('"');
+      return sb.toString();
+   }
+
+   private static void escape(StringBuilder sb, String value)
+   {
+      for (int i = 0; i < value.length(); i++)
+      {
+         char c = value.charAt(i);
+         switch (c)
+         {
+            case '\\' :
+               sb.append("\\\\");
+               break;
+            case '"' :
+               sb.append("\\\"");
+               break;
+            case '\n' :
+               sb.append("\\n");
+               break;
+            default :
+               sb.append(c);
+         }
+      }
+   }
+}
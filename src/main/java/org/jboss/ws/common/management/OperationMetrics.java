@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+import javax.xml.namespace.QName;
+
+/**
+ * Endpoint metrics broken down by WSDL operation.
+ * 
+ * Each operation gets its own set of counters, looked up in a concurrent map
+ * (no lock is taken when updating an already known operation). The number of
+ * tracked operations is bounded; operations exceeding the limit (as well as
+ * messages whose operation could not be resolved) are accounted together
+ * under the {@link #OTHER} name.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class OperationMetrics
+{
+   public static final String OTHER = "[other]";
+   public static final int DEFAULT_MAX_OPERATIONS = 256;
+
+   private static final String[] ITEM_NAMES = new String[] { "operation", "requestCount", "responseCount", "faultCount",
+         "minProcessingTime", "maxProcessingTime", "averageProcessingTime", "totalProcessingTime" };
+   private static final CompositeType ROW_TYPE;
+   private static final TabularType TABLE_TYPE;
+   static
+   {
+      try
+      {
+         OpenType<?>[] types = new OpenType<?>[ITEM_NAMES.length];
+         types[0] = SimpleType.STRING;
+         for (int i = 1; i < types.length; i++)
+         {
+            types[i] = SimpleType.LONG;
+         }
+         ROW_TYPE = new CompositeType("OperationMetrics", "Metrics of a WSDL operation", ITEM_NAMES, ITEM_NAMES, types);
+         TABLE_TYPE = new TabularType("OperationMetricsTable", "Metrics by WSDL operation", ROW_TYPE, new String[] { "operation" });
+      }
+      catch (OpenDataException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private final int maxOperations;
+   private final ConcurrentMap<QName, Cell> cells = new ConcurrentHashMap<QName, Cell>();
+   private final Cell other = new Cell();
+   private final AtomicInteger reserved = new AtomicInteger();
+   private final Function<QName, Cell> cellFactory = new Function<QName, Cell>()
+   {
+      public Cell apply(QName operation)
+      {
+         int count = reserved.get();
+         while (count < maxOperations)
+         {
+            if (reserved.compareAndSet(count, count + 1))
+            {
+               return new Cell();
+            }
+            count = reserved.get();
+         }
+         return null;
+      }
+   };
+
+   public OperationMetrics()
+   {
+      this(DEFAULT_MAX_OPERATIONS);
+   }
+
+   public OperationMetrics(int maxOperations)
+   {
+      this.maxOperations = maxOperations;
+   }
+
+   private Cell getCell(QName operation)
+   {
+      if (operation == null)
+      {
+         return other;
+      }
+      Cell cell = cells.get(operation);
+      if (cell == null)
+      {
+         //only called once per new operation, which gets a slot only if one is left
+         cell = cells.computeIfAbsent(operation, cellFactory);
+         if (cell == null)
+         {
+            return other;
+         }
+      }
+      return cell;
+   }
+
+   public void processRequest(QName operation)
+   {
+      getCell(operation).requests.increment();
+   }
+
+   /**
+    * Accounts for the response (or fault) of the given operation
+    * 
+    * @param operation  the WSDL operation, possibly null
+    * @param procTime   the processing time in nanoseconds
+    * @param fault      whether the response is a fault
+    */
+   public void processResponse(QName operation, long procTime, boolean fault)
+   {
+      Cell cell = getCell(operation);
+      if (fault)
+      {
+         cell.faults.increment();
+      }
+      else
+      {
+         cell.responses.increment();
+      }
+      cell.totalProcessingTime.add(procTime);
+      cell.minProcessingTime.accumulate(procTime);
+      cell.maxProcessingTime.accumulate(procTime);
+   }
+
+   public int getMaxOperations()
+   {
+      return maxOperations;
+   }
+
+   /**
+    * Gets the current metrics, one row per operation; processing times are in milliseconds.
+    */
+   public TabularData toTabularData()
+   {
+      TabularDataSupport table = new TabularDataSupport(TABLE_TYPE);
+      for (Map.Entry<QName, Cell> entry : cells.entrySet())
+      {
+         table.put(entry.getValue().toCompositeData(entry.getKey().toString()));
+      }
+      if (other.requests.sum() > 0 || other.responses.sum() > 0 || other.faults.sum() > 0)
+      {
+         table.put(other.toCompositeData(OTHER));
+      }
+      return table;
+   }
+
+   /**
+    * Gets the names of the operations currently tracked
+    */
+   public List<QName> getOperations()
+   {
+      return new ArrayList<QName>(cells.keySet());
+   }
+
+   private static final class Cell
+   {
+      private static final LongBinaryOperator MIN = new LongBinaryOperator()
+      {
+         public long applyAsLong(long left, long right)
+         {
+            return Math.min(left, right);
+         }
+      };
+      private static final LongBinaryOperator MAX = new LongBinaryOperator()
+      {
+         public long applyAsLong(long left, long right)
+         {
+            return Math.max(left, right);
+         }
+      };
+
+      private final LongAdder requests = new LongAdder();
+      private final LongAdder responses = new LongAdder();
+      private final LongAdder faults = new LongAdder();
+      private final LongAdder totalProcessingTime = new LongAdder();
+      private final LongAccumulator minProcessingTime = new LongAccumulator(MIN, Long.MAX_VALUE);
+      private final LongAccumulator maxProcessingTime = new LongAccumulator(MAX, 0);
+
+      private CompositeData toCompositeData(String operation)
+      {
+         final long responseCount = responses.sum();
+         final long faultCount = faults.sum();
+         final long total = totalProcessingTime.sum();
+         final long min = minProcessingTime.get();
+         final long totResponses = responseCount + faultCount;
+         final Object[] values = new Object[] { operation, requests.sum(), responseCount, faultCount,
+               min == Long.MAX_VALUE ? 0L : min / 1000000, maxProcessingTime.get() / 1000000,
+               totResponses != 0 ? total / (totResponses * 1000000) : 0L, total / 1000000 };
+         try
+         {
+            return new CompositeDataSupport(ROW_TYPE, ITEM_NAMES, values);
+         }
+         catch (OpenDataException e)
+         {
+            throw new IllegalStateException(e);
+         }
+      }
+   }
+}
@@ -18,8 +18,11 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.RecordFilter;
@@ -36,7 +39,8 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
 {
    private static final long serialVersionUID = -1825185742740851152L;
    
-   protected List<RecordFilter> filters = new CopyOnWriteArrayList<RecordFilter>();
+   //an immutable list, replaced on change
+   protected List<RecordFilter> filters = Collections.emptyList();
    protected boolean processDestinationHost = true;
    protected boolean processSourceHost = true;
    protected boolean processHeaders = true;
@@ -46,6 +50,8 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    protected boolean processDate = true;
    protected String name;
    protected boolean recording = false;
+   protected SamplingPolicy samplingPolicy;
+   private transient volatile CompiledFilters compiledFilters;
 
    public abstract void processRecord(Record record);
 
@@ -59,19 +65,76 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
       return name;
    }
 
-   public void addFilter(RecordFilter filter)
+   public synchronized void addFilter(RecordFilter filter)
    {
-      filters.add(filter);
+      List<RecordFilter> list = new ArrayList<RecordFilter>(filters);
+      list.add(filter);
+      updateFilters(list);
    }
 
+   /**
+    * Removes the given filter from the filters of this processor
+    * 
+    * @param filter
+    * @return true if the filter was found and removed
+    */
+   public synchronized boolean removeFilter(RecordFilter filter)
+   {
+      List<RecordFilter> list = new ArrayList<RecordFilter>(filters);
+      if (!list.remove(filter))
+      {
+         return false;
+      }
+      updateFilters(list);
+      return true;
+   }
+
+   /**
+    * Gets the filters of this processor, as an immutable list; use
+    * {@link #addFilter(RecordFilter)}, {@link #removeFilter(RecordFilter)}
+    * or {@link #setFilters(List)} to change them.
+    */
    public List<RecordFilter> getFilters()
    {
       return filters;
    }
 
-   public void setFilters(List<RecordFilter> filters)
+   public synchronized void setFilters(List<RecordFilter> filters)
    {
-      this.filters = new CopyOnWriteArrayList<RecordFilter>(filters);
+      updateFilters(filters != null ? new ArrayList<RecordFilter>(filters) : new ArrayList<RecordFilter>());
+   }
+
+   private void updateFilters(List<RecordFilter> list)
+   {
+      this.filters = Collections.unmodifiableList(list);
+      this.compiledFilters = null;
+   }
+
+   /**
+    * Returns whether the provided record matches all the filters of this processor,
+    * evaluating them through a predicate compiled by {@link RecordFilterCompiler}.
+    * The compiled predicate is cached until the filters are changed using
+    * {@link #addFilter(RecordFilter)}, {@link #removeFilter(RecordFilter)} or
+    * {@link #setFilters(List)}.
+    * 
+    * @param record  the record
+    * @return true if the record matches the filters
+    */
+   public boolean matches(Record record)
+   {
+      CompiledFilters compiled = compiledFilters;
+      final List<RecordFilter> current = filters;
+      if (current == null)
+      {
+         return true;
+      }
+      //the filters list is replaced on every change
+      if (compiled == null || compiled.source != current)
+      {
+         compiled = new CompiledFilters(current);
+         compiledFilters = compiled;
+      }
+      return compiled.filter.match(record);
    }
 
    public boolean isProcessDestinationHost()
@@ -82,6 +145,7 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void setProcessDestinationHost(boolean processDestinationHost)
    {
       this.processDestinationHost = processDestinationHost;
+      RecordingState.configurationChanged();
    }
 
    public boolean isProcessSourceHost()
@@ -92,6 +156,7 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void setProcessSourceHost(boolean processSourceHost)
    {
       this.processSourceHost = processSourceHost;
+      RecordingState.configurationChanged();
    }
 
    public boolean isProcessHeaders()
@@ -102,6 +167,7 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void setProcessHeaders(boolean processHeaders)
    {
       this.processHeaders = processHeaders;
+      RecordingState.configurationChanged();
    }
 
    public boolean isProcessEnvelope()
@@ -112,6 +178,7 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void setProcessEnvelope(boolean processEnvelope)
    {
       this.processEnvelope = processEnvelope;
+      RecordingState.configurationChanged();
    }
 
    public boolean isProcessMessageType()
@@ -122,6 +189,7 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void setProcessMessageType(boolean processMessageType)
    {
       this.processMessageType = processMessageType;
+      RecordingState.configurationChanged();
    }
 
    public boolean isProcessOperation()
@@ -132,6 +200,7 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void setProcessOperation(boolean processOperation)
    {
       this.processOperation = processOperation;
+      RecordingState.configurationChanged();
    }
 
    public boolean isProcessDate()
@@ -142,6 +211,7 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void setProcessDate(boolean processDate)
    {
       this.processDate = processDate;
+      RecordingState.configurationChanged();
    }
 
    public boolean isRecording()
@@ -152,18 +222,55 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void setRecording(boolean recording)
    {
       this.recording = recording;
+      RecordingState.configurationChanged();
+   }
+
+   /**
+    * Gets the policy sampling the record groups this processor gets, if any
+    */
+   public SamplingPolicy getSamplingPolicy()
+   {
+      return samplingPolicy;
+   }
+
+   /**
+    * Sets the policy sampling the record groups this processor gets; a null
+    * policy means all the record groups are processed.
+    * 
+    * @param samplingPolicy
+    */
+   public void setSamplingPolicy(SamplingPolicy samplingPolicy)
+   {
+      this.samplingPolicy = samplingPolicy;
+      RecordingState.configurationChanged();
+   }
+
+   /**
+    * Gets the sampling policy specification
+    * 
+    * @see SamplingPolicy#valueOf(String)
+    */
+   public String getSampling()
+   {
+      return samplingPolicy != null ? samplingPolicy.toString() : null;
+   }
+
+   public void setSampling(String policy)
+   {
+      setSamplingPolicy(SamplingPolicy.valueOf(policy));
    }
 
    @Override
    public Object clone() throws CloneNotSupportedException
    {
       AbstractRecordProcessor retObj = (AbstractRecordProcessor)super.clone();
-      retObj.filters = new CopyOnWriteArrayList<RecordFilter>();
+      List<RecordFilter> clonedFilters = new ArrayList<RecordFilter>(this.filters.size());
       for (RecordFilter fil : this.filters)
       {
          RecordFilter clFil = (RecordFilter)fil.clone();
-         retObj.filters.add(clFil);
+         clonedFilters.add(clFil);
       }
+      retObj.updateFilters(clonedFilters);
       retObj.processDestinationHost = this.processDestinationHost;
       retObj.processSourceHost = this.processSourceHost;
       retObj.processHeaders = this.processHeaders;
@@ -172,10 +279,21 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
       retObj.processOperation = this.processOperation;
       retObj.processDate = this.processDate;
       retObj.recording = this.recording;
+      retObj.samplingPolicy = this.samplingPolicy != null ? this.samplingPolicy.clone() : null;
       retObj.name = this.name;
       return retObj;
    }
 
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+   {
+      in.defaultReadObject();
+      //the former serialized form has a mutable list
+      if (filters != null)
+      {
+         updateFilters(new ArrayList<RecordFilter>(filters));
+      }
+   }
+
    public String toString()
    {
       StringBuilder sb = new StringBuilder();
@@ -191,4 +309,16 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
       sb.append(")");
       return sb.toString();
    }
+
+   private static final class CompiledFilters
+   {
+      private final List<RecordFilter> source;
+      private final RecordFilter filter;
+
+      CompiledFilters(List<RecordFilter> source)
+      {
+         this.source = source;
+         this.filter = RecordFilterCompiler.compile(source);
+      }
+   }
 }
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * Hands records over from the request threads to a pool of worker
+ * threads, which pass them to the endpoint record processors. This way
+ * slow record processors do not add to the request processing time.
+ * 
+ * The records are queued in a bounded queue; when the queue is full, the
+ * configured overflow policy decides whether the newest or the oldest
+ * record is dropped, or the request thread waits for some room.
+ * 
+ * The worker threads are shared by the dispatchers of all the endpoints;
+ * each dispatcher has at most the configured number of workers draining
+ * its queue at the same time, and lets the other endpoints have a turn
+ * after each batch of records.
+ * 
+ * A dispatcher is attached to each endpoint by the
+ * {@link org.jboss.ws.common.deployment.EndpointRecordProcessorDeploymentAspect}
+ * when asynchronous dispatching is enabled.
+ * 
+ * @since 18-Oct-2026
+ */
+public class AsyncRecordDispatcher
+{
+   public enum OverflowPolicy
+   {
+      DROP_NEWEST, DROP_OLDEST, BLOCK
+   }
+
+   private static final long POLL_TIMEOUT = 100;
+   private static final long STOP_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+   private static final int BATCH_SIZE = 64;
+   private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+   private static final Executor EXECUTOR = createExecutor();
+
+   private final Endpoint endpoint;
+   //the records for all the endpoint processors, and the deliveries to a single processor
+   private final BlockingQueue<Object> queue;
+   private final OverflowPolicy overflowPolicy;
+   private final int workers;
+   private final AtomicInteger activeWorkers = new AtomicInteger(0);
+   private final AtomicLong droppedCount = new AtomicLong(0);
+   private volatile boolean running;
+
+   public AsyncRecordDispatcher(Endpoint endpoint, int queueSize, OverflowPolicy overflowPolicy, int workers)
+   {
+      this.endpoint = endpoint;
+      this.queue = new ArrayBlockingQueue<Object>(queueSize);
+      this.overflowPolicy = overflowPolicy;
+      this.workers = workers;
+   }
+
+   private static Executor createExecutor()
+   {
+      final AtomicInteger count = new AtomicInteger(0);
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+               public Thread newThread(Runnable r)
+               {
+                  Thread thread = new Thread(r, "jbossws-record-dispatcher-" + count.incrementAndGet());
+                  thread.setDaemon(true);
+                  //do not pin the class loader of the deployment which happened to start the thread
+                  thread.setContextClassLoader(AsyncRecordDispatcher.class.getClassLoader());
+                  return thread;
+               }
+            });
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+   }
+
+   public synchronized void start()
+   {
+      running = true;
+   }
+
+   /**
+    * Stops accepting records and waits for the ones that are still queued
+    * to be processed. The workers are not interrupted, as record processors
+    * writing to a channel (e.g. the FileRecorder) would have it closed by the
+    * interruption; the workers are given some time to complete instead.
+    */
+   public synchronized void stop()
+   {
+      running = false;
+      schedule();
+      long deadline = System.currentTimeMillis() + STOP_TIMEOUT;
+      while (activeWorkers.get() > 0 || !queue.isEmpty())
+      {
+         long timeout = deadline - System.currentTimeMillis();
+         if (timeout <= 0)
+         {
+            break;
+         }
+         try
+         {
+            wait(timeout);
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            break;
+         }
+      }
+   }
+
+   /**
+    * Queues the record for being processed by the endpoint record processors.
+    * 
+    * @param record
+    * @return true if the record has been queued, false if it has been dropped
+    */
+   public boolean dispatch(Record record)
+   {
+      return offer(record, record);
+   }
+
+   /**
+    * Queues the record for being processed by the given record processor only,
+    * e.g. once the sampling policy of the processor decided to keep its group.
+    * 
+    * @param record
+    * @param processor
+    * @return true if the record has been queued, false if it has been dropped
+    */
+   public boolean dispatch(Record record, RecordProcessor processor)
+   {
+      return offer(new Delivery(record, processor), record);
+   }
+
+   private boolean offer(Object item, Record record)
+   {
+      if (!running)
+      {
+         droppedCount.incrementAndGet();
+         return false;
+      }
+      switch (overflowPolicy)
+      {
+         case DROP_OLDEST :
+            while (!queue.offer(item))
+            {
+               if (queue.poll() != null)
+               {
+                  droppedCount.incrementAndGet();
+               }
+            }
+            return queued(record);
+         case BLOCK :
+            try
+            {
+               while (!queue.offer(item, POLL_TIMEOUT, TimeUnit.MILLISECONDS))
+               {
+                  if (!running)
+                  {
+                     droppedCount.incrementAndGet();
+                     return false;
+                  }
+               }
+               return queued(record);
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               droppedCount.incrementAndGet();
+               return false;
+            }
+         default :
+            if (queue.offer(item))
+            {
+               return queued(record);
+            }
+            droppedCount.incrementAndGet();
+            return false;
+      }
+   }
+
+   private boolean queued(Record record)
+   {
+      //the lazily captured envelope must be serialized before the message exchange is over;
+      //should a worker get the record first, it serializes the envelope while this thread waits
+      record.getEnvelope();
+      schedule();
+      return true;
+   }
+
+   /**
+    * Submits a new worker, unless the maximum number of workers are already
+    * draining the queue
+    */
+   private void schedule()
+   {
+      while (true)
+      {
+         int active = activeWorkers.get();
+         if (active >= workers || queue.isEmpty())
+         {
+            return;
+         }
+         if (activeWorkers.compareAndSet(active, active + 1))
+         {
+            EXECUTOR.execute(new Worker());
+            return;
+         }
+      }
+   }
+
+   /**
+    * Gets the number of records that have been dropped because of the queue being full
+    */
+   public long getDroppedCount()
+   {
+      return droppedCount.get();
+   }
+
+   /**
+    * Gets the number of records currently waiting for being processed
+    */
+   public int getQueueSize()
+   {
+      return queue.size();
+   }
+
+   public OverflowPolicy getOverflowPolicy()
+   {
+      return overflowPolicy;
+   }
+
+   private class Worker implements Runnable
+   {
+      public void run()
+      {
+         int count = 0;
+         try
+         {
+            Object item;
+            while (count < BATCH_SIZE && (item = queue.poll()) != null)
+            {
+               process(item);
+               count++;
+            }
+         }
+         finally
+         {
+            if (count == BATCH_SIZE)
+            {
+               //give the other endpoints a turn before going on with this queue
+               EXECUTOR.execute(this);
+            }
+            else
+            {
+               done();
+            }
+         }
+      }
+
+      private void done()
+      {
+         activeWorkers.decrementAndGet();
+         //a record queued after the last poll did not submit a worker if this one was still counted
+         schedule();
+         synchronized (AsyncRecordDispatcher.this)
+         {
+            AsyncRecordDispatcher.this.notifyAll();
+         }
+      }
+
+      private void process(Object item)
+      {
+         final Record record = item instanceof Delivery ? ((Delivery)item).record : (Record)item;
+         try
+         {
+            if (item instanceof Delivery)
+            {
+               ((Delivery)item).processor.processRecord(record);
+            }
+            else
+            {
+               endpoint.processRecord(record);
+            }
+         }
+         catch (RuntimeException e)
+         {
+            MONITORING_LOGGER.cannotProcessRecord(record.getGroupID(), e);
+         }
+      }
+   }
+
+   /**
+    * A record to be processed by a single processor
+    */
+   private static final class Delivery
+   {
+      private final Record record;
+      private final RecordProcessor processor;
+
+      Delivery(Record record, RecordProcessor processor)
+      {
+         this.record = record;
+         this.processor = processor;
+      }
+   }
+}
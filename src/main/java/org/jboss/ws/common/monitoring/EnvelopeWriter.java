@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.jboss.ws.common.StreamingDOMWriter;
+import org.w3c.dom.Node;
+
+/**
+ * Serializes an envelope node to a bounded UTF-8 byte buffer.
+ * 
+ * Only the bytes up to the max size are buffered; the rest of a large
+ * envelope is still serialized, but merely counted, so that the whole
+ * envelope size is known even when it is truncated.
+ * 
+ * @since 18-Oct-2026
+ */
+final class EnvelopeWriter extends OutputStream
+{
+   private static final int INITIAL_SIZE = 1024;
+
+   private final int maxSize;
+   private byte[] buffer;
+   private int count;
+   private long totalSize;
+   private boolean truncated;
+
+   /**
+    * @param maxSize  the max number of UTF-8 bytes to keep, or zero (or less) for no limit
+    */
+   EnvelopeWriter(int maxSize)
+   {
+      this.maxSize = maxSize > 0 ? maxSize : Integer.MAX_VALUE - 8;
+      this.buffer = new byte[Math.min(INITIAL_SIZE, this.maxSize)];
+   }
+
+   /**
+    * Serializes the given node (without pretty printing), up to the max size
+    * 
+    * @param node
+    */
+   void print(Node node)
+   {
+      try
+      {
+         new StreamingDOMWriter(this).print(node);
+      }
+      catch (IOException e)
+      {
+         //not thrown by this stream
+         throw new IllegalStateException(e);
+      }
+   }
+
+   @Override
+   public void write(int b) throws IOException
+   {
+      write(new byte[] { (byte)b }, 0, 1);
+   }
+
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException
+   {
+      totalSize += len;
+      if (truncated)
+      {
+         return;
+      }
+      final int room = maxSize - count;
+      final int n = Math.min(len, room);
+      ensureCapacity(count + n);
+      System.arraycopy(b, off, buffer, count, n);
+      count += n;
+      if (n < len)
+      {
+         truncated = true;
+         dropIncompleteChar();
+      }
+   }
+
+   private void ensureCapacity(int size)
+   {
+      if (size > buffer.length)
+      {
+         final int newSize = (int)Math.min(Math.max(2L * buffer.length, size), maxSize);
+         final byte[] bigger = new byte[newSize];
+         System.arraycopy(buffer, 0, bigger, 0, count);
+         buffer = bigger;
+      }
+   }
+
+   /**
+    * Drops the last bytes if they're only the beginning of a multi-byte char
+    */
+   private void dropIncompleteChar()
+   {
+      int lead = count - 1;
+      while (lead >= 0 && (buffer[lead] & 0xC0) == 0x80)
+      {
+         lead--;
+      }
+      if (lead < 0)
+      {
+         return;
+      }
+      final int b = buffer[lead] & 0xFF;
+      final int length = b < 0x80 ? 1 : (b < 0xE0 ? 2 : (b < 0xF0 ? 3 : 4));
+      if (count - lead < length)
+      {
+         count = lead;
+      }
+   }
+
+   /**
+    * Gets the number of bytes kept
+    */
+   int size()
+   {
+      return count;
+   }
+
+   /**
+    * Gets the number of bytes of the whole envelope, including the ones not kept
+    */
+   long totalSize()
+   {
+      return totalSize;
+   }
+
+   boolean isTruncated()
+   {
+      return truncated;
+   }
+
+   @Override
+   public String toString()
+   {
+      return new String(buffer, 0, count, StandardCharsets.UTF_8);
+   }
+}
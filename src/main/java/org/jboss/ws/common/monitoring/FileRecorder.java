@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import javax.management.ObjectName;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * A record processor appending the records to memory-mapped segment files,
+ * using a compact binary encoding.
+ * 
+ * Each record is framed by its length; concurrent writers reserve their
+ * room in the current segment with a CAS and copy their record without
+ * locking. A new segment is started when the current one is full, the full
+ * one being flushed to disk, and the oldest segments are deleted once the
+ * configured number of segments is exceeded. The records can be read back
+ * using a {@link RecordFileReader}.
+ * 
+ * Files are written by default in the jbossws/records directory of the
+ * server data dir, using a file prefix that identifies the endpoint the
+ * processor is attached to. Segment files are created exclusively, so that
+ * recorders sharing a prefix never write to the same segment.
+ * 
+ * @since 18-Oct-2026
+ */
+public class FileRecorder extends AbstractRecordProcessor implements FileRecorderMBean, Serializable
+{
+   private static final long serialVersionUID = 2946281624718396315L;
+
+   public static final String SEGMENT_SUFFIX = ".rec";
+
+   private String directory;
+   private String filePrefix;
+   private int segmentSize = 16 * 1024 * 1024;
+   private int maxSegments = 64;
+
+   private transient volatile Segment segment;
+   private transient long segmentIndex = -1;
+   private transient volatile long writtenRecords;
+
+   private static final AtomicLongFieldUpdater<FileRecorder> writtenRecordsUpdater = AtomicLongFieldUpdater.newUpdater(
+         FileRecorder.class, "writtenRecords");
+
+   public FileRecorder()
+   {
+      this.name = "FileRecorder";
+   }
+
+   @Override
+   public void processRecord(Record record)
+   {
+      final RecordCodec codec = RecordCodec.acquire();
+      try
+      {
+         final ByteBuffer encoded = codec.encode(record, this);
+         final int length = encoded.remaining();
+         while (true)
+         {
+            final Segment current = segment;
+            if (current != null && current.write(encoded, length))
+            {
+               writtenRecordsUpdater.incrementAndGet(this);
+               return;
+            }
+            nextSegment(current, length);
+         }
+      }
+      catch (IOException e)
+      {
+         MONITORING_LOGGER.cannotWriteRecord(record.getGroupID(), getDirectoryFile(), e);
+      }
+      finally
+      {
+         RecordCodec.release(codec);
+      }
+   }
+
+   /**
+    * Replaces the given full segment with a new one, unless another thread already did it
+    */
+   private synchronized void nextSegment(Segment full, int length) throws IOException
+   {
+      if (segment != full)
+      {
+         return;
+      }
+      final File dir = getDirectoryFile();
+      if (segmentIndex < 0)
+      {
+         dir.mkdirs();
+         long[] existing = listSegments(dir, getFilePrefix());
+         segmentIndex = existing.length > 0 ? existing[existing.length - 1] : -1;
+      }
+      long index = segmentIndex + 1;
+      FileChannel channel;
+      while (true)
+      {
+         try
+         {
+            channel = FileChannel.open(segmentFile(dir, getFilePrefix(), index).toPath(), StandardOpenOption.CREATE_NEW,
+                  StandardOpenOption.READ, StandardOpenOption.WRITE);
+            break;
+         }
+         catch (FileAlreadyExistsException e)
+         {
+            //claimed by another recorder writing with the same prefix
+            index++;
+         }
+      }
+      try
+      {
+         //keep room for the next record length, which must read as 0 until written
+         segment = new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0,
+               Math.max(segmentSize, length + Segment.FRAME_OVERHEAD)));
+      }
+      finally
+      {
+         channel.close();
+      }
+      segmentIndex = index;
+      if (full != null)
+      {
+         full.close();
+      }
+      final long[] segments = listSegments(dir, getFilePrefix());
+      for (int i = 0; i < segments.length - maxSegments; i++)
+      {
+         segmentFile(dir, getFilePrefix(), segments[i]).delete();
+      }
+   }
+
+   /**
+    * Flushes the current segment to disk and releases it; a new segment
+    * is started with the next record.
+    */
+   public synchronized void close()
+   {
+      final Segment current = segment;
+      segment = null;
+      if (current != null)
+      {
+         current.close();
+      }
+   }
+
+   static File segmentFile(File dir, String prefix, long index)
+   {
+      return new File(dir, prefix + "-" + String.format("%010d", index) + SEGMENT_SUFFIX);
+   }
+
+   /**
+    * Gets the indexes of the segments with the given prefix, in ascending order
+    */
+   static long[] listSegments(File dir, String prefix)
+   {
+      String[] names = dir.list();
+      if (names == null)
+      {
+         return new long[0];
+      }
+      List<Long> indexes = new ArrayList<Long>();
+      for (String name : names)
+      {
+         if (name.startsWith(prefix + "-") && name.endsWith(SEGMENT_SUFFIX))
+         {
+            try
+            {
+               indexes.add(Long.parseLong(name.substring(prefix.length() + 1, name.length() - SEGMENT_SUFFIX.length())));
+            }
+            catch (NumberFormatException e)
+            {
+               //not a segment
+            }
+         }
+      }
+      long[] result = new long[indexes.size()];
+      for (int i = 0; i < result.length; i++)
+      {
+         result[i] = indexes.get(i);
+      }
+      Arrays.sort(result);
+      return result;
+   }
+
+   /**
+    * Sets the file prefix after the endpoint this processor is attached to;
+    * a configured prefix is kept as the beginning of the file prefix, so that
+    * the clones attached to different endpoints do not share their files.
+    * 
+    * @param endpoint
+    */
+   public void initFilePrefix(Endpoint endpoint)
+   {
+      ObjectName on = endpoint.getName();
+      StringBuilder sb = new StringBuilder(filePrefix != null ? filePrefix : name);
+      if (on != null && on.getKeyProperty("context") != null)
+      {
+         sb.append('_').append(on.getKeyProperty("context"));
+      }
+      sb.append('_').append(on != null && on.getKeyProperty(Endpoint.SEPID_PROPERTY_ENDPOINT) != null
+            ? on.getKeyProperty(Endpoint.SEPID_PROPERTY_ENDPOINT) : endpoint.getShortName());
+      filePrefix = sanitize(sb.toString());
+   }
+
+   private static String sanitize(String value)
+   {
+      StringBuilder sb = new StringBuilder(value.length());
+      for (int i = 0; i < value.length(); i++)
+      {
+         char c = value.charAt(i);
+         sb.append(Character.isLetterOrDigit(c) || c == '.' || c == '_' ? c : '_');
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Creates a reader for the records written by this processor
+    * 
+    * @param filters  the filters the returned records must match
+    * @return
+    */
+   public RecordFileReader newReader(RecordFilter... filters)
+   {
+      return new RecordFileReader(getDirectoryFile(), getFilePrefix(), filters);
+   }
+
+   public List<Record> getMatchingRecords(RecordFilter[] filters, int maxRecords)
+   {
+      List<Record> result = new ArrayList<Record>();
+      RecordFileReader reader = newReader(filters);
+      try
+      {
+         Record record;
+         while (result.size() < maxRecords && (record = reader.next()) != null)
+         {
+            result.add(record);
+         }
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+      finally
+      {
+         reader.close();
+      }
+      return result;
+   }
+
+   private File getDirectoryFile()
+   {
+      if (directory != null)
+      {
+         return new File(directory);
+      }
+      String dataDir = SecurityActions.getSystemProperty("jboss.server.data.dir",
+            SecurityActions.getSystemProperty("java.io.tmpdir", "."));
+      return new File(new File(dataDir, "jbossws"), "records");
+   }
+
+   public String getDirectory()
+   {
+      return getDirectoryFile().getPath();
+   }
+
+   public synchronized void setDirectory(String directory)
+   {
+      close();
+      this.directory = directory;
+      this.segmentIndex = -1;
+   }
+
+   public String getFilePrefix()
+   {
+      return filePrefix != null ? filePrefix : sanitize(name);
+   }
+
+   public synchronized void setFilePrefix(String filePrefix)
+   {
+      close();
+      this.filePrefix = filePrefix;
+      this.segmentIndex = -1;
+   }
+
+   public int getSegmentSize()
+   {
+      return segmentSize;
+   }
+
+   public void setSegmentSize(int segmentSize)
+   {
+      this.segmentSize = segmentSize;
+   }
+
+   public int getMaxSegments()
+   {
+      return maxSegments;
+   }
+
+   public void setMaxSegments(int maxSegments)
+   {
+      this.maxSegments = maxSegments;
+   }
+
+   public long getWrittenRecords()
+   {
+      return writtenRecords;
+   }
+
+   @Override
+   public Object clone() throws CloneNotSupportedException
+   {
+      FileRecorder retObj = (FileRecorder)super.clone();
+      retObj.directory = this.directory;
+      retObj.filePrefix = this.filePrefix;
+      retObj.segmentSize = this.segmentSize;
+      retObj.maxSegments = this.maxSegments;
+      retObj.segment = null;
+      retObj.segmentIndex = -1;
+      retObj.writtenRecords = 0;
+      return retObj;
+   }
+
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+   {
+      in.defaultReadObject();
+      //the index of the last segment is looked up again before writing
+      segmentIndex = -1;
+   }
+
+   /**
+    * A mapped segment file; writers reserve the room for their record with a CAS
+    * on the write position, then copy the record without any lock.
+    */
+   private static final class Segment
+   {
+      //the record length, plus the room for the next record length
+      static final int FRAME_OVERHEAD = 8;
+
+      private final MappedByteBuffer buffer;
+      private final int limit;
+      private final AtomicInteger position = new AtomicInteger();
+      private final AtomicInteger writers = new AtomicInteger();
+
+      Segment(MappedByteBuffer buffer)
+      {
+         this.buffer = buffer;
+         this.limit = buffer.capacity();
+      }
+
+      /**
+       * Writes the record, unless there's not enough room left (or the segment is closed)
+       */
+      boolean write(ByteBuffer record, int length)
+      {
+         writers.incrementAndGet();
+         try
+         {
+            final int size = length + 4;
+            int start = position.get();
+            while (start <= limit - size - 4)
+            {
+               if (position.compareAndSet(start, start + size))
+               {
+                  final ByteBuffer target = buffer.duplicate();
+                  target.position(start + 4);
+                  target.put(record);
+                  //the length is written last, so that readers never see a partially written record
+                  target.putInt(start, length);
+                  return true;
+               }
+               start = position.get();
+            }
+            return false;
+         }
+         finally
+         {
+            writers.decrementAndGet();
+         }
+      }
+
+      /**
+       * Prevents any further write, waits for the ongoing ones and flushes the segment to disk
+       */
+      void close()
+      {
+         position.set(limit);
+         while (writers.get() > 0)
+         {
+            Thread.yield();
+         }
+         buffer.force();
+      }
+   }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.List;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * The FileRecorder's MBean view
+ * 
+ * @since 18-Oct-2026
+ */
+public interface FileRecorderMBean extends ManagedRecordProcessorMBean
+{
+   /**
+    * Gets the records on disk matching the provided filters, oldest first.
+    * 
+    * @param filters
+    * @param maxRecords  the max number of records to return
+    * @return
+    */
+   public List<Record> getMatchingRecords(RecordFilter[] filters, int maxRecords);
+
+   public String getDirectory();
+
+   public void setDirectory(String directory);
+
+   public String getFilePrefix();
+
+   public void setFilePrefix(String filePrefix);
+
+   /**
+    * Gets the size of each segment file, in bytes
+    * 
+    * @return
+    */
+   public int getSegmentSize();
+
+   public void setSegmentSize(int segmentSize);
+
+   /**
+    * Gets the max number of segment files kept on disk
+    * 
+    * @return
+    */
+   public int getMaxSegments();
+
+   public void setMaxSegments(int maxSegments);
+
+   /**
+    * Gets the number of records written since the processor was started
+    * 
+    * @return
+    */
+   public long getWrittenRecords();
+}
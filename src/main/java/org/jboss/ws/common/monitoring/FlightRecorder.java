@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.common.monitoring.RecordRingBuffer.RecordGroup;
+
+/**
+ * A record processor keeping the message exchanges around an incident.
+ * 
+ * The headers and metadata of all the recent exchanges are kept in a rolling
+ * pre-buffer; envelopes are not serialized, so the steady-state overhead is
+ * small. When an exchange ends with a fault or takes longer than the latency
+ * threshold (measured from the date of the inbound record), its group is
+ * promoted to the incident buffer together with the outbound envelope (and
+ * the inbound one, if {@link #setCaptureInboundEnvelope(boolean)} is enabled,
+ * which serializes all the inbound envelopes).
+ * 
+ * @since 18-Oct-2026
+ */
+public class FlightRecorder extends AbstractRecordProcessor implements FlightRecorderMBean, Serializable
+{
+   private static final long serialVersionUID = 1L;
+
+   private volatile RecordRingBuffer preBuffer = new RecordRingBuffer(1000);
+   private volatile RecordRingBuffer incidents = new RecordRingBuffer(50);
+   private volatile long latencyThreshold = 1000;
+   private volatile boolean captureInboundEnvelope;
+   private AtomicLong incidentCount = new AtomicLong();
+
+   public FlightRecorder()
+   {
+      this.name = "FlightRecorder";
+   }
+
+   @Override
+   public void processRecord(Record record)
+   {
+      if (record.getMessageType() == MessageType.OUTBOUND)
+      {
+         RecordGroup group = preBuffer.get(record.getGroupID());
+         if (isIncident(record, group))
+         {
+            if (isProcessEnvelope())
+            {
+               //the lazily captured envelope is only available during this call
+               record.getEnvelope();
+            }
+            if (group != null)
+            {
+               for (Record r : group.getRecords())
+               {
+                  incidents.add(r);
+               }
+            }
+            incidents.add(record);
+            incidentCount.incrementAndGet();
+         }
+      }
+      else if (captureInboundEnvelope && isProcessEnvelope())
+      {
+         record.getEnvelope();
+      }
+      preBuffer.add(record);
+   }
+
+   private boolean isIncident(Record outbound, RecordGroup group)
+   {
+      if (outbound instanceof RecordImpl && ((RecordImpl)outbound).isFault())
+      {
+         return true;
+      }
+      long end = getTimestamp(outbound);
+      if (group == null || end == RecordImpl.NO_TIMESTAMP)
+      {
+         //latency unknown, the inbound record has already been evicted
+         return false;
+      }
+      for (Record r : group.getRecords())
+      {
+         if (r.getMessageType() == MessageType.INBOUND)
+         {
+            long begin = getTimestamp(r);
+            return begin != RecordImpl.NO_TIMESTAMP && (end - begin) / 1000000 >= latencyThreshold;
+         }
+      }
+      return false;
+   }
+
+   private static long getTimestamp(Record record)
+   {
+      if (record instanceof RecordImpl)
+      {
+         return ((RecordImpl)record).getTimestamp();
+      }
+      return RecordImpl.toTimestamp(record.getDate());
+   }
+
+   public Map<String, List<Record>> getIncidents()
+   {
+      return toMap(incidents.snapshot());
+   }
+
+   public Map<String, List<Record>> getRecentRecords()
+   {
+      return toMap(preBuffer.snapshot());
+   }
+
+   private static Map<String, List<Record>> toMap(List<RecordGroup> groups)
+   {
+      Map<String, List<Record>> result = new LinkedHashMap<String, List<Record>>();
+      for (RecordGroup group : groups)
+      {
+         result.put(group.getGroupID(), group.toList());
+      }
+      return result;
+   }
+
+   public String getIncidentsAsHTMLTable(boolean groupRecords, boolean showDetails)
+   {
+      StringWriter writer = new StringWriter();
+      writer.write("</pre></span>");
+      try
+      {
+         incidents.render(RecordRenderer.newHtmlRenderer(groupRecords, showDetails), writer, 0, -1);
+      }
+      catch (IOException e)
+      {
+         //never thrown by a StringWriter
+         throw new IllegalStateException(e);
+      }
+      writer.write("<pre><span class='OpResult'>");
+      return writer.toString();
+   }
+
+   public String getIncidentsAsJSON(boolean showDetails, int offset, int limit)
+   {
+      StringWriter writer = new StringWriter();
+      try
+      {
+         incidents.render(RecordRenderer.newJsonRenderer(showDetails), writer, offset, limit);
+      }
+      catch (IOException e)
+      {
+         //never thrown by a StringWriter
+         throw new IllegalStateException(e);
+      }
+      return writer.toString();
+   }
+
+   public long getIncidentCount()
+   {
+      return incidentCount.get();
+   }
+
+   public long getLatencyThreshold()
+   {
+      return latencyThreshold;
+   }
+
+   public void setLatencyThreshold(long latencyThreshold)
+   {
+      this.latencyThreshold = latencyThreshold;
+   }
+
+   public boolean isCaptureInboundEnvelope()
+   {
+      return captureInboundEnvelope;
+   }
+
+   public void setCaptureInboundEnvelope(boolean captureInboundEnvelope)
+   {
+      this.captureInboundEnvelope = captureInboundEnvelope;
+   }
+
+   public int getPreBufferSize()
+   {
+      return preBuffer.getCapacity();
+   }
+
+   public synchronized void setPreBufferSize(int size)
+   {
+      if (size != preBuffer.getCapacity())
+      {
+         preBuffer = preBuffer.copy(size);
+      }
+   }
+
+   public int getMaxIncidents()
+   {
+      return incidents.getCapacity();
+   }
+
+   public synchronized void setMaxIncidents(int maxIncidents)
+   {
+      if (maxIncidents != incidents.getCapacity())
+      {
+         incidents = incidents.copy(maxIncidents);
+      }
+   }
+
+   @Override
+   public Object clone() throws CloneNotSupportedException
+   {
+      FlightRecorder cl = (FlightRecorder)super.clone();
+      cl.preBuffer = new RecordRingBuffer(preBuffer.getCapacity());
+      cl.incidents = new RecordRingBuffer(incidents.getCapacity());
+      cl.incidentCount = new AtomicLong();
+      return cl;
+   }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * The FlightRecorder's MBean view
+ * 
+ * @since 18-Oct-2026
+ */
+public interface FlightRecorderMBean extends ManagedRecordProcessorMBean
+{
+   /**
+    * Gets the records of the message exchanges that ended with a fault or
+    * exceeded the latency threshold, as a map GroupID->List<Record>
+    * 
+    * @return
+    */
+   public Map<String, List<Record>> getIncidents();
+
+   /**
+    * Gets the headers and metadata of the recent message exchanges,
+    * as a map GroupID->List<Record>
+    * 
+    * @return
+    */
+   public Map<String, List<Record>> getRecentRecords();
+
+   /**
+    * Shows the incidents as a HTML table
+    * 
+    * @param groupRecords  whether the records should be grouped using the group ID
+    * @param showDetails   whether to show headers and envelopes
+    * @return
+    */
+   public String getIncidentsAsHTMLTable(boolean groupRecords, boolean showDetails);
+
+   /**
+    * Shows a page of the incidents as a JSON array of record groups
+    * 
+    * @param showDetails   whether to include headers and envelopes
+    * @param offset        the number of record groups to skip
+    * @param limit         the max number of record groups to show (negative for no limit)
+    * @return
+    */
+   public String getIncidentsAsJSON(boolean showDetails, int offset, int limit);
+
+   /**
+    * Gets the number of incidents recorded since the processor was started
+    * 
+    * @return
+    */
+   public long getIncidentCount();
+
+   /**
+    * Gets the latency (milliseconds) above which a message exchange is recorded as an incident
+    * 
+    * @return
+    */
+   public long getLatencyThreshold();
+
+   public void setLatencyThreshold(long latencyThreshold);
+
+   public boolean isCaptureInboundEnvelope();
+
+   public void setCaptureInboundEnvelope(boolean captureInboundEnvelope);
+
+   /**
+    * Gets the number of recent message exchanges kept in the pre-buffer
+    * 
+    * @return
+    */
+   public int getPreBufferSize();
+
+   public void setPreBufferSize(int size);
+
+   /**
+    * Gets the number of incidents kept at the same time
+    * 
+    * @return
+    */
+   public int getMaxIncidents();
+
+   public void setMaxIncidents(int maxIncidents);
+}
@@ -138,4 +138,19 @@ public class ManagedRecordProcessor implements ManagedRecordProcessorMBean
    {
       processor.setRecording(value);
    }
+
+   public String getSampling()
+   {
+      SamplingPolicy policy = processor instanceof AbstractRecordProcessor ? ((AbstractRecordProcessor)processor).getSamplingPolicy() : null;
+      return policy != null ? policy.toString() : null;
+   }
+
+   public void setSampling(String policy)
+   {
+      if (!(processor instanceof AbstractRecordProcessor))
+      {
+         throw new UnsupportedOperationException("Sampling not supported by " + processor.getClass().getName());
+      }
+      ((AbstractRecordProcessor)processor).setSamplingPolicy(SamplingPolicy.valueOf(policy));
+   }
 }
@@ -70,4 +70,13 @@ public interface ManagedRecordProcessorMBean
    public boolean isProcessDate();
 
    public void setProcessDate(boolean value);
+
+   /**
+    * Gets the sampling policy specification, null meaning all the record groups are processed
+    * 
+    * @see SamplingPolicy#valueOf(String)
+    */
+   public String getSampling();
+
+   public void setSampling(String policy);
 }
@@ -18,27 +18,42 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashMap;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.xml.namespace.QName;
 
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.RecordFilter;
-import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.common.monitoring.RecordRingBuffer.RecordGroup;
 
 /**
  * Keeps the last received records in memory and allows user to
  * search / get statistics on them.
  * 
+ * Records are stored in a bounded ring buffer of record groups, so
+ * that request threads can append records without contending on a lock;
+ * lookups by client host, operation and date use the buffer indexes
+ * instead of scanning all the records.
+ * 
+ * The off-heap data of evicted records is only freed once no lookup or
+ * rendering is reading the buffer; the records returned by the lookups are
+ * the stored ones though, so their envelope and headers are not available
+ * anymore once they are evicted.
+ * 
  * @author alessio.soldano@jboss.com
  * @since 12-Dec-2007
  */
@@ -46,10 +61,12 @@ public class MemoryBufferRecorder extends AbstractRecordProcessor implements Mem
 {
    private static final long serialVersionUID = 5180978625780333738L;
    
-   private Map<String, List<Record>> recentRecords = Collections.synchronizedMap(new HashMap<String, List<Record>>());
-   private ConcurrentLinkedQueue<String> recentRecordGroups = new ConcurrentLinkedQueue<String>();
-   private volatile int size = 0;
-   private volatile int maxSize = 50;
+   private volatile RecordRingBuffer buffer = new RecordRingBuffer(50, true);
+   private volatile boolean offHeap;
+   private volatile boolean offHeapCompression;
+   private volatile long offHeapMaxSize = 64L * 1024 * 1024;
+   private volatile int offHeapBlockSize = OffHeapStore.DEFAULT_BLOCK_SIZE;
+   private transient OffHeapStore offHeapStore;
 
    public MemoryBufferRecorder()
    {
@@ -59,236 +76,305 @@ public class MemoryBufferRecorder extends AbstractRecordProcessor implements Mem
    @Override
    public void processRecord(Record record)
    {
-      synchronized (recentRecords)
+      if (isProcessEnvelope())
+      {
+         //records are kept after the message exchange, so get the lazily captured envelope now
+         record.getEnvelope();
+      }
+      if (offHeap && record instanceof RecordImpl)
       {
-         List<Record> list = recentRecords.get(record.getGroupID());
-         if (list == null)
+         //the record is shared with the other processors of the endpoint, so a copy of it is
+         //moved off-heap, as its off-heap data is freed when evicted from the buffer
+         RecordImpl copy = ((RecordImpl)record).copy();
+         RecordCodec codec = RecordCodec.acquire();
+         try
          {
-            list = new LinkedList<Record>();
-            recentRecords.put(record.getGroupID(), list);
-            while (size > maxSize)
-            {
-               this.deleteOldestRecord();
-            }
-            recentRecordGroups.offer(record.getGroupID());
-            size++;
+            copy.moveOffHeap(getOffHeapStore(), offHeapCompression, codec);
          }
-         list.add(record);
+         finally
+         {
+            RecordCodec.release(codec);
+         }
+         buffer.add(copy);
+      }
+      else
+      {
+         buffer.add(record);
       }
    }
-   
 
-   private void deleteOldestRecord()
+   private synchronized OffHeapStore getOffHeapStore()
    {
-      String id = recentRecordGroups.poll();
-      if (id != null)
+      if (offHeapStore == null)
       {
-         recentRecords.remove(id);
-         size--;
+         offHeapStore = new OffHeapStore(offHeapMaxSize, offHeapBlockSize);
       }
+      return offHeapStore;
+   }
+
+   public boolean isOffHeap()
+   {
+      return offHeap;
+   }
+
+   /**
+    * Sets whether the envelope and headers of the records are to be stored off-heap,
+    * in direct memory that is freed when the records are evicted from the buffer.
+    * The buffer then stores its own copies of the records, so that the records
+    * passed to the other processors of the endpoint are not affected.
+    * 
+    * @param offHeap
+    */
+   public void setOffHeap(boolean offHeap)
+   {
+      this.offHeap = offHeap;
+   }
+
+   public boolean isOffHeapCompression()
+   {
+      return offHeapCompression;
+   }
+
+   public void setOffHeapCompression(boolean offHeapCompression)
+   {
+      this.offHeapCompression = offHeapCompression;
+   }
+
+   public long getOffHeapMaxSize()
+   {
+      return offHeapMaxSize;
+   }
+
+   /**
+    * Sets the max size in bytes of the off-heap store, which is created when
+    * the first record is stored off-heap; records are kept on the heap when
+    * the store is full.
+    */
+   public synchronized void setOffHeapMaxSize(long offHeapMaxSize)
+   {
+      this.offHeapMaxSize = offHeapMaxSize;
+   }
+
+   public int getOffHeapBlockSize()
+   {
+      return offHeapBlockSize;
    }
 
-   private Map<String, List<Record>> getRecentRecords()
+   /**
+    * Sets the size in bytes of the blocks of the off-heap store, which takes
+    * effect when the store is created; each stored envelope or header set
+    * wastes the unused part of its last block, so the block size should be
+    * close to the typical size of the (compressed) records.
+    */
+   public synchronized void setOffHeapBlockSize(int offHeapBlockSize)
    {
-      synchronized (recentRecords)
+      if (offHeapBlockSize <= 0)
       {
-         return new HashMap<String, List<Record>>(recentRecords);
+         throw new IllegalArgumentException("Invalid block size: " + offHeapBlockSize);
       }
+      this.offHeapBlockSize = offHeapBlockSize;
+   }
+
+   public synchronized long getOffHeapUsedSize()
+   {
+      return offHeapStore != null ? offHeapStore.getUsedSize() : 0;
+   }
+
+   public synchronized long getOffHeapAllocatedSize()
+   {
+      return offHeapStore != null ? offHeapStore.getAllocatedSize() : 0;
    }
 
    public Set<String> getClientHosts()
    {
-      Map<String, List<Record>> map = this.getRecentRecords();
-      Set<String> hosts = new HashSet<String>();
-      for (List<Record> list : map.values())
-      {
-         for (Record record : list)
-         {
-            if (MessageType.INBOUND.equals(record.getMessageType()) && record.getSourceHost() != null)
-            {
-               hosts.add(record.getSourceHost());
-            }
-         }
-      }
-      return hosts;
+      return new HashSet<String>(buffer.getSourceHosts());
    }
 
    public Map<String, List<Record>> getMatchingRecords(RecordFilter[] filters)
    {
-      Map<String, List<Record>> map = this.getRecentRecords();
-      Map<String, List<Record>> result = new HashMap<String, List<Record>>();
-      for (List<Record> list : map.values())
+      Map<String, List<Record>> result = new LinkedHashMap<String, List<Record>>();
+      RecordFilter filter = RecordFilterCompiler.compile(filters != null ? Arrays.asList(filters) : null);
+      RecordRingBuffer b = buffer;
+      b.beginRead();
+      try
       {
-         for (Record record : list)
+         for (RecordGroup group : b.snapshot())
          {
-            boolean match = true;
-            for (int i = 0; i < filters.length && match; i++)
+            for (Record record : group.getRecords())
             {
-               match = match && filters[i].match(record);
-            }
-            if (match)
-            {
-               result.put(record.getGroupID(), list);
-               break;
+               if (filter.match(record))
+               {
+                  result.put(group.getGroupID(), group.toList());
+                  break;
+               }
             }
          }
       }
+      finally
+      {
+         b.endRead();
+      }
       return result;
    }
 
    public Map<String, List<Record>> getRecordsByClientHost(String clientHost)
    {
-      RecordFilter[] filters = new RecordFilter[1];
-      filters[0] = new HostFilter(clientHost, true);
-      return this.getMatchingRecords(filters);
+      return toMap(buffer.getBySourceHost(clientHost));
    }
    
    public String getRecordsByClientHostAsHTMLTable(boolean groupRecords, boolean showDetails, String clientHost)
    {
-      return toHtml(groupRecords, showDetails, this.getRecordsByClientHost(clientHost));
+      RecordRingBuffer b = buffer;
+      b.beginRead();
+      try
+      {
+         return toHtml(RecordRenderer.newHtmlRenderer(groupRecords, showDetails), b.getBySourceHost(clientHost), 0, -1);
+      }
+      finally
+      {
+         b.endRead();
+      }
    }
 
    public Map<String, List<Record>> getRecordsByOperation(String namespace, String localPart)
    {
-      RecordFilter[] filters = new RecordFilter[1];
-      filters[0] = new OperationFilter(new QName(namespace, localPart));
-      return this.getMatchingRecords(filters);
+      return toMap(buffer.getByOperation(new QName(namespace, localPart)));
+   }
+
+   public Map<String, List<Record>> getRecordsByDate(Date from, Date to)
+   {
+      return toMap(buffer.getByDate(from != null ? from.getTime() : Long.MIN_VALUE, to != null ? to.getTime() : Long.MAX_VALUE));
+   }
+
+   private static Map<String, List<Record>> toMap(List<RecordGroup> groups)
+   {
+      Map<String, List<Record>> result = new LinkedHashMap<String, List<Record>>();
+      for (RecordGroup group : groups)
+      {
+         result.put(group.getGroupID(), group.toList());
+      }
+      return result;
    }
    
    public String getRecordsByOperationAsHTMLTable(boolean groupRecords, boolean showDetails, String namespace, String localPart)
    {
-      return toHtml(groupRecords, showDetails, this.getRecordsByOperation(namespace, localPart));
+      RecordRingBuffer b = buffer;
+      b.beginRead();
+      try
+      {
+         return toHtml(RecordRenderer.newHtmlRenderer(groupRecords, showDetails),
+               b.getByOperation(new QName(namespace, localPart)), 0, -1);
+      }
+      finally
+      {
+         b.endRead();
+      }
    }
 
    public int getMaxSize()
    {
-      return maxSize;
+      return buffer.getCapacity();
    }
 
-   public void setMaxSize(int maxSize)
+   public synchronized void setMaxSize(int maxSize)
    {
-      synchronized (recentRecords)
+      if (maxSize != buffer.getCapacity())
       {
-         while (maxSize < size)
-         {
-            this.deleteOldestRecord();
-         }
-         this.maxSize = maxSize;
+         buffer = buffer.copy(maxSize);
       }
    }
 
    public int getSize()
    {
-      return size;
+      return buffer.size();
    }
    
    public String getRecordsAsHTMLTable(boolean groupRecords, boolean showDetails)
    {
-      Map<String,List<Record>> records = this.getRecentRecords();
-      return toHtml(groupRecords, showDetails, records);
+      return getRecordsAsHTMLTable(groupRecords, showDetails, 0, -1);
    }
    
-   private String toHtml(boolean groupRecords, boolean showDetails, Map<String, List<Record>> records)
+   public String getRecordsAsHTMLTable(boolean groupRecords, boolean showDetails, int offset, int limit)
    {
-      StringBuilder sb = new StringBuilder();
-      sb.append("</pre></span>");
-      if (!groupRecords)
-         openTable(sb, showDetails);
-      for (Entry<String, List<Record>> e : records.entrySet()) {
-         if (groupRecords)
-            openTable(sb, showDetails);
-         for (Record record : e.getValue())
-         {
-            appendRecordRow(sb, record, showDetails);
-         }
-         if (groupRecords)
-            closeTable(sb);
+      RecordRingBuffer b = buffer;
+      b.beginRead();
+      try
+      {
+         return toHtml(RecordRenderer.newHtmlRenderer(groupRecords, showDetails), b.snapshot(), offset, limit);
+      }
+      finally
+      {
+         b.endRead();
       }
-      if (!groupRecords)
-         closeTable(sb);
-      sb.append("<pre><span class='OpResult'>");
-      return sb.toString();
    }
-   
-   private void openTable(StringBuilder sb, boolean showDetails)
+
+   public String getRecordsAsJSON(boolean showDetails, int offset, int limit)
+   {
+      StringWriter writer = new StringWriter();
+      try
+      {
+         writeRecords(RecordRenderer.newJsonRenderer(showDetails), writer, offset, limit);
+      }
+      catch (IOException e)
+      {
+         //never thrown by a StringWriter
+         throw new IllegalStateException(e);
+      }
+      return writer.toString();
+   }
+
+   /**
+    * Renders a page of the buffered record groups, from the oldest to the most recent one.
+    * Only the groups of the requested page are visited, so the memory needed for
+    * rendering is bounded by the page size.
+    * 
+    * @param renderer  the renderer
+    * @param writer    the target writer
+    * @param offset    the number of groups to skip
+    * @param limit     the max number of groups to render, a negative value meaning no limit
+    * @return the number of rendered groups
+    * @throws IOException
+    */
+   public int writeRecords(RecordRenderer renderer, Writer writer, int offset, int limit) throws IOException
    {
-      sb.append("<table border='1'><tr class='AttributesHeader'><th>Group ID</th><th>Type</th><th>Date</th><th>From</th><th>To</th><th>Operation</th>");
-      if (showDetails)
-         sb.append("<th>Headers</th><th>Envelope</th>");
-      sb.append("</tr><tr>");
+      return buffer.render(renderer, writer, offset, limit);
    }
-   
-   private void closeTable(StringBuilder sb)
+
+   /**
+    * Same as {@link #writeRecords(RecordRenderer, Writer, int, int)}, encoding the output
+    * as UTF-8; the stream is flushed but not closed.
+    */
+   public int writeRecords(RecordRenderer renderer, OutputStream out, int offset, int limit) throws IOException
    {
-      sb.append("</tr></table><br />");
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      int count = writeRecords(renderer, writer, offset, limit);
+      writer.flush();
+      return count;
    }
-   
-   private void appendRecordRow(StringBuilder sb, Record record, boolean showDetails) {
-      sb.append("<tr><td><pre>");
-      sb.append(record.getGroupID() != null ? record.getGroupID() : "[Not available]");
-      sb.append("</pre></td>");
-      sb.append("<td><pre>");
-      sb.append(record.getMessageType() != null ? record.getMessageType() : "[Not available]");
-      sb.append("</pre></td>");
-      sb.append("<td><pre>");
-      sb.append(record.getDate() != null ? record.getDate() : "[Not available]");
-      sb.append("</pre></td>");
-      sb.append("<td><pre>");
-      sb.append(record.getSourceHost() != null ? record.getSourceHost() : "[Not available]");
-      sb.append("</pre></td>");
-      sb.append("<td><pre>");
-      sb.append(record.getDestinationHost() != null ? record.getDestinationHost() : "[Not available]");
-      sb.append("</pre></td>");
-      sb.append("<td><pre>");
-      sb.append(record.getOperation() != null ? record.getOperation() : "[Not available]");
-      sb.append("</pre></td>");
-      if (showDetails)
+
+   private static String toHtml(RecordRenderer renderer, List<RecordGroup> groups, int offset, int limit)
+   {
+      StringWriter writer = new StringWriter();
+      writer.write("</pre></span>");
+      try
       {
-         sb.append("<td><pre>");
-         if (record.getHeaders() != null)
-         {
-            for (String headerName : record.getHeaders().keySet())
-            {
-               sb.append(headerName);
-               sb.append(": ");
-               sb.append(record.getHeaders().get(headerName));
-               sb.append("<br />");
-            }
-         }
-         else
-            sb.append("[Not available]");
-         sb.append("</pre></td>");
-         sb.append("<td><pre>");
-         sb.append(record.getEnvelope() != null ? record.getEnvelope().replaceAll("<", "&lt;").replaceAll(">", "&gt;") : "[Not available]");
-         sb.append("</pre></td>");
+         RecordRingBuffer.render(groups, renderer, writer, offset, limit);
+      }
+      catch (IOException e)
+      {
+         //never thrown by a StringWriter
+         throw new IllegalStateException(e);
       }
-      sb.append("</tr>");
+      writer.write("<pre><span class='OpResult'>");
+      return writer.toString();
    }
    
    @Override
    public Object clone() throws CloneNotSupportedException
    {
       MemoryBufferRecorder cl = (MemoryBufferRecorder)super.clone();
-      cl.recentRecords = Collections.synchronizedMap(new HashMap<String, List<Record>>());
-      synchronized (this.recentRecords)
-      {
-         for (String key : this.recentRecords.keySet())
-         {
-            List<Record> list = new LinkedList<Record>();
-            for (Record record : this.recentRecords.get(key))
-            {
-               list.add(record);
-            }
-            cl.recentRecords.put(key, list);
-         }
-         cl.recentRecordGroups = new ConcurrentLinkedQueue<String>();
-         for (String id : this.recentRecordGroups)
-         {
-            cl.recentRecordGroups.add(id);
-         }
-      }
-      cl.maxSize = this.maxSize;
-      cl.size = this.size;
+      cl.buffer = this.buffer.detachedCopy();
+      cl.offHeapStore = null;
       return cl;
    }
 }
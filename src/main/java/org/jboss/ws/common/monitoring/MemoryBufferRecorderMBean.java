@@ -18,6 +18,7 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,7 +36,10 @@ public interface MemoryBufferRecorderMBean extends ManagedRecordProcessorMBean
 {
    /**
     * Gets the records matching the provided filters. Records having the
-    * same group ID are returned together.
+    * same group ID are returned together. Records coming after their group
+    * has been evicted from the buffer (e.g. the outbound record of a long
+    * running exchange) are dropped rather than returned as a group on their
+    * own, unless more than max size groups have been evicted meanwhile.
     * 
     * @param filters
     * @return The matching records as a map GroupID->List<Record>
@@ -44,7 +48,8 @@ public interface MemoryBufferRecorderMBean extends ManagedRecordProcessorMBean
 
    /**
     * Gets the records with the given operation. Records having the
-    * same group ID are returned together.
+    * same group ID are returned together; late records of evicted groups
+    * are dropped as explained in {@link #getMatchingRecords(RecordFilter[])}.
     * 
     * @param namespace
     * @param localPart
@@ -54,13 +59,24 @@ public interface MemoryBufferRecorderMBean extends ManagedRecordProcessorMBean
 
    /**
     * Gets the records with the given client host. Records having the
-    * same group ID are returned together.
+    * same group ID are returned together; late records of evicted groups
+    * are dropped as explained in {@link #getMatchingRecords(RecordFilter[])}.
     * 
     * @param clientHost
     * @return The matching records as a map GroupID->List<Record>
     */
    public Map<String, List<Record>> getRecordsByClientHost(String clientHost);
 
+   /**
+    * Gets the records whose group started in the given time range. Records
+    * having the same group ID are returned together.
+    * 
+    * @param from  the range start (inclusive), or null
+    * @param to    the range end (inclusive), or null
+    * @return The matching records as a map GroupID->List<Record>
+    */
+   public Map<String, List<Record>> getRecordsByDate(Date from, Date to);
+
    /**
     * Gets a set containing the client hosts of the last saved records.
     * 
@@ -82,6 +98,35 @@ public interface MemoryBufferRecorderMBean extends ManagedRecordProcessorMBean
     * @return
     */
    public int getSize();
+
+   /**
+    * Whether the envelope and headers of the records are stored off-heap
+    */
+   public boolean isOffHeap();
+
+   public void setOffHeap(boolean offHeap);
+
+   public boolean isOffHeapCompression();
+
+   public void setOffHeapCompression(boolean offHeapCompression);
+
+   public long getOffHeapMaxSize();
+
+   public void setOffHeapMaxSize(long offHeapMaxSize);
+
+   public int getOffHeapBlockSize();
+
+   public void setOffHeapBlockSize(int offHeapBlockSize);
+
+   /**
+    * Gets the number of off-heap bytes currently taken by records
+    */
+   public long getOffHeapUsedSize();
+
+   /**
+    * Gets the number of bytes currently allocated off-heap
+    */
+   public long getOffHeapAllocatedSize();
    
    /**
     * Shows all the records as a HTML table
@@ -91,6 +136,27 @@ public interface MemoryBufferRecorderMBean extends ManagedRecordProcessorMBean
     * @return
     */
    public String getRecordsAsHTMLTable(boolean groupRecords, boolean showDetails);
+
+   /**
+    * Shows a page of the records as a HTML table
+    * 
+    * @param groupRecords  whether the records should be grouped using the group ID
+    * @param showDetails   whether to show headers and envelopes
+    * @param offset        the number of record groups to skip
+    * @param limit         the max number of record groups to show (negative for no limit)
+    * @return
+    */
+   public String getRecordsAsHTMLTable(boolean groupRecords, boolean showDetails, int offset, int limit);
+
+   /**
+    * Shows a page of the records as a JSON array of record groups
+    * 
+    * @param showDetails   whether to include headers and envelopes
+    * @param offset        the number of record groups to skip
+    * @param limit         the max number of record groups to show (negative for no limit)
+    * @return
+    */
+   public String getRecordsAsJSON(boolean showDetails, int offset, int limit);
    
    /**
     * Shows the records with the given client host as a HTML table.
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A store of byte payloads kept outside the Java heap, in direct byte buffer
+ * slabs. Slabs are split into fixed size blocks; a payload takes as many
+ * (not necessarily contiguous) blocks as needed and gives them back to the
+ * store when explicitly freed. Slabs are allocated lazily, up to the store
+ * max size, and are then reused. The block size trades the space wasted in
+ * the last block of each payload against the per-block overhead: it should
+ * be close to the typical size of the stored payloads.
+ * 
+ * @since 18-Oct-2026
+ */
+final class OffHeapStore
+{
+   static final int DEFAULT_BLOCK_SIZE = 256;
+   private static final int BLOCKS_PER_SLAB = 1024;
+
+   private final int blockSize;
+   private final int maxSlabs;
+   //copied on growth, so that blocks are read without locking
+   private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+   private int[] freeBlocks = new int[BLOCKS_PER_SLAB];
+   private int freeCount;
+
+   /**
+    * @param maxSize  the max number of bytes of the store
+    */
+   OffHeapStore(long maxSize)
+   {
+      this(maxSize, DEFAULT_BLOCK_SIZE);
+   }
+
+   /**
+    * @param maxSize    the max number of bytes of the store
+    * @param blockSize  the number of bytes of each block
+    */
+   OffHeapStore(long maxSize, int blockSize)
+   {
+      if (blockSize <= 0 || blockSize > Integer.MAX_VALUE / BLOCKS_PER_SLAB)
+      {
+         throw new IllegalArgumentException("Invalid block size: " + blockSize);
+      }
+      this.blockSize = blockSize;
+      this.maxSlabs = (int)Math.min(Integer.MAX_VALUE / BLOCKS_PER_SLAB, Math.max(1, maxSize / ((long)blockSize * BLOCKS_PER_SLAB)));
+   }
+
+   /**
+    * Gets the number of bytes of each block
+    */
+   int getBlockSize()
+   {
+      return blockSize;
+   }
+
+   /**
+    * Stores the given data
+    * 
+    * @param data      the data
+    * @param compress  whether to compress the data (which is stored as is if compression does not pay off)
+    * @return the stored payload, or null if the store is full
+    */
+   Payload store(byte[] data, boolean compress)
+   {
+      byte[] bytes = data;
+      boolean compressed = false;
+      if (compress && data.length > 64)
+      {
+         byte[] deflated = deflate(data);
+         if (deflated.length < data.length)
+         {
+            bytes = deflated;
+            compressed = true;
+         }
+      }
+      int[] blocks = allocate((bytes.length + blockSize - 1) / blockSize);
+      if (blocks == null)
+      {
+         return null;
+      }
+      for (int i = 0, offset = 0; i < blocks.length; i++, offset += blockSize)
+      {
+         ByteBuffer block = block(blocks[i]);
+         block.put(bytes, offset, Math.min(blockSize, bytes.length - offset));
+      }
+      return new Payload(this, blocks, bytes.length, compressed ? data.length : -1);
+   }
+
+   private synchronized int[] allocate(int count)
+   {
+      while (freeCount < count && slabs.length < maxSlabs)
+      {
+         int slab = slabs.length;
+         ByteBuffer[] grown = Arrays.copyOf(slabs, slab + 1);
+         grown[slab] = ByteBuffer.allocateDirect(blockSize * BLOCKS_PER_SLAB);
+         slabs = grown;
+         ensureFreeCapacity(freeCount + BLOCKS_PER_SLAB);
+         //push in reverse order, so that blocks are handed out from the slab start
+         for (int i = BLOCKS_PER_SLAB - 1; i >= 0; i--)
+         {
+            freeBlocks[freeCount++] = slab * BLOCKS_PER_SLAB + i;
+         }
+      }
+      if (freeCount < count)
+      {
+         return null;
+      }
+      int[] blocks = new int[count];
+      for (int i = 0; i < count; i++)
+      {
+         blocks[i] = freeBlocks[--freeCount];
+      }
+      return blocks;
+   }
+
+   private synchronized void release(int[] blocks)
+   {
+      ensureFreeCapacity(freeCount + blocks.length);
+      for (int i = blocks.length - 1; i >= 0; i--)
+      {
+         freeBlocks[freeCount++] = blocks[i];
+      }
+   }
+
+   private void ensureFreeCapacity(int capacity)
+   {
+      if (freeBlocks.length < capacity)
+      {
+         int[] bigger = new int[Math.max(capacity, freeBlocks.length * 2)];
+         System.arraycopy(freeBlocks, 0, bigger, 0, freeCount);
+         freeBlocks = bigger;
+      }
+   }
+
+   //a view on the given block; views are independent, so blocks can be accessed concurrently
+   private ByteBuffer block(int index)
+   {
+      ByteBuffer block = slabs[index / BLOCKS_PER_SLAB].duplicate();
+      int offset = (index % BLOCKS_PER_SLAB) * blockSize;
+      block.limit(offset + blockSize);
+      block.position(offset);
+      return block;
+   }
+
+   /**
+    * Gets the number of bytes currently allocated off-heap
+    */
+   synchronized long getAllocatedSize()
+   {
+      return (long)slabs.length * BLOCKS_PER_SLAB * blockSize;
+   }
+
+   /**
+    * Gets the number of bytes currently taken by payloads (including the unused part of their last block)
+    */
+   synchronized long getUsedSize()
+   {
+      return ((long)slabs.length * BLOCKS_PER_SLAB - freeCount) * blockSize;
+   }
+
+   private static byte[] deflate(byte[] data)
+   {
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try
+      {
+         deflater.setInput(data);
+         deflater.finish();
+         ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+         byte[] buffer = new byte[4096];
+         while (!deflater.finished())
+         {
+            out.write(buffer, 0, deflater.deflate(buffer));
+         }
+         return out.toByteArray();
+      }
+      finally
+      {
+         deflater.end();
+      }
+   }
+
+   private static byte[] inflate(byte[] data, int size)
+   {
+      Inflater inflater = new Inflater();
+      try
+      {
+         inflater.setInput(data);
+         byte[] result = new byte[size];
+         int length = 0;
+         while (length < size && !inflater.finished())
+         {
+            length += inflater.inflate(result, length, size - length);
+         }
+         return result;
+      }
+      catch (DataFormatException e)
+      {
+         throw new IllegalStateException(e);
+      }
+      finally
+      {
+         inflater.end();
+      }
+   }
+
+   /**
+    * A payload stored off-heap; once freed, its content is not available anymore.
+    * The content of a compressed payload is softly cached once inflated, so
+    * that records read repeatedly are not inflated at each read.
+    */
+   static final class Payload
+   {
+      private final OffHeapStore store;
+      private final int[] blocks;
+      private final int length;
+      //the uncompressed length, or -1 if not compressed
+      private final int uncompressedLength;
+      private boolean freed;
+      private SoftReference<byte[]> inflated;
+
+      private Payload(OffHeapStore store, int[] blocks, int length, int uncompressedLength)
+      {
+         this.store = store;
+         this.blocks = blocks;
+         this.length = length;
+         this.uncompressedLength = uncompressedLength;
+      }
+
+      /**
+       * Reads the payload content; the returned array might be shared with
+       * other readers and must not be modified.
+       * 
+       * @return the content, or null if the payload has been freed
+       */
+      synchronized byte[] read()
+      {
+         if (freed)
+         {
+            return null;
+         }
+         byte[] cached = inflated != null ? inflated.get() : null;
+         if (cached != null)
+         {
+            return cached;
+         }
+         byte[] bytes = new byte[length];
+         final int blockSize = store.blockSize;
+         for (int i = 0, offset = 0; i < blocks.length; i++, offset += blockSize)
+         {
+            store.block(blocks[i]).get(bytes, offset, Math.min(blockSize, length - offset));
+         }
+         if (uncompressedLength < 0)
+         {
+            return bytes;
+         }
+         byte[] result = inflate(bytes, uncompressedLength);
+         inflated = new SoftReference<byte[]>(result);
+         return result;
+      }
+
+      /**
+       * Gives the payload blocks back to the store; this is a no-op if the payload has already been freed.
+       */
+      synchronized void free()
+      {
+         if (!freed)
+         {
+            freed = true;
+            inflated = null;
+            store.release(blocks);
+         }
+      }
+   }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+
+/**
+ * Binary encoding of records used by the {@link FileRecorder}.
+ * 
+ * A record is written as a version byte followed by the date (epoch millis),
+ * the message type ordinal, the group ID, the source and destination hosts,
+ * the operation namespace and local part, the headers and the envelope.
+ * Strings are written as their UTF-8 length followed by the bytes, with -1
+ * standing for null.
+ * 
+ * Instances are not thread safe, the encoding buffer is reused; concurrent
+ * encoders borrow instances from a small shared pool through
+ * {@link #acquire()} and {@link #release(RecordCodec)}.
+ * 
+ * @since 18-Oct-2026
+ */
+final class RecordCodec
+{
+   static final byte VERSION = 1;
+   private static final long NO_DATE = Long.MIN_VALUE;
+
+   //codecs grown past this size are not pooled, not to retain the buffer of a huge envelope
+   private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+   private static final BlockingQueue<RecordCodec> pool = new ArrayBlockingQueue<RecordCodec>(
+         Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
+   private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+   /**
+    * Gets a codec from the pool, or a new one if the pool is empty
+    */
+   static RecordCodec acquire()
+   {
+      RecordCodec codec = pool.poll();
+      return codec != null ? codec : new RecordCodec();
+   }
+
+   /**
+    * Gives the codec back to the pool; the buffer returned by its last encode
+    * call must not be used anymore.
+    * 
+    * @param codec
+    */
+   static void release(RecordCodec codec)
+   {
+      if (codec.buffer.capacity() <= MAX_POOLED_CAPACITY)
+      {
+         pool.offer(codec);
+      }
+   }
+
+   /**
+    * Encodes the record, including the fields the processor is configured to process
+    * 
+    * @param record
+    * @param processor
+    * @return the buffer holding the encoded record, flipped for reading
+    */
+   ByteBuffer encode(Record record, AbstractRecordProcessor processor)
+   {
+      buffer.clear();
+      ensure(1 + 8 + 1);
+      buffer.put(VERSION);
+      Date date = processor.isProcessDate() ? record.getDate() : null;
+      buffer.putLong(date != null ? date.getTime() : NO_DATE);
+      MessageType type = processor.isProcessMessageType() ? record.getMessageType() : null;
+      buffer.put(type != null ? (byte)type.ordinal() : -1);
+      putString(record.getGroupID());
+      putString(processor.isProcessSourceHost() ? record.getSourceHost() : null);
+      putString(processor.isProcessDestinationHost() ? record.getDestinationHost() : null);
+      QName operation = processor.isProcessOperation() ? record.getOperation() : null;
+      putString(operation != null ? operation.getNamespaceURI() : null);
+      putString(operation != null ? operation.getLocalPart() : null);
+      putHeaders(processor.isProcessHeaders() ? record.getHeaders() : null);
+      putString(processor.isProcessEnvelope() ? record.getEnvelope() : null);
+      buffer.flip();
+      return buffer;
+   }
+
+   /**
+    * Encodes the provided headers on their own
+    * 
+    * @param headers
+    * @return the encoded headers
+    */
+   byte[] encodeHeaders(Map<String, List<String>> headers)
+   {
+      buffer.clear();
+      putHeaders(headers);
+      byte[] bytes = new byte[buffer.position()];
+      buffer.flip();
+      buffer.get(bytes);
+      return bytes;
+   }
+
+   private void putHeaders(Map<String, List<String>> headers)
+   {
+      if (headers == null)
+      {
+         putInt(-1);
+      }
+      else
+      {
+         //the entries are counted while written, as the map might be a live view being modified
+         final int countPosition = buffer.position();
+         putInt(0);
+         int count = 0;
+         for (Entry<String, List<String>> e : headers.entrySet())
+         {
+            count++;
+            putString(e.getKey());
+            List<String> values = e.getValue();
+            if (values == null)
+            {
+               putInt(-1);
+            }
+            else
+            {
+               putInt(values.size());
+               for (String value : values)
+               {
+                  putString(value);
+               }
+            }
+         }
+         buffer.putInt(countPosition, count);
+      }
+   }
+
+   private void ensure(int bytes)
+   {
+      if (buffer.remaining() < bytes)
+      {
+         ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+         buffer.flip();
+         bigger.put(buffer);
+         buffer = bigger;
+      }
+   }
+
+   private void putInt(int value)
+   {
+      ensure(4);
+      buffer.putInt(value);
+   }
+
+   private void putString(String value)
+   {
+      if (value == null)
+      {
+         putInt(-1);
+      }
+      else
+      {
+         byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+         ensure(4 + bytes.length);
+         buffer.putInt(bytes.length);
+         buffer.put(bytes);
+      }
+   }
+
+   /**
+    * Decodes a record from the current position of the provided buffer
+    */
+   static Record decode(ByteBuffer in)
+   {
+      final byte version = in.get();
+      if (version != VERSION)
+      {
+         throw new IllegalStateException("Unsupported record version: " + version);
+      }
+      final long date = in.getLong();
+      final byte type = in.get();
+      Record record = RecordFactory.newRecord(getString(in));
+      if (date != NO_DATE)
+      {
+         record.setDate(new Date(date));
+      }
+      if (type >= 0)
+      {
+         record.setMessageType(MessageType.values()[type]);
+      }
+      record.setSourceHost(getString(in));
+      record.setDestinationHost(getString(in));
+      String namespace = getString(in);
+      String localPart = getString(in);
+      if (localPart != null)
+      {
+         record.setOperation(new QName(namespace, localPart));
+      }
+      int headers = in.getInt();
+      for (int i = 0; i < headers; i++)
+      {
+         String key = getString(in);
+         record.addHeaders(key, getValues(in));
+      }
+      record.setEnvelope(getString(in));
+      return record;
+   }
+
+   /**
+    * Decodes headers encoded by {@link #encodeHeaders(Map)}
+    */
+   static Map<String, List<String>> decodeHeaders(ByteBuffer in)
+   {
+      int count = in.getInt();
+      if (count < 0)
+      {
+         return null;
+      }
+      Map<String, List<String>> headers = new HashMap<String, List<String>>();
+      for (int i = 0; i < count; i++)
+      {
+         String key = getString(in);
+         headers.put(key, getValues(in));
+      }
+      return headers;
+   }
+
+   private static List<String> getValues(ByteBuffer in)
+   {
+      int count = in.getInt();
+      List<String> values = null;
+      if (count >= 0)
+      {
+         values = new ArrayList<String>(count);
+         for (int j = 0; j < count; j++)
+         {
+            values.add(getString(in));
+         }
+      }
+      return values;
+   }
+
+   private static String getString(ByteBuffer in)
+   {
+      final int length = in.getInt();
+      if (length < 0)
+      {
+         return null;
+      }
+      final String value;
+      if (in.hasArray())
+      {
+         value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+         in.position(in.position() + length);
+      }
+      else
+      {
+         byte[] bytes = new byte[length];
+         in.get(bytes);
+         value = new String(bytes, StandardCharsets.UTF_8);
+      }
+      return value;
+   }
+}
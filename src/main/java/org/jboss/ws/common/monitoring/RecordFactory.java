@@ -18,6 +18,10 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
 import org.jboss.ws.api.monitoring.Record;
 
 /**
@@ -28,20 +32,20 @@ import org.jboss.ws.api.monitoring.Record;
  */
 public class RecordFactory
 {
-   private static long count = 0;
+   //identifies this node and start, so that group IDs are unique across a cluster and its restarts
+   private static final String NODE_PREFIX = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX)
+         + Integer.toString(new Random().nextInt() & Integer.MAX_VALUE, Character.MAX_RADIX);
+   private static final GroupIDSequence sequence = new GroupIDSequence(NODE_PREFIX);
    
+   /**
+    * Gets a new group ID from a fixed set of striped counters, so that
+    * no lock is involved and concurrent threads rarely share a counter.
+    * 
+    * @return
+    */
    public static String newGroupID()
    {
-      long time = System.currentTimeMillis();
-      StringBuilder sb = new StringBuilder();
-      synchronized (RecordFactory.class)
-      {
-         count++;
-         sb.append(count);
-      }
-      sb.append("-");
-      sb.append(time);
-      return sb.toString();
+      return sequence.next();
    }
    
    public static Record newRecord(String groupID)
@@ -55,4 +59,81 @@ public class RecordFactory
    {
       return newRecord(newGroupID());
    }
+
+   /**
+    * Group IDs made of the node prefix, a stripe number and the stripe counter value.
+    * A thread starts from the stripe its ID hashes to and moves to a random
+    * stripe when it loses a CAS, like the LongAdder cells; the only per-thread
+    * state is a small buffer the IDs are formatted in, which goes away with
+    * its thread.
+    */
+   private static final class GroupIDSequence
+   {
+      //one counter per cache line
+      private static final int PADDING = 8;
+      //the max number of base 36 digits of a long
+      private static final int MAX_DIGITS = 13;
+
+      private final int mask;
+      private final char[][] prefixes;
+      private final AtomicLongArray counters;
+      private final ThreadLocal<char[]> buffers;
+
+      GroupIDSequence(String nodePrefix)
+      {
+         int stripes = 1;
+         while (stripes < 2 * Runtime.getRuntime().availableProcessors())
+         {
+            stripes <<= 1;
+         }
+         this.mask = stripes - 1;
+         this.prefixes = new char[stripes][];
+         for (int i = 0; i < stripes; i++)
+         {
+            prefixes[i] = (nodePrefix + "-" + Integer.toString(i, Character.MAX_RADIX) + "-").toCharArray();
+         }
+         this.counters = new AtomicLongArray(stripes * PADDING);
+         final int bufferSize = prefixes[mask].length + MAX_DIGITS;
+         this.buffers = new ThreadLocal<char[]>() {
+            @Override
+            protected char[] initialValue()
+            {
+               return new char[bufferSize];
+            }
+         };
+      }
+
+      String next()
+      {
+         long id = Thread.currentThread().getId();
+         int stripe = (int)(id ^ (id >>> 16)) * 0x9E3779B9 >>> 16 & mask;
+         while (true)
+         {
+            final int index = stripe * PADDING;
+            final long value = counters.get(index);
+            if (counters.compareAndSet(index, value, value + 1))
+            {
+               return format(prefixes[stripe], value);
+            }
+            stripe = ThreadLocalRandom.current().nextInt() & mask;
+         }
+      }
+
+      private String format(char[] prefix, long value)
+      {
+         final char[] buffer = buffers.get();
+         System.arraycopy(prefix, 0, buffer, 0, prefix.length);
+         //write the digits backwards at the end of the buffer, then move them after the prefix
+         int start = buffer.length;
+         do
+         {
+            buffer[--start] = Character.forDigit((int)(value % Character.MAX_RADIX), Character.MAX_RADIX);
+            value /= Character.MAX_RADIX;
+         }
+         while (value > 0);
+         final int digits = buffer.length - start;
+         System.arraycopy(buffer, start, buffer, prefix.length, digits);
+         return new String(buffer, 0, prefix.length + digits);
+      }
+   }
 }
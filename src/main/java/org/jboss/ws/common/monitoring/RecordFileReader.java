@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * Streams back the records written by a {@link FileRecorder}, oldest first,
+ * returning only those matching the provided filters. Segments are mapped
+ * one at a time, so memory usage does not depend on the amount of records
+ * on disk.
+ * 
+ * @since 18-Oct-2026
+ */
+public class RecordFileReader implements Closeable
+{
+   private final File directory;
+   private final String filePrefix;
+   private final RecordFilter filter;
+   private final long[] segments;
+   private int nextSegment;
+   private MappedByteBuffer segment;
+
+   public RecordFileReader(File directory, String filePrefix, RecordFilter... filters)
+   {
+      this.directory = directory;
+      this.filePrefix = filePrefix;
+      this.filter = RecordFilterCompiler.compile(filters != null ? Arrays.asList(filters) : null);
+      this.segments = FileRecorder.listSegments(directory, filePrefix);
+   }
+
+   /**
+    * Gets the next matching record
+    * 
+    * @return the record, or null when there are no more records
+    * @throws IOException
+    */
+   public Record next() throws IOException
+   {
+      while (true)
+      {
+         if (segment == null || !hasRecord(segment))
+         {
+            if (!openNextSegment())
+            {
+               return null;
+            }
+            continue;
+         }
+         final int length = segment.getInt();
+         final int end = segment.position() + length;
+         Record record = RecordCodec.decode(segment);
+         segment.position(end);
+         if (matches(record))
+         {
+            return record;
+         }
+      }
+   }
+
+   private static boolean hasRecord(MappedByteBuffer segment)
+   {
+      if (segment.remaining() < 4)
+      {
+         return false;
+      }
+      final int length = segment.getInt(segment.position());
+      return length > 0 && length <= segment.remaining() - 4;
+   }
+
+   private boolean openNextSegment() throws IOException
+   {
+      segment = null;
+      while (nextSegment < segments.length)
+      {
+         File file = FileRecorder.segmentFile(directory, filePrefix, segments[nextSegment++]);
+         if (file.exists()) //might have been deleted in the meantime
+         {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try
+            {
+               segment = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+               return true;
+            }
+            finally
+            {
+               raf.close();
+            }
+         }
+      }
+      return false;
+   }
+
+   private boolean matches(Record record)
+   {
+      return filter.match(record);
+   }
+
+   public void close()
+   {
+      segment = null;
+      nextSegment = segments.length;
+   }
+}
@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * Compiles a set of record filters into a single predicate.
+ * 
+ * Trees of {@link AndFilter}, {@link OrFilter} and {@link NotFilter} are
+ * flattened, host lists of the {@link HostFilter}s are turned into hash sets
+ * (merging the host filters of the same disjunction) and the terms of each
+ * conjunction / disjunction are sorted so that the cheapest ones are evaluated
+ * first. Other filters, including subclasses of the known ones, are evaluated
+ * as they are, after the known ones.
+ * 
+ * Filters are assumed to be free of side effects, as the evaluation order
+ * changes; the compiled predicate is immutable and thread safe.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class RecordFilterCompiler
+{
+   private static final int OPERATION_COST = 1;
+   private static final int HOST_COST = 2;
+   private static final int CUSTOM_COST = 10;
+
+   private RecordFilterCompiler()
+   {
+   }
+
+   /**
+    * Compiles the provided filters, which all have to match
+    * 
+    * @param filters  the filters, possibly null
+    * @return a filter matching the records matched by all the provided filters
+    */
+   public static RecordFilter compile(Collection<RecordFilter> filters)
+   {
+      List<Predicate> terms = new ArrayList<Predicate>();
+      if (filters != null)
+      {
+         for (RecordFilter filter : filters)
+         {
+            addAll(terms, filter);
+         }
+      }
+      return all(terms);
+   }
+
+   //subclasses of the known filters might override match(), so they're evaluated as custom filters
+   private static Predicate compile(RecordFilter filter)
+   {
+      if (filter instanceof Predicate)
+      {
+         return (Predicate)filter;
+      }
+      if (filter.getClass() == AndFilter.class)
+      {
+         List<Predicate> terms = new ArrayList<Predicate>();
+         addAll(terms, filter);
+         return all(terms);
+      }
+      if (filter.getClass() == OrFilter.class)
+      {
+         List<Predicate> terms = new ArrayList<Predicate>();
+         addAny(terms, filter);
+         return any(terms);
+      }
+      if (filter.getClass() == NotFilter.class)
+      {
+         Predicate inner = compile(((NotFilter)filter).getFilter());
+         return inner instanceof Not ? ((Not)inner).predicate : new Not(inner);
+      }
+      if (filter.getClass() == HostFilter.class)
+      {
+         HostFilter hostFilter = (HostFilter)filter;
+         return new HostMatch(hostFilter.getHosts(), hostFilter.isSource());
+      }
+      if (filter.getClass() == OperationFilter.class)
+      {
+         return new OperationMatch(((OperationFilter)filter).getOperation());
+      }
+      return new Custom(filter);
+   }
+
+   private static void addAll(List<Predicate> terms, RecordFilter filter)
+   {
+      if (filter.getClass() == AndFilter.class)
+      {
+         addAll(terms, ((AndFilter)filter).getFilter1());
+         addAll(terms, ((AndFilter)filter).getFilter2());
+      }
+      else
+      {
+         Predicate predicate = compile(filter);
+         if (predicate instanceof All)
+         {
+            Collections.addAll(terms, ((All)predicate).terms);
+         }
+         else
+         {
+            terms.add(predicate);
+         }
+      }
+   }
+
+   private static void addAny(List<Predicate> terms, RecordFilter filter)
+   {
+      if (filter.getClass() == OrFilter.class)
+      {
+         addAny(terms, ((OrFilter)filter).getFilter1());
+         addAny(terms, ((OrFilter)filter).getFilter2());
+      }
+      else
+      {
+         Predicate predicate = compile(filter);
+         if (predicate instanceof Any)
+         {
+            Collections.addAll(terms, ((Any)predicate).terms);
+         }
+         else
+         {
+            terms.add(predicate);
+         }
+      }
+   }
+
+   private static Predicate all(List<Predicate> terms)
+   {
+      if (terms.size() == 1)
+      {
+         return terms.get(0);
+      }
+      Collections.sort(terms, COST_ORDER);
+      return new All(terms.toArray(new Predicate[terms.size()]));
+   }
+
+   private static Predicate any(List<Predicate> terms)
+   {
+      //merge the host matches on the same side
+      HostMatch[] hosts = new HostMatch[2];
+      List<Predicate> merged = new ArrayList<Predicate>(terms.size());
+      for (Predicate term : terms)
+      {
+         if (term instanceof HostMatch)
+         {
+            HostMatch match = (HostMatch)term;
+            int side = match.source ? 0 : 1;
+            if (hosts[side] == null)
+            {
+               hosts[side] = match;
+               merged.add(match);
+            }
+            else
+            {
+               HostMatch union = hosts[side].union(match);
+               merged.set(merged.indexOf(hosts[side]), union);
+               hosts[side] = union;
+            }
+         }
+         else
+         {
+            merged.add(term);
+         }
+      }
+      if (merged.size() == 1)
+      {
+         return merged.get(0);
+      }
+      Collections.sort(merged, COST_ORDER);
+      return new Any(merged.toArray(new Predicate[merged.size()]));
+   }
+
+   private static final Comparator<Predicate> COST_ORDER = new Comparator<Predicate>()
+   {
+      public int compare(Predicate p1, Predicate p2)
+      {
+         return p1.cost() - p2.cost();
+      }
+   };
+
+   /**
+    * A compiled filter
+    */
+   abstract static class Predicate implements RecordFilter
+   {
+      private static final long serialVersionUID = 1L;
+
+      abstract int cost();
+
+      @Override
+      public Object clone() throws CloneNotSupportedException
+      {
+         //immutable
+         return this;
+      }
+   }
+
+   private static final class All extends Predicate
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final Predicate[] terms;
+      private final int cost;
+
+      All(Predicate[] terms)
+      {
+         this.terms = terms;
+         int c = 0;
+         for (Predicate term : terms)
+         {
+            c += term.cost();
+         }
+         this.cost = c;
+      }
+
+      public boolean match(Record record)
+      {
+         for (int i = 0; i < terms.length; i++)
+         {
+            if (!terms[i].match(record))
+            {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      int cost()
+      {
+         return cost;
+      }
+   }
+
+   private static final class Any extends Predicate
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final Predicate[] terms;
+      private final int cost;
+
+      Any(Predicate[] terms)
+      {
+         this.terms = terms;
+         int c = 0;
+         for (Predicate term : terms)
+         {
+            c += term.cost();
+         }
+         this.cost = c;
+      }
+
+      public boolean match(Record record)
+      {
+         for (int i = 0; i < terms.length; i++)
+         {
+            if (terms[i].match(record))
+            {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      int cost()
+      {
+         return cost;
+      }
+   }
+
+   private static final class Not extends Predicate
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final Predicate predicate;
+
+      Not(Predicate predicate)
+      {
+         this.predicate = predicate;
+      }
+
+      public boolean match(Record record)
+      {
+         return !predicate.match(record);
+      }
+
+      int cost()
+      {
+         return predicate.cost();
+      }
+   }
+
+   /**
+    * Same as {@link HostFilter}, looking up the lower case host in a hash set
+    */
+   private static final class HostMatch extends Predicate
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final List<String> hosts;
+      private final Set<String> lowerCaseHosts;
+      private final boolean source;
+      //whether some host needs the exact (equalsIgnoreCase) comparison
+      private final boolean nonAscii;
+
+      HostMatch(List<String> hosts, boolean source)
+      {
+         this.hosts = hosts;
+         this.source = source;
+         this.lowerCaseHosts = new HashSet<String>();
+         boolean nonAscii = false;
+         for (String host : hosts)
+         {
+            if (host != null)
+            {
+               lowerCaseHosts.add(host.toLowerCase(Locale.ENGLISH));
+               nonAscii |= !isAscii(host);
+            }
+         }
+         this.nonAscii = nonAscii;
+      }
+
+      HostMatch union(HostMatch other)
+      {
+         List<String> all = new ArrayList<String>(hosts);
+         all.addAll(other.hosts);
+         return new HostMatch(all, source);
+      }
+
+      public boolean match(Record record)
+      {
+         final String host = source ? record.getSourceHost() : record.getDestinationHost();
+         if (host == null)
+         {
+            return false;
+         }
+         if (!nonAscii && isAscii(host))
+         {
+            return lowerCaseHosts.contains(host.toLowerCase(Locale.ENGLISH));
+         }
+         for (String h : hosts)
+         {
+            if (h != null && h.equalsIgnoreCase(host))
+            {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      private static boolean isAscii(String s)
+      {
+         for (int i = 0; i < s.length(); i++)
+         {
+            if (s.charAt(i) > 0x7F)
+            {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      int cost()
+      {
+         return HOST_COST;
+      }
+   }
+
+   /**
+    * Same as {@link OperationFilter}
+    */
+   private static final class OperationMatch extends Predicate
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final QName operation;
+
+      OperationMatch(QName operation)
+      {
+         this.operation = operation;
+      }
+
+      public boolean match(Record record)
+      {
+         if (record == null)
+         {
+            return true;
+         }
+         final QName op = record.getOperation();
+         return operation == null ? op == null : operation.equals(op);
+      }
+
+      int cost()
+      {
+         return OPERATION_COST;
+      }
+   }
+
+   private static final class Custom extends Predicate
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final RecordFilter filter;
+
+      Custom(RecordFilter filter)
+      {
+         this.filter = filter;
+      }
+
+      public boolean match(Record record)
+      {
+         return filter.match(record);
+      }
+
+      int cost()
+      {
+         return CUSTOM_COST;
+      }
+   }
+}
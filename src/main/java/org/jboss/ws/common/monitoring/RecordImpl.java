@@ -18,14 +18,29 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import javax.xml.namespace.QName;
 
 import org.jboss.ws.api.monitoring.Record;
+import org.w3c.dom.Node;
 
 /**
  * Default Record implementation
@@ -36,29 +51,132 @@ import org.jboss.ws.api.monitoring.Record;
 public class RecordImpl implements Record
 {
    private static final long serialVersionUID = -2421022916458208468L;
+   //the serialized form, which is kept independent of the compact in-memory layout
+   private static final ObjectStreamField[] serialPersistentFields = {
+         new ObjectStreamField("sourceHost", String.class),
+         new ObjectStreamField("destinationHost", String.class),
+         new ObjectStreamField("headers", Map.class),
+         new ObjectStreamField("messageType", MessageType.class),
+         new ObjectStreamField("operation", QName.class),
+         new ObjectStreamField("groupID", String.class),
+         new ObjectStreamField("date", Date.class),
+         new ObjectStreamField("timestamp", long.class),
+         new ObjectStreamField("envelope", String.class),
+         new ObjectStreamField("envelopeSize", long.class),
+         new ObjectStreamField("envelopeTruncated", boolean.class),
+         new ObjectStreamField("fault", boolean.class) };
+   /**
+    * The timestamp value meaning no date
+    */
+   public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+   private static final Object[] NO_HEADERS = new Object[0];
    
    private String sourceHost;
    private String destinationHost;
-   private Map<String, List<String>> headers = new HashMap<String, List<String>>();
+   //the headers as an immutable array of name / values pairs, replaced on change
+   private volatile Object[] headers = NO_HEADERS;
    private MessageType messageType;
    private QName operation;
    private String groupID;
-   private Date date;
+   //epoch nanoseconds
+   private long timestamp = NO_TIMESTAMP;
    private String envelope;
+   private long envelopeSize = -1;
+   private boolean envelopeTruncated;
+   private boolean fault;
+   private transient Node envelopeSource;
+   private transient int envelopeMaxSize;
+   private transient SamplingDecision samplingDecision;
+   private transient OffHeapStore.Payload offHeapEnvelope;
+   private transient OffHeapStore.Payload offHeapHeaders;
    
    RecordImpl()
    {
       
    }
 
-   public void addHeaders(String key, List<String> value)
+   public synchronized void addHeaders(String key, List<String> value)
    {
-      headers.put(key, value);
+      put(key, value);
    }
 
+   private List<String> put(String key, List<String> value)
+   {
+      moveHeadersOnHeap();
+      final Object[] current = headers;
+      final int i = indexOf(current, key);
+      if (i >= 0)
+      {
+         Object[] copy = current.clone();
+         copy[i + 1] = value;
+         headers = copy;
+         return getValues(current, i);
+      }
+      Object[] copy = new Object[current.length + 2];
+      System.arraycopy(current, 0, copy, 0, current.length);
+      copy[current.length] = key;
+      copy[current.length + 1] = value;
+      headers = copy;
+      return null;
+   }
+
+   private synchronized List<String> remove(Object key)
+   {
+      moveHeadersOnHeap();
+      final Object[] current = headers;
+      final int i = indexOf(current, key);
+      if (i < 0)
+      {
+         return null;
+      }
+      Object[] copy = new Object[current.length - 2];
+      System.arraycopy(current, 0, copy, 0, i);
+      System.arraycopy(current, i + 2, copy, i, current.length - i - 2);
+      headers = copy;
+      return getValues(current, i);
+   }
+
+   private synchronized void clearHeaders()
+   {
+      headers = NO_HEADERS;
+      freeHeaders();
+   }
+
+   private void moveHeadersOnHeap()
+   {
+      if (offHeapHeaders != null)
+      {
+         headers = flatten(readHeaders());
+         freeHeaders();
+      }
+   }
+
+   //the current headers, decoded if they're off-heap
+   private synchronized Object[] currentHeaders()
+   {
+      return offHeapHeaders != null ? flatten(readHeaders()) : headers;
+   }
+
+   private static int indexOf(Object[] headers, Object key)
+   {
+      for (int i = 0; i < headers.length; i += 2)
+      {
+         if (key == null ? headers[i] == null : key.equals(headers[i]))
+         {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Gets the headers; the returned map is a live view supporting all
+    * the map operations, whose iterators go through the headers as they
+    * were when the entry set was got.
+    */
    public Map<String, List<String>> getHeaders()
    {
-      return headers;
+      return new HeadersView();
    }
 
    public MessageType getMessageType()
@@ -78,7 +196,7 @@ public class RecordImpl implements Record
 
    public void setSourceHost(String sourceHost)
    {
-      this.sourceHost = sourceHost;
+      this.sourceHost = RecordInterner.intern(sourceHost);
    }
 
    public String getDestinationHost()
@@ -88,13 +206,43 @@ public class RecordImpl implements Record
 
    public void setDestinationHost(String destinationHost)
    {
-      this.destinationHost = destinationHost;
+      this.destinationHost = RecordInterner.intern(destinationHost);
    }
 
-   public void setHeaders(Map<String, List<String>> headers)
+   public synchronized void setHeaders(Map<String, List<String>> headers)
    {
       if (headers != null)
-         this.headers = new HashMap<String, List<String>>(headers);
+      {
+         this.headers = flatten(headers);
+         freeHeaders();
+      }
+   }
+
+   private static Object[] flatten(Map<String, List<String>> headers)
+   {
+      if (headers.isEmpty())
+      {
+         return NO_HEADERS;
+      }
+      Object[] result = new Object[headers.size() * 2];
+      int i = 0;
+      for (Entry<String, List<String>> e : headers.entrySet())
+      {
+         if (i == result.length)
+         {
+            //concurrently modified map
+            result = Arrays.copyOf(result, result.length + 2);
+         }
+         result[i++] = e.getKey();
+         result[i++] = e.getValue();
+      }
+      return i == result.length ? result : Arrays.copyOf(result, i);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static List<String> getValues(Object[] headers, int i)
+   {
+      return (List<String>)headers[i + 1];
    }
 
    public String getGroupID()
@@ -114,27 +262,445 @@ public class RecordImpl implements Record
 
    public void setOperation(QName operation)
    {
-      this.operation = operation;
+      this.operation = RecordInterner.intern(operation);
    }
 
+   /**
+    * Gets the record date; a new Date instance is returned at each call.
+    */
    public Date getDate()
    {
-      return date;
+      final long ts = timestamp;
+      return ts != NO_TIMESTAMP ? new Date(Math.floorDiv(ts, 1000000L)) : null;
    }
 
+   /**
+    * Sets the record date; dates out of the range of the nanosecond
+    * timestamps (years 1677 to 2262) are clamped to it.
+    */
    public void setDate(Date date)
    {
-      this.date = date;
+      this.timestamp = toTimestamp(date);
+   }
+
+   /**
+    * Converts the given date to a timestamp in nanoseconds since the epoch,
+    * clamping dates out of the timestamp range
+    * 
+    * @param date  the date, possibly null
+    * @return the timestamp, or {@link #NO_TIMESTAMP} if the date is null
+    */
+   static long toTimestamp(Date date)
+   {
+      if (date == null)
+      {
+         return NO_TIMESTAMP;
+      }
+      final long millis = date.getTime();
+      if (millis > Long.MAX_VALUE / 1000000L)
+      {
+         return Long.MAX_VALUE;
+      }
+      if (millis < (NO_TIMESTAMP + 1) / 1000000L)
+      {
+         return NO_TIMESTAMP + 1;
+      }
+      return millis * 1000000L;
+   }
+
+   /**
+    * Gets the record timestamp in nanoseconds since the epoch
+    * 
+    * @return the timestamp, or {@link #NO_TIMESTAMP}
+    */
+   public long getTimestamp()
+   {
+      return timestamp;
+   }
+
+   public void setTimestamp(long timestamp)
+   {
+      this.timestamp = timestamp;
+   }
+
+   /**
+    * Gets the current time in nanoseconds since the epoch, with the
+    * best precision provided by the system clock
+    */
+   public static long currentTimestamp()
+   {
+      Instant now = Instant.now();
+      return now.getEpochSecond() * 1000000000L + now.getNano();
    }
    
-   public void setEnvelope(String envelope)
+   public synchronized void setEnvelope(String envelope)
    {
       this.envelope = envelope;
+      this.envelopeSource = null;
+      freeEnvelope();
+      this.envelopeSize = -1;
+      this.envelopeTruncated = false;
    }
    
-   public String getEnvelope()
+   public synchronized String getEnvelope()
    {
+      if (envelopeSource != null)
+      {
+         EnvelopeWriter writer = new EnvelopeWriter(envelopeMaxSize);
+         writer.print(envelopeSource);
+         envelope = writer.toString();
+         envelopeTruncated = writer.isTruncated();
+         envelopeSize = writer.totalSize();
+         envelopeSource = null;
+      }
+      if (offHeapEnvelope != null)
+      {
+         byte[] bytes = offHeapEnvelope.read();
+         return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+      }
       return envelope;
    }
 
+   /**
+    * Sets the envelope as a DOM node, which is serialized (without pretty
+    * printing) only if and when the envelope is actually read.
+    * 
+    * The node must not be modified until {@link #releaseEnvelopeSource()} is called;
+    * the {@link org.jboss.ws.common.invocation.RecordingServerHandler} releases it as soon
+    * as the endpoint record processors have processed the record, hence processors
+    * which need the envelope later on must call {@link #getEnvelope()} before returning.
+    * 
+    * @param source   the envelope node
+    * @param maxSize  the max size (UTF-8 bytes) of the serialized envelope, if positive;
+    *                 longer envelopes are truncated
+    */
+   public synchronized void setEnvelopeSource(Node source, int maxSize)
+   {
+      this.envelope = null;
+      freeEnvelope();
+      this.envelopeSource = source;
+      this.envelopeMaxSize = maxSize;
+      this.envelopeSize = -1;
+      this.envelopeTruncated = false;
+   }
+
+   /**
+    * Drops the envelope DOM node, if it has not been serialized yet; the
+    * envelope of this record is then null, even for callers of
+    * {@link #getEnvelope()} which still hold a reference to this record.
+    */
+   public synchronized void releaseEnvelopeSource()
+   {
+      this.envelopeSource = null;
+   }
+
+   /**
+    * Gets the size in UTF-8 bytes of the serialized envelope; the size of
+    * a truncated envelope is the size of the whole envelope, not of the
+    * part that has been kept.
+    * 
+    * @return the envelope size, or -1 if unknown
+    */
+   public synchronized long getEnvelopeSize()
+   {
+      return envelopeSize;
+   }
+
+   public synchronized boolean isEnvelopeTruncated()
+   {
+      return envelopeTruncated;
+   }
+
+
+   /**
+    * Returns true if this is the outbound record of a message exchange ended with a fault
+    */
+   public boolean isFault()
+   {
+      return fault;
+   }
+
+   public void setFault(boolean fault)
+   {
+      this.fault = fault;
+   }
+
+   /**
+    * Gets the sampling decision of the record group, if any
+    */
+   public SamplingDecision getSamplingDecision()
+   {
+      return samplingDecision;
+   }
+
+   public void setSamplingDecision(SamplingDecision samplingDecision)
+   {
+      this.samplingDecision = samplingDecision;
+   }
+
+   /**
+    * Moves the envelope and the headers of this record to the provided
+    * off-heap store; they're then decoded each time they're read, till
+    * {@link #freeOffHeap()} is called. Data is kept on the heap if the
+    * store is full.
+    * 
+    * @param store     the store
+    * @param compress  whether to compress data
+    * @param codec     the codec for encoding the headers
+    */
+   synchronized void moveOffHeap(OffHeapStore store, boolean compress, RecordCodec codec)
+   {
+      if (envelope != null && envelopeSource == null && offHeapEnvelope == null)
+      {
+         offHeapEnvelope = store.store(envelope.getBytes(StandardCharsets.UTF_8), compress);
+         if (offHeapEnvelope != null)
+         {
+            envelope = null;
+         }
+      }
+      if (headers.length > 0 && offHeapHeaders == null)
+      {
+         offHeapHeaders = store.store(codec.encodeHeaders(new HeadersView()), compress);
+         if (offHeapHeaders != null)
+         {
+            headers = NO_HEADERS;
+         }
+      }
+   }
+
+   /**
+    * Creates a copy of this record keeping all of its data on the heap, so
+    * that it does not share any off-heap payload with this record. A DOM
+    * envelope that has not been serialized yet is not copied.
+    * 
+    * @return the copy
+    */
+   synchronized RecordImpl copy()
+   {
+      RecordImpl copy = new RecordImpl();
+      copy.sourceHost = sourceHost;
+      copy.destinationHost = destinationHost;
+      copy.headers = offHeapHeaders != null ? flatten(readHeaders()) : headers;
+      copy.messageType = messageType;
+      copy.operation = operation;
+      copy.groupID = groupID;
+      copy.timestamp = timestamp;
+      if (offHeapEnvelope != null)
+      {
+         byte[] bytes = offHeapEnvelope.read();
+         copy.envelope = bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+      }
+      else
+      {
+         copy.envelope = envelope;
+      }
+      copy.envelopeSize = envelopeSize;
+      copy.envelopeTruncated = envelopeTruncated;
+      copy.fault = fault;
+      copy.samplingDecision = samplingDecision;
+      return copy;
+   }
+
+   /**
+    * Returns true if the envelope or the headers of this record are stored off-heap
+    */
+   synchronized boolean hasOffHeapData()
+   {
+      return offHeapEnvelope != null || offHeapHeaders != null;
+   }
+
+   /**
+    * Frees the off-heap data of this record, if any; the envelope and the
+    * headers are not available anymore afterwards.
+    */
+   synchronized void freeOffHeap()
+   {
+      freeEnvelope();
+      freeHeaders();
+   }
+
+   private void freeEnvelope()
+   {
+      if (offHeapEnvelope != null)
+      {
+         offHeapEnvelope.free();
+         offHeapEnvelope = null;
+      }
+   }
+
+   private void freeHeaders()
+   {
+      if (offHeapHeaders != null)
+      {
+         offHeapHeaders.free();
+         offHeapHeaders = null;
+      }
+   }
+
+   private Map<String, List<String>> readHeaders()
+   {
+      byte[] bytes = offHeapHeaders.read();
+      Map<String, List<String>> result = bytes != null ? RecordCodec.decodeHeaders(ByteBuffer.wrap(bytes)) : null;
+      return result != null ? result : new HashMap<String, List<String>>();
+   }
+
+   private synchronized void writeObject(ObjectOutputStream out) throws IOException
+   {
+      ObjectOutputStream.PutField fields = out.putFields();
+      fields.put("sourceHost", sourceHost);
+      fields.put("destinationHost", destinationHost);
+      fields.put("headers", new HashMap<String, List<String>>(getHeaders()));
+      fields.put("messageType", messageType);
+      fields.put("operation", operation);
+      fields.put("groupID", groupID);
+      fields.put("date", getDate());
+      fields.put("timestamp", timestamp);
+      //off-heap and lazily captured envelopes are serialized as regular ones
+      fields.put("envelope", getEnvelope());
+      fields.put("envelopeSize", envelopeSize);
+      fields.put("envelopeTruncated", envelopeTruncated);
+      fields.put("fault", fault);
+      out.writeFields();
+   }
+
+   @SuppressWarnings("unchecked")
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+   {
+      ObjectInputStream.GetField fields = in.readFields();
+      sourceHost = (String)fields.get("sourceHost", null);
+      destinationHost = (String)fields.get("destinationHost", null);
+      Map<String, List<String>> map = (Map<String, List<String>>)fields.get("headers", null);
+      headers = map != null ? flatten(map) : NO_HEADERS;
+      messageType = (MessageType)fields.get("messageType", null);
+      operation = (QName)fields.get("operation", null);
+      groupID = (String)fields.get("groupID", null);
+      Date date = (Date)fields.get("date", null);
+      //streams written before the timestamp was introduced only have the date
+      timestamp = fields.defaulted("timestamp") ? toTimestamp(date) : fields.get("timestamp", NO_TIMESTAMP);
+      envelope = (String)fields.get("envelope", null);
+      envelopeSize = fields.get("envelopeSize", -1L);
+      envelopeTruncated = fields.get("envelopeTruncated", false);
+      fault = fields.get("fault", false);
+   }
+
+   /**
+    * A live map view on the headers array
+    */
+   private final class HeadersView extends AbstractMap<String, List<String>>
+   {
+      @Override
+      public int size()
+      {
+         return currentHeaders().length / 2;
+      }
+
+      @Override
+      public List<String> get(Object key)
+      {
+         final Object[] current = currentHeaders();
+         final int i = indexOf(current, key);
+         return i >= 0 ? getValues(current, i) : null;
+      }
+
+      @Override
+      public boolean containsKey(Object key)
+      {
+         return indexOf(currentHeaders(), key) >= 0;
+      }
+
+      @Override
+      public List<String> put(String key, List<String> value)
+      {
+         synchronized (RecordImpl.this)
+         {
+            return RecordImpl.this.put(key, value);
+         }
+      }
+
+      @Override
+      public List<String> remove(Object key)
+      {
+         return RecordImpl.this.remove(key);
+      }
+
+      @Override
+      public void clear()
+      {
+         clearHeaders();
+      }
+
+      @Override
+      public Set<Entry<String, List<String>>> entrySet()
+      {
+         final Object[] snapshot = currentHeaders();
+         return new AbstractSet<Entry<String, List<String>>>()
+         {
+            @Override
+            public int size()
+            {
+               return snapshot.length / 2;
+            }
+
+            @Override
+            public Iterator<Entry<String, List<String>>> iterator()
+            {
+               return new Iterator<Entry<String, List<String>>>()
+               {
+                  private int i;
+                  private boolean removable;
+
+                  public boolean hasNext()
+                  {
+                     return i < snapshot.length;
+                  }
+
+                  public Entry<String, List<String>> next()
+                  {
+                     if (i >= snapshot.length)
+                     {
+                        throw new NoSuchElementException();
+                     }
+                     Entry<String, List<String>> e = new HeaderEntry((String)snapshot[i], getValues(snapshot, i));
+                     i += 2;
+                     removable = true;
+                     return e;
+                  }
+
+                  public void remove()
+                  {
+                     if (!removable)
+                     {
+                        throw new IllegalStateException();
+                     }
+                     removable = false;
+                     RecordImpl.this.remove(snapshot[i - 2]);
+                  }
+               };
+            }
+         };
+      }
+   }
+
+   /**
+    * A header entry writing its value through to the record
+    */
+   private final class HeaderEntry extends AbstractMap.SimpleEntry<String, List<String>>
+   {
+      private static final long serialVersionUID = 1L;
+
+      HeaderEntry(String key, List<String> value)
+      {
+         super(key, value);
+      }
+
+      @Override
+      public List<String> setValue(List<String> value)
+      {
+         super.setValue(value);
+         synchronized (RecordImpl.this)
+         {
+            return RecordImpl.this.put(getKey(), value);
+         }
+      }
+   }
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.ws.common.monitoring.RecordRingBuffer.RecordGroup;
+
+/**
+ * A secondary index of the record groups stored in a {@link RecordRingBuffer},
+ * mapping a key (e.g. a host) to the groups having at least a record with
+ * that key. The index is updated without locking when groups are added to or
+ * evicted from the buffer.
+ * 
+ * @since 18-Oct-2026
+ */
+final class RecordIndex<K> implements Serializable
+{
+   private static final long serialVersionUID = -6358912034377270531L;
+
+   private final ConcurrentMap<K, Set<RecordGroup>> entries = new ConcurrentHashMap<K, Set<RecordGroup>>();
+
+   void add(K key, RecordGroup group)
+   {
+      while (true)
+      {
+         Set<RecordGroup> set = entries.get(key);
+         if (set == null)
+         {
+            Set<RecordGroup> newSet = ConcurrentHashMap.newKeySet();
+            set = entries.putIfAbsent(key, newSet);
+            if (set == null)
+            {
+               set = newSet;
+            }
+         }
+         set.add(group);
+         //retry if the set has been concurrently removed because empty
+         if (entries.get(key) == set)
+         {
+            break;
+         }
+      }
+      if (group.isEvicted())
+      {
+         remove(key, group);
+      }
+   }
+
+   void remove(K key, RecordGroup group)
+   {
+      Set<RecordGroup> set = entries.get(key);
+      if (set != null)
+      {
+         set.remove(group);
+         if (set.isEmpty() && entries.remove(key, set) && !set.isEmpty())
+         {
+            //groups added while removing the set: index them again
+            for (RecordGroup g : set)
+            {
+               if (!g.isEvicted())
+               {
+                  add(key, g);
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Gets the groups with the given key
+    */
+   Set<RecordGroup> get(K key)
+   {
+      return entries.get(key);
+   }
+
+   /**
+    * Gets the keys currently in the index
+    */
+   List<K> keys()
+   {
+      List<K> keys = new ArrayList<K>(entries.size());
+      for (K key : entries.keySet())
+      {
+         keys.add(key);
+      }
+      return keys;
+   }
+}
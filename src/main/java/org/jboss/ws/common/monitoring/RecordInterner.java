@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Canonicalizes the host names and operation names of records, so that the
+ * records kept by the recorders share them instead of each retaining its own
+ * copy. This is a lossy direct-mapped cache: a value replaces the one having
+ * the same slot, hence memory is bounded whatever the number of distinct
+ * values. Slots are read and written without locking, which is fine as the
+ * cached values are immutable.
+ * 
+ * @since 18-Oct-2026
+ */
+final class RecordInterner
+{
+   private static final int SLOTS = 1024;
+
+   private static final String[] hosts = new String[SLOTS];
+   private static final QName[] operations = new QName[SLOTS];
+
+   private RecordInterner()
+   {
+   }
+
+   static String intern(String host)
+   {
+      if (host == null)
+      {
+         return null;
+      }
+      final int slot = host.hashCode() & (SLOTS - 1);
+      final String cached = hosts[slot];
+      if (host.equals(cached))
+      {
+         return cached;
+      }
+      hosts[slot] = host;
+      return host;
+   }
+
+   static QName intern(QName operation)
+   {
+      if (operation == null)
+      {
+         return null;
+      }
+      final int slot = operation.hashCode() & (SLOTS - 1);
+      final QName cached = operations[slot];
+      if (operation.equals(cached))
+      {
+         return cached;
+      }
+      operations[slot] = operation;
+      return operation;
+   }
+}
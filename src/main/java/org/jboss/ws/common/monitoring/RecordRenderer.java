@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * Renders record groups straight to a writer, so that browsing the records
+ * never requires building the whole page in memory.
+ * 
+ * A renderer is stateless and can be shared; the caller invokes {@link #begin(Writer)},
+ * then {@link #renderGroup(Writer, int, String, Iterable)} for each group and finally
+ * {@link #end(Writer)}.
+ * 
+ * @since 18-Oct-2026
+ */
+public abstract class RecordRenderer
+{
+   private static final String NOT_AVAILABLE = "[Not available]";
+
+   protected final boolean showDetails;
+
+   protected RecordRenderer(boolean showDetails)
+   {
+      this.showDetails = showDetails;
+   }
+
+   /**
+    * Returns a renderer producing HTML tables
+    * 
+    * @param groupRecords  whether each group should be rendered in its own table
+    * @param showDetails   whether to show headers and envelopes
+    * @return the renderer
+    */
+   public static RecordRenderer newHtmlRenderer(boolean groupRecords, boolean showDetails)
+   {
+      return new HtmlRenderer(groupRecords, showDetails);
+   }
+
+   /**
+    * Returns a renderer producing a JSON array of groups, each having
+    * a "groupID" and a "records" array
+    * 
+    * @param showDetails   whether to include headers and envelopes
+    * @return the renderer
+    */
+   public static RecordRenderer newJsonRenderer(boolean showDetails)
+   {
+      return new JsonRenderer(showDetails);
+   }
+
+   public abstract String getContentType();
+
+   public abstract void begin(Writer writer) throws IOException;
+
+   /**
+    * Renders a record group
+    * 
+    * @param writer   the target writer
+    * @param index    the index of the group among those rendered since {@link #begin(Writer)}
+    * @param groupID  the group ID
+    * @param records  the records of the group
+    * @throws IOException
+    */
+   public abstract void renderGroup(Writer writer, int index, String groupID, Iterable<Record> records) throws IOException;
+
+   public abstract void end(Writer writer) throws IOException;
+
+   /**
+    * Renders all the provided record groups
+    * 
+    * @param records  the records as a map GroupID->List<Record>
+    * @param writer   the target writer
+    * @throws IOException
+    */
+   public void render(Map<String, List<Record>> records, Writer writer) throws IOException
+   {
+      begin(writer);
+      int index = 0;
+      for (Entry<String, List<Record>> e : records.entrySet())
+      {
+         renderGroup(writer, index++, e.getKey(), e.getValue());
+      }
+      end(writer);
+   }
+
+   private static final class HtmlRenderer extends RecordRenderer
+   {
+      private final boolean groupRecords;
+
+      HtmlRenderer(boolean groupRecords, boolean showDetails)
+      {
+         super(showDetails);
+         this.groupRecords = groupRecords;
+      }
+
+      public String getContentType()
+      {
+         return "text/html; charset=UTF-8";
+      }
+
+      public void begin(Writer writer) throws IOException
+      {
+         if (!groupRecords)
+            openTable(writer);
+      }
+
+      public void renderGroup(Writer writer, int index, String groupID, Iterable<Record> records) throws IOException
+      {
+         if (groupRecords)
+            openTable(writer);
+         for (Record record : records)
+         {
+            renderRecord(writer, record);
+         }
+         if (groupRecords)
+            closeTable(writer);
+      }
+
+      public void end(Writer writer) throws IOException
+      {
+         if (!groupRecords)
+            closeTable(writer);
+      }
+
+      private void openTable(Writer writer) throws IOException
+      {
+         writer.write("<table border='1'><tr class='AttributesHeader'><th>Group ID</th><th>Type</th><th>Date</th><th>From</th><th>To</th><th>Operation</th>");
+         if (showDetails)
+            writer.write("<th>Headers</th><th>Envelope</th>");
+         writer.write("</tr><tr>");
+      }
+
+      private void closeTable(Writer writer) throws IOException
+      {
+         writer.write("</tr></table><br />");
+      }
+
+      private void renderRecord(Writer writer, Record record) throws IOException
+      {
+         writer.write("<tr>");
+         cell(writer, record.getGroupID());
+         cell(writer, record.getMessageType());
+         cell(writer, record.getDate());
+         cell(writer, record.getSourceHost());
+         cell(writer, record.getDestinationHost());
+         cell(writer, record.getOperation());
+         if (showDetails)
+         {
+            writer.write("<td><pre>");
+            Map<String, List<String>> headers = record.getHeaders();
+            if (headers != null)
+            {
+               for (Entry<String, List<String>> e : headers.entrySet())
+               {
+                  escape(writer, e.getKey());
+                  writer.write(": ");
+                  escape(writer, String.valueOf(e.getValue()));
+                  writer.write("<br />");
+               }
+            }
+            else
+               writer.write(NOT_AVAILABLE);
+            writer.write("</pre></td>");
+            cell(writer, record.getEnvelope());
+         }
+         writer.write("</tr>");
+      }
+
+      private static void cell(Writer writer, Object value) throws IOException
+      {
+         writer.write("<td><pre>");
+         if (value != null)
+            escape(writer, value.toString());
+         else
+            writer.write(NOT_AVAILABLE);
+         writer.write("</pre></td>");
+      }
+
+      private static void escape(Writer writer, String s) throws IOException
+      {
+         int start = 0;
+         final int length = s.length();
+         for (int i = 0; i < length; i++)
+         {
+            final String replacement;
+            switch (s.charAt(i))
+            {
+               case '<' :
+                  replacement = "&lt;";
+                  break;
+               case '>' :
+                  replacement = "&gt;";
+                  break;
+               case '&' :
+                  replacement = "&amp;";
+                  break;
+               default :
+                  continue;
+            }
+            writer.write(s, start, i - start);
+            writer.write(replacement);
+            start = i + 1;
+         }
+         writer.write(s, start, length - start);
+      }
+   }
+
+   private static final class JsonRenderer extends RecordRenderer
+   {
+      private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+      JsonRenderer(boolean showDetails)
+      {
+         super(showDetails);
+      }
+
+      public String getContentType()
+      {
+         return "application/json; charset=UTF-8";
+      }
+
+      public void begin(Writer writer) throws IOException
+      {
+         writer.write('[');
+      }
+
+      public void renderGroup(Writer writer, int index, String groupID, Iterable<Record> records) throws IOException
+      {
+         if (index > 0)
+            writer.write(',');
+         writer.write("{\"groupID\":");
+         string(writer, groupID);
+         writer.write(",\"records\":[");
+         boolean first = true;
+         for (Record record : records)
+         {
+            if (!first)
+               writer.write(',');
+            first = false;
+            renderRecord(writer, record);
+         }
+         writer.write("]}");
+      }
+
+      public void end(Writer writer) throws IOException
+      {
+         writer.write(']');
+      }
+
+      private void renderRecord(Writer writer, Record record) throws IOException
+      {
+         writer.write("{\"messageType\":");
+         string(writer, record.getMessageType() != null ? record.getMessageType().toString() : null);
+         writer.write(",\"date\":");
+         Date date = record.getDate();
+         writer.write(date != null ? String.valueOf(date.getTime()) : "null");
+         writer.write(",\"sourceHost\":");
+         string(writer, record.getSourceHost());
+         writer.write(",\"destinationHost\":");
+         string(writer, record.getDestinationHost());
+         writer.write(",\"operation\":");
+         string(writer, record.getOperation() != null ? record.getOperation().toString() : null);
+         if (showDetails)
+         {
+            writer.write(",\"headers\":");
+            Map<String, List<String>> headers = record.getHeaders();
+            if (headers != null)
+            {
+               writer.write('{');
+               boolean first = true;
+               for (Entry<String, List<String>> e : headers.entrySet())
+               {
+                  if (!first)
+                     writer.write(',');
+                  first = false;
+                  string(writer, e.getKey());
+                  writer.write(':');
+                  if (e.getValue() != null)
+                  {
+                     writer.write('[');
+                     boolean firstValue = true;
+                     for (String value : e.getValue())
+                     {
+                        if (!firstValue)
+                           writer.write(',');
+                        firstValue = false;
+                        string(writer, value);
+                     }
+                     writer.write(']');
+                  }
+                  else
+                     writer.write("null");
+               }
+               writer.write('}');
+            }
+            else
+               writer.write("null");
+            writer.write(",\"envelope\":");
+            string(writer, record.getEnvelope());
+         }
+         writer.write('}');
+      }
+
+      private static void string(Writer writer, String s) throws IOException
+      {
+         if (s == null)
+         {
+            writer.write("null");
+            return;
+         }
+         writer.write('"');
+         int start = 0;
+         final int length = s.length();
+         for (int i = 0; i < length; i++)
+         {
+            final char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '<' && c != 0x2028 && c != 0x2029)
+            {
+               continue;
+            }
+            writer.write(s, start, i - start);
+            switch (c)
+            {
+               case '"' :
+                  writer.write("\\\"");
+                  break;
+               case '\\' :
+                  writer.write("\\\\");
+                  break;
+               case '\n' :
+                  writer.write("\\n");
+                  break;
+               case '\r' :
+                  writer.write("\\r");
+                  break;
+               case '\t' :
+                  writer.write("\\t");
+                  break;
+               default :
+                  //control chars, '<' (avoids "</script>" when embedded) and the JS line separators
+                  writer.write("\\u");
+                  writer.write(HEX[(c >> 12) & 0xF]);
+                  writer.write(HEX[(c >> 8) & 0xF]);
+                  writer.write(HEX[(c >> 4) & 0xF]);
+                  writer.write(HEX[c & 0xF]);
+            }
+            start = i + 1;
+         }
+         writer.write(s, start, length - start);
+         writer.write('"');
+      }
+   }
+}
@@ -0,0 +1,561 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * A bounded multi-producer ring buffer of record groups.
+ * 
+ * Each new group ID is given a sequence number, which also selects the
+ * slot the group is stored in; publishing a group into a slot evicts
+ * the group that was previously stored there. Appending records never
+ * takes a lock, so request threads do not queue up on the buffer.
+ * 
+ * The IDs of the last evicted groups (as many as the buffer capacity) are
+ * remembered, so that a late record of an evicted group (e.g. the outbound
+ * record of a long running exchange) is dropped instead of opening a new
+ * group holding only part of the exchange.
+ * 
+ * Groups are also indexed by source host and operation; lookups by date
+ * scan the whole (bounded) ring, as the arrival order does not necessarily
+ * match the order of the record dates.
+ * 
+ * The off-heap data of evicted records is not freed while a reader (between
+ * {@link #beginRead()} and {@link #endRead()}) might still visit them: it is
+ * freed by the first eviction or end of read happening when no read is in
+ * progress. Evictions never wait for the readers.
+ * 
+ * @since 18-Oct-2026
+ */
+final class RecordRingBuffer implements Serializable
+{
+   private static final long serialVersionUID = 4470851387546391251L;
+
+   private final int capacity;
+   private final AtomicReferenceArray<RecordGroup> slots;
+   private final ConcurrentMap<String, RecordGroup> groups;
+   //the ID of the last group evicted from each slot, and the set of those IDs
+   private final AtomicReferenceArray<String> evictedIDs;
+   private final Set<String> tombstones = ConcurrentHashMap.newKeySet();
+   private final AtomicLong sequence = new AtomicLong(0);
+   private final RecordIndex<String> sourceHostIndex = new RecordIndex<String>();
+   private final RecordIndex<QName> operationIndex = new RecordIndex<QName>();
+   //whether this buffer owns the off-heap data of its records
+   private final boolean ownsOffHeap;
+   //held (shared) by the readers, and (exclusively) for freeing the evicted off-heap records
+   private final ReentrantReadWriteLock readers = new ReentrantReadWriteLock();
+   private final Queue<RecordImpl> pendingFrees = new ConcurrentLinkedQueue<RecordImpl>();
+
+   RecordRingBuffer(int capacity)
+   {
+      this(capacity, false);
+   }
+
+   /**
+    * @param capacity     the max number of groups
+    * @param ownsOffHeap  whether the off-heap data of the records is to be freed on eviction
+    */
+   RecordRingBuffer(int capacity, boolean ownsOffHeap)
+   {
+      this.ownsOffHeap = ownsOffHeap;
+      this.capacity = Math.max(capacity, 0);
+      this.slots = new AtomicReferenceArray<RecordGroup>(this.capacity);
+      this.evictedIDs = new AtomicReferenceArray<String>(this.capacity);
+      this.groups = new ConcurrentHashMap<String, RecordGroup>(Math.max(16, this.capacity * 2));
+   }
+
+   int getCapacity()
+   {
+      return capacity;
+   }
+
+   /**
+    * Gets the number of record groups currently stored
+    */
+   int size()
+   {
+      return groups.size();
+   }
+
+   /**
+    * Adds a record to its group, creating and publishing the group if
+    * this is the first record having its group ID.
+    * 
+    * @return the group the record has been added to, or null if the buffer has no capacity
+    *         or the group of the record has recently been evicted
+    */
+   RecordGroup add(Record record)
+   {
+      if (capacity == 0)
+      {
+         return null;
+      }
+      final String id = record.getGroupID();
+      RecordGroup group = groups.get(id);
+      if (group == null)
+      {
+         if (tombstones.contains(id))
+         {
+            //a late record of an evicted group
+            free(record);
+            freePending();
+            return null;
+         }
+         RecordGroup newGroup = new RecordGroup(id);
+         group = groups.putIfAbsent(id, newGroup);
+         if (group == null)
+         {
+            group = newGroup;
+            publish(newGroup);
+         }
+      }
+      group.add(record);
+      index(group, record);
+      if (group.evicted)
+      {
+         //raced with the eviction of the group
+         free(record);
+         freePending();
+      }
+      return group;
+   }
+
+   private void index(RecordGroup group, Record record)
+   {
+      final String host = record.getSourceHost();
+      if (host != null)
+      {
+         sourceHostIndex.add(host, group);
+      }
+      final QName operation = record.getOperation();
+      if (operation != null)
+      {
+         operationIndex.add(operation, group);
+      }
+   }
+
+   private void publish(RecordGroup group)
+   {
+      final long seq = sequence.getAndIncrement();
+      group.sequence = seq;
+      final int index = (int)(seq % capacity);
+      while (true)
+      {
+         RecordGroup old = slots.get(index);
+         if (old != null && old.sequence > seq)
+         {
+            //a producer that got a later sequence already wrapped around on this slot
+            evicted(group);
+            return;
+         }
+         if (slots.compareAndSet(index, old, group))
+         {
+            if (old != null)
+            {
+               evicted(old);
+            }
+            return;
+         }
+      }
+   }
+
+   private void evicted(RecordGroup group)
+   {
+      group.evicted = true;
+      //the tombstone is set before the group is removed, so that late records always see either of them
+      final String id = group.getGroupID();
+      tombstones.add(id);
+      final String previous = evictedIDs.getAndSet((int)(group.sequence % capacity), id);
+      if (previous != null)
+      {
+         tombstones.remove(previous);
+      }
+      groups.remove(id, group);
+      for (Record record : group.records)
+      {
+         if (record.getSourceHost() != null)
+         {
+            sourceHostIndex.remove(record.getSourceHost(), group);
+         }
+         if (record.getOperation() != null)
+         {
+            operationIndex.remove(record.getOperation(), group);
+         }
+         free(record);
+      }
+      freePending();
+   }
+
+   private void free(Record record)
+   {
+      if (ownsOffHeap && record instanceof RecordImpl && ((RecordImpl)record).hasOffHeapData())
+      {
+         pendingFrees.add((RecordImpl)record);
+      }
+   }
+
+   /**
+    * Frees the off-heap data of the evicted records, unless a read is in progress
+    */
+   private void freePending()
+   {
+      if (pendingFrees.isEmpty())
+      {
+         return;
+      }
+      final Lock lock = readers.writeLock();
+      if (lock.tryLock())
+      {
+         try
+         {
+            RecordImpl record;
+            while ((record = pendingFrees.poll()) != null)
+            {
+               record.freeOffHeap();
+            }
+         }
+         finally
+         {
+            lock.unlock();
+         }
+      }
+   }
+
+   /**
+    * Begins reading the stored groups; the records of the groups evicted in
+    * the meantime keep their off-heap data until {@link #endRead()} is called.
+    * Reads by a thread can be nested.
+    */
+   void beginRead()
+   {
+      readers.readLock().lock();
+   }
+
+   void endRead()
+   {
+      readers.readLock().unlock();
+      freePending();
+   }
+
+   /**
+    * Gets the source hosts of the stored records
+    */
+   List<String> getSourceHosts()
+   {
+      return sourceHostIndex.keys();
+   }
+
+   /**
+    * Gets the groups having a record with the given source host (ignoring case),
+    * from the oldest to the most recent one
+    */
+   List<RecordGroup> getBySourceHost(String host)
+   {
+      Set<RecordGroup> result = new HashSet<RecordGroup>();
+      for (String key : sourceHostIndex.keys())
+      {
+         if (key.equalsIgnoreCase(host))
+         {
+            addLive(result, sourceHostIndex.get(key));
+         }
+      }
+      return sorted(new ArrayList<RecordGroup>(result));
+   }
+
+   /**
+    * Gets the groups having a record with the given operation,
+    * from the oldest to the most recent one
+    */
+   List<RecordGroup> getByOperation(QName operation)
+   {
+      List<RecordGroup> result = new ArrayList<RecordGroup>();
+      addLive(result, operationIndex.get(operation));
+      return sorted(result);
+   }
+
+   private static void addLive(Collection<RecordGroup> result, Set<RecordGroup> set)
+   {
+      if (set != null)
+      {
+         for (RecordGroup group : set)
+         {
+            if (!group.isEvicted())
+            {
+               result.add(group);
+            }
+         }
+      }
+   }
+
+   private static List<RecordGroup> sorted(List<RecordGroup> groups)
+   {
+      Collections.sort(groups, SEQUENCE_ORDER);
+      return groups;
+   }
+
+   private static final Comparator<RecordGroup> SEQUENCE_ORDER = new Comparator<RecordGroup>()
+   {
+      public int compare(RecordGroup g1, RecordGroup g2)
+      {
+         return Long.compare(g1.sequence, g2.sequence);
+      }
+   };
+
+   /**
+    * Gets the groups whose first record date is in the given range, in
+    * arrival order. The whole ring is scanned, as group dates are not
+    * ordered: records can be dated by their producers, an outbound record
+    * can open a group, and the wall clock can go backwards.
+    * 
+    * @param from  the range start (epoch millis, inclusive)
+    * @param to    the range end (epoch millis, inclusive)
+    */
+   List<RecordGroup> getByDate(long from, long to)
+   {
+      final List<RecordGroup> result = new ArrayList<RecordGroup>();
+      if (capacity == 0)
+      {
+         return result;
+      }
+      final long last = sequence.get();
+      final long first = Math.max(0, last - capacity);
+      for (long seq = first; seq < last; seq++)
+      {
+         RecordGroup group = slots.get((int)(seq % capacity));
+         if (group != null && group.sequence == seq && !group.isEvicted())
+         {
+            final long date = group.date;
+            if (date != RecordGroup.NO_DATE && date >= from && date <= to)
+            {
+               result.add(group);
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Gets the group with the given ID, if still stored
+    */
+   RecordGroup get(String groupID)
+   {
+      return groups.get(groupID);
+   }
+
+   /**
+    * Gets the currently stored groups, from the oldest to the most recent one
+    */
+   List<RecordGroup> snapshot()
+   {
+      final List<RecordGroup> result = new ArrayList<RecordGroup>(Math.min(capacity, groups.size()));
+      if (capacity == 0)
+      {
+         return result;
+      }
+      final long last = sequence.get();
+      final long first = Math.max(0, last - capacity);
+      for (long seq = first; seq < last; seq++)
+      {
+         RecordGroup group = slots.get((int)(seq % capacity));
+         if (group != null && group.sequence == seq && groups.get(group.getGroupID()) == group)
+         {
+            result.add(group);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Renders a page of the stored groups, from the oldest to the most recent one
+    * 
+    * @return the number of rendered groups
+    */
+   int render(RecordRenderer renderer, Writer writer, int offset, int limit) throws IOException
+   {
+      beginRead();
+      try
+      {
+         return render(snapshot(), renderer, writer, offset, limit);
+      }
+      finally
+      {
+         endRead();
+      }
+   }
+
+   /**
+    * Renders a page of the given groups
+    */
+   static int render(List<RecordGroup> groups, RecordRenderer renderer, Writer writer, int offset, int limit) throws IOException
+   {
+      int from = Math.min(Math.max(0, offset), groups.size());
+      int to = limit < 0 ? groups.size() : (int)Math.min((long)from + limit, groups.size());
+      renderer.begin(writer);
+      for (int i = from; i < to; i++)
+      {
+         RecordGroup group = groups.get(i);
+         renderer.renderGroup(writer, i - from, group.getGroupID(), group.getRecords());
+      }
+      renderer.end(writer);
+      return to - from;
+   }
+
+   /**
+    * Creates a new ring buffer with the given capacity, holding the most
+    * recent groups of this one, which is not to be used anymore afterwards:
+    * the records are moved to the copy, while the ones that do not fit in
+    * it are freed. Records added to this buffer while the copy is in
+    * progress might not be transferred.
+    */
+   RecordRingBuffer copy(int newCapacity)
+   {
+      return copy(newCapacity, false);
+   }
+
+   /**
+    * Creates a new ring buffer with the same capacity and groups of this
+    * one, which is left untouched; the copy holds on-heap copies of the
+    * records, so that evicting records from either buffer does not affect
+    * the other one.
+    */
+   RecordRingBuffer detachedCopy()
+   {
+      return copy(capacity, true);
+   }
+
+   private RecordRingBuffer copy(int newCapacity, boolean detached)
+   {
+      RecordRingBuffer copy = new RecordRingBuffer(newCapacity, ownsOffHeap);
+      beginRead();
+      try
+      {
+         List<RecordGroup> current = snapshot();
+         int start = Math.max(0, current.size() - copy.capacity);
+         for (int i = 0; i < start && !detached; i++)
+         {
+            for (Record record : current.get(i).records)
+            {
+               free(record);
+            }
+         }
+         for (int i = start; i < current.size(); i++)
+         {
+            RecordGroup group = current.get(i);
+            RecordGroup newGroup = new RecordGroup(group.getGroupID());
+            copy.groups.put(newGroup.getGroupID(), newGroup);
+            copy.publish(newGroup);
+            for (Record record : group.records)
+            {
+               Record copied = detached && record instanceof RecordImpl ? ((RecordImpl)record).copy() : record;
+               newGroup.add(copied);
+               copy.index(newGroup, copied);
+            }
+         }
+      }
+      finally
+      {
+         endRead();
+      }
+      return copy;
+   }
+
+   /**
+    * The records sharing the same group ID; records are appended without locking.
+    */
+   static final class RecordGroup implements Serializable
+   {
+      private static final long serialVersionUID = -2395116400853574582L;
+      static final long NO_DATE = Long.MIN_VALUE;
+
+      private final String groupID;
+      private final ConcurrentLinkedQueue<Record> records = new ConcurrentLinkedQueue<Record>();
+      private volatile long sequence = -1;
+      private volatile boolean evicted;
+      //the date of the first record having one
+      private volatile long date = NO_DATE;
+
+      RecordGroup(String groupID)
+      {
+         this.groupID = groupID;
+      }
+
+      String getGroupID()
+      {
+         return groupID;
+      }
+
+      void add(Record record)
+      {
+         records.add(record);
+         if (date == NO_DATE)
+         {
+            date = getTime(record);
+         }
+      }
+
+      private static long getTime(Record record)
+      {
+         if (record instanceof RecordImpl)
+         {
+            final long timestamp = ((RecordImpl)record).getTimestamp();
+            return timestamp != RecordImpl.NO_TIMESTAMP ? Math.floorDiv(timestamp, 1000000L) : NO_DATE;
+         }
+         final Date date = record.getDate();
+         return date != null ? date.getTime() : NO_DATE;
+      }
+
+      boolean isEvicted()
+      {
+         return evicted;
+      }
+
+      Collection<Record> getRecords()
+      {
+         return records;
+      }
+
+      List<Record> toList()
+      {
+         return new ArrayList<Record>(records);
+      }
+   }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.JfrEvents;
+import org.jboss.wsf.spi.management.EndpointMetrics;
+
+/**
+ * An immutable summary of the configuration of the record processors, of
+ * the per-operation metrics and of the flight recordings of an endpoint,
+ * allowing the recording handler to skip any work with a single check when
+ * none of them is active.
+ * 
+ * Summaries are cached by endpoints and become stale when the configuration
+ * epoch changes, which happens whenever any {@link AbstractRecordProcessor}
+ * or the per-operation metrics are reconfigured, and whenever a flight
+ * recording starts or stops. Processors not extending AbstractRecordProcessor
+ * are not able to signal changes, so summaries including them are never cached.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class RecordingState
+{
+   private static final AtomicLong configEpoch = new AtomicLong();
+
+   public static final RecordingState NOT_RECORDING = new RecordingState(-1, true, false, false, false, false, false);
+
+   private final long epoch;
+   private final boolean cacheable;
+   private final boolean recording;
+   private final boolean processEnvelope;
+   private final boolean sampling;
+   private final boolean operationMetrics;
+   private final boolean flightRecording;
+
+   private RecordingState(long epoch, boolean cacheable, boolean recording, boolean processEnvelope, boolean sampling,
+         boolean operationMetrics, boolean flightRecording)
+   {
+      this.epoch = epoch;
+      this.cacheable = cacheable;
+      this.recording = recording;
+      this.processEnvelope = processEnvelope;
+      this.sampling = sampling;
+      this.operationMetrics = operationMetrics;
+      this.flightRecording = flightRecording;
+   }
+
+   /**
+    * Signals a change in the configuration of a record processor, making
+    * the cached states stale.
+    */
+   public static void configurationChanged()
+   {
+      configEpoch.incrementAndGet();
+   }
+
+   /**
+    * Computes the state of the given processors, without any per-operation metrics
+    * 
+    * @param processors
+    * @return
+    */
+   public static RecordingState compute(List<RecordProcessor> processors)
+   {
+      return compute(processors, null);
+   }
+
+   /**
+    * Computes the state of the given processors and endpoint metrics
+    * 
+    * @param processors
+    * @param metrics     the endpoint metrics, or null
+    * @return
+    */
+   public static RecordingState compute(List<RecordProcessor> processors, EndpointMetrics metrics)
+   {
+      //read the epoch first, so that concurrent changes make the result stale
+      final long epoch = configEpoch.get();
+      boolean cacheable = true;
+      boolean recording = false;
+      boolean processEnvelope = false;
+      boolean sampling = false;
+      if (processors != null)
+      {
+         for (RecordProcessor processor : processors)
+         {
+            cacheable &= processor instanceof AbstractRecordProcessor;
+            if (processor.isRecording())
+            {
+               recording = true;
+               processEnvelope |= processor.isProcessEnvelope();
+               sampling |= processor instanceof AbstractRecordProcessor && ((AbstractRecordProcessor)processor).getSamplingPolicy() != null;
+            }
+         }
+      }
+      final boolean operationMetrics = metrics instanceof EndpointMetricsImpl
+            && ((EndpointMetricsImpl)metrics).isOperationMetricsEnabled();
+      return new RecordingState(epoch, cacheable, recording, processEnvelope, sampling, operationMetrics,
+            JfrEvents.isRecordingRunning());
+   }
+
+   /**
+    * Returns true if records are to be created, or any other per-message work
+    * is to be performed by the recording handler
+    */
+   public boolean isActive()
+   {
+      return recording || operationMetrics || flightRecording;
+   }
+
+   /**
+    * Returns true if this state still reflects the processors configuration
+    */
+   public boolean isCurrent()
+   {
+      return cacheable && epoch == configEpoch.get();
+   }
+
+   /**
+    * Returns true if there's at least a record processor in recording mode
+    */
+   public boolean isRecording()
+   {
+      return recording;
+   }
+
+   public boolean isProcessEnvelope()
+   {
+      return processEnvelope;
+   }
+
+   /**
+    * Returns true if some recording processor samples the record groups
+    */
+   public boolean isSampling()
+   {
+      return sampling;
+   }
+
+   /**
+    * Returns true if the per-operation metrics of the endpoint are enabled
+    */
+   public boolean isOperationMetrics()
+   {
+      return operationMetrics;
+   }
+
+   /**
+    * Returns true if a flight recording was running when this state was computed;
+    * the JFR events are then created if their type is enabled.
+    */
+   public boolean isFlightRecording()
+   {
+      return flightRecording;
+   }
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.monitoring.SamplingPolicy.Decision;
+import org.jboss.ws.common.monitoring.SamplingPolicy.Sample;
+
+/**
+ * The sampling decisions taken for a record group by the policies of the
+ * endpoint record processors. A decision is created when the group starts
+ * and is attached to the group records; processors get a record only if
+ * they keep the group.
+ * 
+ * The records of groups deferred by some policy are buffered here and passed
+ * to the policies when the group is completed; the records the policies keep
+ * then go through the endpoint asynchronous dispatcher, if any.
+ * 
+ * Instances are meant to be used by the thread serving the message exchange.
+ * 
+ * @since 18-Oct-2026
+ */
+public final class SamplingDecision
+{
+   private final RecordProcessor[] processors;
+   private final SamplingPolicy[] policies;
+   private final Decision[] decisions;
+   private final Object[] states;
+   private final AsyncRecordDispatcher dispatcher;
+   private final boolean dropped;
+   private final boolean deferred;
+   private final boolean deferredEnvelope;
+   private final long begin = System.nanoTime();
+   private List<Record> records;
+
+   private SamplingDecision(RecordProcessor[] processors, SamplingPolicy[] policies, Decision[] decisions, Object[] states,
+         AsyncRecordDispatcher dispatcher, boolean dropped, boolean deferred, boolean deferredEnvelope)
+   {
+      this.processors = processors;
+      this.policies = policies;
+      this.decisions = decisions;
+      this.states = states;
+      this.dispatcher = dispatcher;
+      this.dropped = dropped;
+      this.deferred = deferred;
+      this.deferredEnvelope = deferredEnvelope;
+   }
+
+   /**
+    * Samples a new record group
+    * 
+    * @param processors  the endpoint record processors
+    * @return the sampling decision
+    */
+   public static SamplingDecision sample(List<RecordProcessor> processors)
+   {
+      return sample(processors, null);
+   }
+
+   /**
+    * Samples a new record group
+    * 
+    * @param processors  the endpoint record processors
+    * @param dispatcher  the endpoint asynchronous dispatcher, or null
+    * @return the sampling decision
+    */
+   public static SamplingDecision sample(List<RecordProcessor> processors, AsyncRecordDispatcher dispatcher)
+   {
+      RecordProcessor[] array = processors.toArray(new RecordProcessor[processors.size()]);
+      SamplingPolicy[] policies = new SamplingPolicy[array.length];
+      Decision[] decisions = new Decision[array.length];
+      Object[] states = null;
+      boolean dropped = true;
+      boolean deferred = false;
+      boolean deferredEnvelope = false;
+      for (int i = 0; i < array.length; i++)
+      {
+         RecordProcessor processor = array[i];
+         if (!processor.isRecording())
+         {
+            decisions[i] = Decision.DROP;
+            continue;
+         }
+         policies[i] = processor instanceof AbstractRecordProcessor ? ((AbstractRecordProcessor)processor).getSamplingPolicy() : null;
+         Sample sample = policies[i] != null ? policies[i].sampleGroup() : Sample.KEEP;
+         decisions[i] = sample.getDecision();
+         if (decisions[i] == Decision.DEFER)
+         {
+            if (sample.getState() != null)
+            {
+               if (states == null)
+               {
+                  states = new Object[array.length];
+               }
+               states[i] = sample.getState();
+            }
+            deferred = true;
+            deferredEnvelope |= processor.isProcessEnvelope();
+         }
+         dropped &= decisions[i] == Decision.DROP;
+      }
+      return new SamplingDecision(array, policies, decisions, states, dispatcher, dropped, deferred, deferredEnvelope);
+   }
+
+   /**
+    * Returns true if no processor wants the group records, which hence
+    * don't even need to be created
+    */
+   public boolean isDropped()
+   {
+      return dropped;
+   }
+
+   /**
+    * Returns true if the given processor is to be passed the group records
+    * right away
+    * 
+    * @param processor
+    * @return
+    */
+   public boolean isKept(RecordProcessor processor)
+   {
+      for (int i = 0; i < processors.length; i++)
+      {
+         if (processors[i] == processor)
+         {
+            return decisions[i] == Decision.KEEP;
+         }
+      }
+      //added after the group started
+      return true;
+   }
+
+   /**
+    * Adds a group record, which has already been passed to the endpoint
+    * processors; the record is buffered if the decision is deferred for
+    * some processor.
+    * 
+    * @param record
+    */
+   public void add(Record record)
+   {
+      if (deferred)
+      {
+         if (deferredEnvelope)
+         {
+            //the record outlives the message exchange, so get the lazily captured envelope now
+            record.getEnvelope();
+         }
+         if (records == null)
+         {
+            records = new ArrayList<Record>(2);
+         }
+         records.add(record);
+      }
+   }
+
+   /**
+    * Completes the group, passing the buffered records to the policies
+    * that deferred their decision.
+    * 
+    * @param fault  whether the message exchange ended with a fault
+    */
+   public void complete(boolean fault)
+   {
+      if (!deferred || records == null)
+      {
+         return;
+      }
+      final long duration = (System.nanoTime() - begin) / 1000000;
+      for (int i = 0; i < processors.length; i++)
+      {
+         RecordProcessor processor = processors[i];
+         if (decisions[i] == Decision.DEFER && processor.isRecording())
+         {
+            List<Record> matching = new ArrayList<Record>(records.size());
+            for (Record record : records)
+            {
+               if (matches(processor, record))
+               {
+                  matching.add(record);
+               }
+            }
+            if (!matching.isEmpty())
+            {
+               policies[i].complete(states != null ? states[i] : null, matching, fault, duration, new ProcessorSink(processor, dispatcher));
+            }
+         }
+      }
+      records = null;
+   }
+
+   private static boolean matches(RecordProcessor processor, Record record)
+   {
+      if (processor instanceof AbstractRecordProcessor)
+      {
+         return ((AbstractRecordProcessor)processor).matches(record);
+      }
+      boolean match = true;
+      if (processor.getFilters() != null)
+      {
+         for (Iterator<RecordFilter> it = processor.getFilters().iterator(); it.hasNext() && match;)
+         {
+            match = it.next().match(record);
+         }
+      }
+      return match;
+   }
+
+   /**
+    * Passes the kept records to the processor, through the dispatcher if any
+    */
+   private static final class ProcessorSink implements SamplingPolicy.Sink
+   {
+      private final RecordProcessor processor;
+      private final AsyncRecordDispatcher dispatcher;
+
+      ProcessorSink(RecordProcessor processor, AsyncRecordDispatcher dispatcher)
+      {
+         this.processor = processor;
+         this.dispatcher = dispatcher;
+      }
+
+      public void process(List<Record> records)
+      {
+         for (Record record : records)
+         {
+            if (dispatcher != null)
+            {
+               dispatcher.dispatch(record, processor);
+            }
+            else
+            {
+               processor.processRecord(record);
+            }
+         }
+      }
+   }
+}
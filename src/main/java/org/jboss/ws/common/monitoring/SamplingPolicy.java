@@ -0,0 +1,521 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * A policy deciding which record groups (i.e. message exchanges) a record
+ * processor actually gets. The decision is taken once per group, so the
+ * inbound and outbound records of a message exchange are either kept or
+ * dropped together.
+ * 
+ * Policies can also defer the decision to the end of the message exchange;
+ * the records of deferred groups are buffered in the meantime and passed to
+ * the processor through a {@link Sink}, which goes through the endpoint
+ * asynchronous dispatcher, if any.
+ * 
+ * Policies are configured on {@link AbstractRecordProcessor} instances and
+ * are cloned together with them; they can be created from a string
+ * specification using {@link #valueOf(String)}:
+ * <ul>
+ * <li>rate:&lt;r&gt; keeps a random fraction r (0..1) of the groups</li>
+ * <li>count:&lt;n&gt; keeps a group every n</li>
+ * <li>reservoir:&lt;k&gt;/&lt;ms&gt; keeps k groups chosen uniformly at random every ms milliseconds</li>
+ * <li>outliers:&lt;ms&gt; keeps the faults and the groups lasting at least ms milliseconds</li>
+ * </ul>
+ * 
+ * @since 18-Oct-2026
+ */
+public abstract class SamplingPolicy implements Serializable, Cloneable
+{
+   private static final long serialVersionUID = 1L;
+
+   public enum Decision
+   {
+      KEEP, DROP, DEFER
+   }
+
+   /**
+    * Passes the records of the deferred groups a policy keeps to its record processor
+    */
+   public interface Sink
+   {
+      void process(List<Record> records);
+   }
+
+   /**
+    * A decision about a group, together with the state a policy deferring
+    * its decision needs when the group completes
+    */
+   public static final class Sample
+   {
+      static final Sample KEEP = new Sample(Decision.KEEP, null);
+      static final Sample DROP = new Sample(Decision.DROP, null);
+      static final Sample DEFER = new Sample(Decision.DEFER, null);
+
+      private final Decision decision;
+      private final Object state;
+
+      public Sample(Decision decision, Object state)
+      {
+         this.decision = decision;
+         this.state = state;
+      }
+
+      static Sample of(Decision decision)
+      {
+         switch (decision)
+         {
+            case KEEP :
+               return KEEP;
+            case DROP :
+               return DROP;
+            default :
+               return DEFER;
+         }
+      }
+
+      public Decision getDecision()
+      {
+         return decision;
+      }
+
+      public Object getState()
+      {
+         return state;
+      }
+   }
+
+   /**
+    * Decides about a group that just started
+    * 
+    * @return the decision
+    */
+   public abstract Decision sample();
+
+   /**
+    * Decides about a group that just started; policies needing some state
+    * about their deferred groups override this method, the default
+    * implementation returns the {@link #sample()} decision without any state.
+    * 
+    * @return the decision and the group state
+    */
+   public Sample sampleGroup()
+   {
+      return Sample.of(sample());
+   }
+
+   /**
+    * Completes the decision about a deferred group; the default implementation
+    * passes the records to the sink when {@link #keep(boolean, long)} returns true.
+    * 
+    * @param state      the group state returned by {@link #sampleGroup()}
+    * @param records    the records of the group
+    * @param fault      whether the message exchange ended with a fault
+    * @param duration   the message exchange duration in milliseconds
+    * @param sink       the sink passing the records to the record processor
+    */
+   public void complete(Object state, List<Record> records, boolean fault, long duration, Sink sink)
+   {
+      if (keep(fault, duration))
+      {
+         sink.process(records);
+      }
+   }
+
+   protected boolean keep(boolean fault, long duration)
+   {
+      return false;
+   }
+
+   @Override
+   public SamplingPolicy clone()
+   {
+      try
+      {
+         return (SamplingPolicy)super.clone();
+      }
+      catch (CloneNotSupportedException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   public static SamplingPolicy fixedRate(double rate)
+   {
+      return new FixedRate(rate);
+   }
+
+   public static SamplingPolicy oneEvery(int count)
+   {
+      return new OneEvery(count);
+   }
+
+   public static SamplingPolicy reservoir(int size, long period)
+   {
+      return new Reservoir(size, period);
+   }
+
+   public static SamplingPolicy outliers(long threshold)
+   {
+      return new Outliers(threshold);
+   }
+
+   /**
+    * Creates a policy from its string specification, as returned by {@link #toString()}
+    * 
+    * @param spec  the specification, null or empty for no policy
+    * @return the policy, or null
+    */
+   public static SamplingPolicy valueOf(String spec)
+   {
+      if (spec == null || spec.trim().length() == 0)
+      {
+         return null;
+      }
+      String s = spec.trim();
+      int i = s.indexOf(':');
+      String type = i > 0 ? s.substring(0, i) : s;
+      String args = i > 0 ? s.substring(i + 1) : "";
+      try
+      {
+         if ("rate".equals(type))
+         {
+            return fixedRate(Double.parseDouble(args));
+         }
+         if ("count".equals(type))
+         {
+            return oneEvery(Integer.parseInt(args));
+         }
+         if ("reservoir".equals(type))
+         {
+            int j = args.indexOf('/');
+            return reservoir(Integer.parseInt(args.substring(0, j)), Long.parseLong(args.substring(j + 1)));
+         }
+         if ("outliers".equals(type))
+         {
+            return outliers(Long.parseLong(args));
+         }
+      }
+      catch (RuntimeException e)
+      {
+         throw new IllegalArgumentException("Invalid sampling policy: " + spec, e);
+      }
+      throw new IllegalArgumentException("Invalid sampling policy: " + spec);
+   }
+
+   private static final class FixedRate extends SamplingPolicy
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final double rate;
+
+      FixedRate(double rate)
+      {
+         if (rate < 0 || rate > 1)
+         {
+            throw new IllegalArgumentException("Sampling rate must be between 0 and 1: " + rate);
+         }
+         this.rate = rate;
+      }
+
+      public Decision sample()
+      {
+         return ThreadLocalRandom.current().nextDouble() < rate ? Decision.KEEP : Decision.DROP;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "rate:" + rate;
+      }
+   }
+
+   private static final class OneEvery extends SamplingPolicy
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final int count;
+      private AtomicLong groups = new AtomicLong();
+
+      OneEvery(int count)
+      {
+         if (count < 1)
+         {
+            throw new IllegalArgumentException("Sampling count must be positive: " + count);
+         }
+         this.count = count;
+      }
+
+      public Decision sample()
+      {
+         return groups.getAndIncrement() % count == 0 ? Decision.KEEP : Decision.DROP;
+      }
+
+      @Override
+      public SamplingPolicy clone()
+      {
+         OneEvery clone = (OneEvery)super.clone();
+         clone.groups = new AtomicLong();
+         return clone;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "count:" + count;
+      }
+   }
+
+   /**
+    * Reservoir sampling (Algorithm R) over the groups started in each period.
+    * When the i-th group of a period starts, it is assigned the slot i if the
+    * reservoir is not full yet, or else a random slot j &lt; i, in which case
+    * it is dropped if j is not a reservoir slot. A group owns its slot until a
+    * later group is assigned the same slot; only the groups still owning
+    * their slot when they complete are buffered, so the reservoir is a uniform
+    * sample of the groups started in the period, regardless of the order the
+    * groups complete in.
+    * 
+    * The reservoir is passed to the processor by a timer at the end of the
+    * period; a group of the period which completes later on is passed to the
+    * processor on completion, provided it still owns its slot.
+    */
+   private static final class Reservoir extends SamplingPolicy
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final int size;
+      private final long period;
+      private transient Period current;
+
+      Reservoir(int size, long period)
+      {
+         if (size < 1 || period < 1)
+         {
+            throw new IllegalArgumentException("Invalid reservoir: " + size + "/" + period);
+         }
+         this.size = size;
+         this.period = period;
+      }
+
+      public Decision sample()
+      {
+         return sampleGroup().getDecision();
+      }
+
+      @Override
+      public synchronized Sample sampleGroup()
+      {
+         final long now = System.currentTimeMillis();
+         if (current == null || now - current.start >= period)
+         {
+            final Period started = new Period(now, size);
+            current = started;
+            Flusher.EXECUTOR.schedule(new Runnable() {
+               public void run()
+               {
+                  flush(started);
+               }
+            }, period, TimeUnit.MILLISECONDS);
+         }
+         final Period p = current;
+         final long index = ++p.started;
+         final long slot = index <= size ? index - 1 : ThreadLocalRandom.current().nextLong(index);
+         if (slot >= size)
+         {
+            return Sample.DROP;
+         }
+         p.owners[(int)slot] = index;
+         return new Sample(Decision.DEFER, new Ticket(p, (int)slot, index));
+      }
+
+      @Override
+      public void complete(Object state, List<Record> records, boolean fault, long duration, Sink sink)
+      {
+         final Ticket ticket = (Ticket)state;
+         final Period p = ticket.period;
+         synchronized (this)
+         {
+            if (p.owners[ticket.slot] != ticket.index)
+            {
+               //replaced by a group started later in the period
+               return;
+            }
+            if (!p.flushed)
+            {
+               p.owned[ticket.slot] = ticket.index;
+               p.groups[ticket.slot] = records;
+               p.sinks[ticket.slot] = sink;
+               return;
+            }
+         }
+         sink.process(records);
+      }
+
+      /**
+       * Passes the groups still owning their slot to the processor at the end of the period
+       */
+      void flush(Period p)
+      {
+         final List<List<Record>> groups = new ArrayList<List<Record>>(size);
+         final List<Sink> sinks = new ArrayList<Sink>(size);
+         synchronized (this)
+         {
+            p.flushed = true;
+            if (current == p)
+            {
+               //no group is to be started in a flushed period
+               current = null;
+            }
+            for (int i = 0; i < size; i++)
+            {
+               if (p.groups[i] != null && p.owned[i] == p.owners[i])
+               {
+                  groups.add(p.groups[i]);
+                  sinks.add(p.sinks[i]);
+               }
+               p.groups[i] = null;
+               p.sinks[i] = null;
+            }
+         }
+         for (int i = 0; i < groups.size(); i++)
+         {
+            sinks.get(i).process(groups.get(i));
+         }
+      }
+
+      @Override
+      public SamplingPolicy clone()
+      {
+         Reservoir clone = (Reservoir)super.clone();
+         clone.current = null;
+         return clone;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "reservoir:" + size + "/" + period;
+      }
+
+      /**
+       * The reservoir of a period; the slot owners are the indexes of the
+       * groups last assigned each slot
+       */
+      private static final class Period
+      {
+         final long start;
+         final long[] owners;
+         final long[] owned;
+         final List<Record>[] groups;
+         final Sink[] sinks;
+         long started;
+         boolean flushed;
+
+         @SuppressWarnings("unchecked")
+         Period(long start, int size)
+         {
+            this.start = start;
+            this.owners = new long[size];
+            this.owned = new long[size];
+            this.groups = new List[size];
+            this.sinks = new Sink[size];
+         }
+      }
+
+      private static final class Ticket
+      {
+         final Period period;
+         final int slot;
+         final long index;
+
+         Ticket(Period period, int slot, long index)
+         {
+            this.period = period;
+            this.slot = slot;
+            this.index = index;
+         }
+      }
+
+      /**
+       * The timer flushing the reservoirs, shared by all the policies and only started when needed
+       */
+      private static final class Flusher
+      {
+         static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+         private static ScheduledThreadPoolExecutor createExecutor()
+         {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+               public Thread newThread(Runnable r)
+               {
+                  Thread thread = new Thread(r, "jbossws-sampling-reservoir-flusher");
+                  thread.setDaemon(true);
+                  //do not pin the class loader of the deployment which happened to start the thread
+                  thread.setContextClassLoader(Reservoir.class.getClassLoader());
+                  return thread;
+               }
+            });
+            executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+         }
+      }
+   }
+
+   private static final class Outliers extends SamplingPolicy
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final long threshold;
+
+      Outliers(long threshold)
+      {
+         this.threshold = threshold;
+      }
+
+      public Decision sample()
+      {
+         return Decision.DEFER;
+      }
+
+      @Override
+      protected boolean keep(boolean fault, long duration)
+      {
+         return fault || duration >= threshold;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "outliers:" + threshold;
+      }
+   }
+}
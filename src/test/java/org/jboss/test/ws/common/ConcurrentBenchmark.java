@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal harness for the multi-threaded micro benchmarks of this testsuite;
+ * benchmarks are plain main classes, so that they're compiled with the tests
+ * but not run by surefire.
+ * 
+ * @since 18-Oct-2026
+ */
+public abstract class ConcurrentBenchmark
+{
+   private final String name;
+
+   protected ConcurrentBenchmark(String name)
+   {
+      this.name = name;
+   }
+
+   /**
+    * Performs a single operation of the benchmark
+    * 
+    * @param thread  the index of the calling thread
+    * @param iteration  the iteration of the calling thread
+    */
+   protected abstract void operation(int thread, int iteration) throws Exception;
+
+   /**
+    * Runs the given number of operations on each of the provided threads and
+    * returns the throughput as operations per millisecond.
+    */
+   public double run(final int threads, final int iterations) throws Exception
+   {
+      final CountDownLatch start = new CountDownLatch(1);
+      final CountDownLatch done = new CountDownLatch(threads);
+      final Exception[] failure = new Exception[1];
+      for (int t = 0; t < threads; t++)
+      {
+         final int thread = t;
+         Thread worker = new Thread(new Runnable() {
+            public void run()
+            {
+               try
+               {
+                  start.await();
+                  for (int i = 0; i < iterations; i++)
+                  {
+                     operation(thread, i);
+                  }
+               }
+               catch (Exception e)
+               {
+                  failure[0] = e;
+               }
+               finally
+               {
+                  done.countDown();
+               }
+            }
+         }, name + "-" + t);
+         worker.setDaemon(true);
+         worker.start();
+      }
+      final long begin = System.nanoTime();
+      start.countDown();
+      done.await();
+      final long elapsed = System.nanoTime() - begin;
+      if (failure[0] != null)
+      {
+         throw failure[0];
+      }
+      return (double)threads * iterations / TimeUnit.NANOSECONDS.toMillis(Math.max(elapsed, 1000000));
+   }
+
+   /**
+    * Runs a warm-up round followed by a measured one and prints the result.
+    */
+   public void report(int threads, int iterations) throws Exception
+   {
+      run(threads, iterations);
+      double throughput = run(threads, iterations);
+      System.out.println(String.format("%-40s threads=%-3d %12.1f ops/ms", name, threads, throughput));
+   }
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.invocation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import javax.xml.namespace.QName;
+import jakarta.xml.ws.handler.MessageContext;
+import jakarta.xml.ws.handler.soap.SOAPMessageContext;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.invocation.RecordingServerHandler;
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.JfrEvents;
+import org.jboss.ws.common.monitoring.AbstractRecordProcessor;
+import org.jboss.ws.common.monitoring.HostFilter;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.wsf.spi.deployment.Endpoint;
+import org.jboss.wsf.spi.invocation.EndpointAssociation;
+import org.jboss.wsf.spi.management.EndpointMetrics;
+
+/**
+ * Test the RecordingServerHandler
+ *
+ * @since 18-Oct-2026
+ */
+public class RecordingServerHandlerTestCase extends TestCase
+{
+   public void testHostFilterWithoutProcessingHosts() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setRecording(true);
+      recorder.setProcessSourceHost(false);
+      recorder.setProcessDestinationHost(false);
+      recorder.setProcessHeaders(false);
+      recorder.setProcessEnvelope(false);
+      recorder.addFilter(new HostFilter("client", true));
+      MemoryBufferRecorder other = new MemoryBufferRecorder();
+      other.setRecording(true);
+      other.setProcessSourceHost(false);
+      other.setProcessDestinationHost(false);
+      other.setProcessHeaders(false);
+      other.setProcessEnvelope(false);
+      other.addFilter(new HostFilter("elsewhere", true));
+
+      EndpointAssociation.setEndpoint(endpoint(recorder, other));
+      try
+      {
+         Map<String, Object> properties = new HashMap<String, Object>();
+         properties.put(MessageContext.SERVLET_REQUEST, request("client", "http://server:8080/test"));
+         properties.put(MessageContext.HTTP_REQUEST_HEADERS,
+               Collections.singletonMap("SOAPAction", Collections.singletonList("urn:echo")));
+         new TestHandler().inbound(context(properties));
+      }
+      finally
+      {
+         EndpointAssociation.removeEndpoint();
+      }
+
+      assertEquals(1, recorder.getSize());
+      assertEquals(0, other.getSize());
+      Map<String, List<Record>> records = recorder.getRecordsByClientHost("client");
+      assertEquals(1, records.size());
+      Record record = records.values().iterator().next().get(0);
+      assertEquals("client", record.getSourceHost());
+      assertEquals("server", record.getDestinationHost());
+      assertEquals(Collections.singletonList("urn:echo"), record.getHeaders().get("SOAPAction"));
+   }
+
+   public void testNothingEnabled() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setRecording(false);
+      EndpointAssociation.setEndpoint(endpoint(new EndpointMetricsImpl(), recorder));
+      try
+      {
+         Map<String, Object> properties = new HashMap<String, Object>();
+         List<String> accessed = new ArrayList<String>();
+         TestHandler handler = new TestHandler();
+         assertTrue(handler.inbound(context(properties, accessed)));
+         assertTrue(handler.outbound(context(properties, accessed)));
+         if (!JfrEvents.isRecordingRunning())
+         {
+            assertEquals(Collections.emptyList(), accessed);
+         }
+      }
+      finally
+      {
+         EndpointAssociation.removeEndpoint();
+      }
+      assertEquals(0, recorder.getSize());
+   }
+
+   public void testOperationMetricsOnly() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setRecording(false);
+      EndpointMetricsImpl metrics = new EndpointMetricsImpl();
+      metrics.setOperationMetricsEnabled(true);
+      QName operation = new QName("urn:test", "echo");
+      EndpointAssociation.setEndpoint(endpoint(metrics, recorder));
+      try
+      {
+         Map<String, Object> properties = new HashMap<String, Object>();
+         properties.put(MessageContext.WSDL_OPERATION, operation);
+         List<String> accessed = new ArrayList<String>();
+         TestHandler handler = new TestHandler();
+         handler.inbound(context(properties, accessed));
+         handler.outbound(context(properties, accessed));
+         for (String key : accessed)
+         {
+            assertFalse(key, key.endsWith(".samplingDecision"));
+         }
+      }
+      finally
+      {
+         EndpointAssociation.removeEndpoint();
+      }
+      assertEquals(Collections.singletonList(operation), metrics.getOperationMetrics().getOperations());
+      assertEquals(0, recorder.getSize());
+   }
+
+   private static class TestHandler extends RecordingServerHandler
+   {
+      public boolean inbound(SOAPMessageContext ctx)
+      {
+         return handleInbound(ctx);
+      }
+
+      public boolean outbound(SOAPMessageContext ctx)
+      {
+         return handleOutbound(ctx);
+      }
+   }
+
+   /**
+    * An endpoint passing the records to the processors whose filters match, like AbstractDefaultEndpoint
+    */
+   private static Endpoint endpoint(AbstractRecordProcessor... processors)
+   {
+      return endpoint(null, processors);
+   }
+
+   private static Endpoint endpoint(final EndpointMetrics metrics, final AbstractRecordProcessor... processors)
+   {
+      final List<RecordProcessor> list = Arrays.<RecordProcessor>asList(processors);
+      return (Endpoint)Proxy.newProxyInstance(Endpoint.class.getClassLoader(), new Class<?>[] {Endpoint.class},
+            new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  String m = method.getName();
+                  if ("getRecordProcessors".equals(m))
+                  {
+                     return list;
+                  }
+                  if ("processRecord".equals(m))
+                  {
+                     for (AbstractRecordProcessor processor : processors)
+                     {
+                        if (processor.isRecording() && processor.matches((Record)args[0]))
+                        {
+                           processor.processRecord((Record)args[0]);
+                        }
+                     }
+                     return null;
+                  }
+                  if ("getShortName".equals(m))
+                  {
+                     return "TestEndpoint";
+                  }
+                  if ("getEndpointMetrics".equals(m))
+                  {
+                     return metrics;
+                  }
+                  if ("getAttachment".equals(m))
+                  {
+                     return null;
+                  }
+                  throw new UnsupportedOperationException(m);
+               }
+            });
+   }
+
+   private static HttpServletRequest request(final String remoteHost, final String url)
+   {
+      return (HttpServletRequest)Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class}, new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  String m = method.getName();
+                  if ("getRemoteHost".equals(m))
+                  {
+                     return remoteHost;
+                  }
+                  if ("getRequestURL".equals(m))
+                  {
+                     return new StringBuffer(url);
+                  }
+                  throw new UnsupportedOperationException(m);
+               }
+            });
+   }
+
+   /**
+    * A message context backed by the given map, without any message
+    */
+   private static SOAPMessageContext context(Map<String, Object> properties)
+   {
+      return context(properties, new ArrayList<String>());
+   }
+
+   /**
+    * A message context backed by the given map, without any message, adding the accessed keys to the given list
+    */
+   private static SOAPMessageContext context(final Map<String, Object> properties, final List<String> accessed)
+   {
+      return (SOAPMessageContext)Proxy.newProxyInstance(SOAPMessageContext.class.getClassLoader(),
+            new Class<?>[] {SOAPMessageContext.class}, new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  if (method.getDeclaringClass() == Map.class)
+                  {
+                     if (args != null && args[0] instanceof String)
+                     {
+                        accessed.add((String)args[0]);
+                     }
+                     return method.invoke(properties, args);
+                  }
+                  throw new UnsupportedOperationException(method.getName());
+               }
+            });
+   }
+}
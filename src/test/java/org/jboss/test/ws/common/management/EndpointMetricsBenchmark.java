@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jboss.test.ws.common.ConcurrentBenchmark;
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.wsf.spi.management.EndpointMetrics;
+
+/**
+ * Compares the throughput of the striped counters based EndpointMetricsImpl with
+ * the former read-write lock based implementation, with 1, 8 and 64 threads;
+ * with more than a thread, one of them keeps on polling the average processing
+ * time, as a JMX client would do.
+ * 
+ * Run with: java -cp ... org.jboss.test.ws.common.management.EndpointMetricsBenchmark
+ * 
+ * @since 18-Oct-2026
+ */
+public class EndpointMetricsBenchmark
+{
+   private static final int ITERATIONS = 200000;
+
+   public static void main(String[] args) throws Exception
+   {
+      for (int threads : new int[] {1, 8, 64})
+      {
+         benchmark("ReadWriteLockEndpointMetrics", new ReadWriteLockEndpointMetrics(), threads).report(threads, ITERATIONS);
+         benchmark("EndpointMetricsImpl", new EndpointMetricsImpl(), threads).report(threads, ITERATIONS);
+      }
+   }
+
+   private static ConcurrentBenchmark benchmark(String name, final EndpointMetrics metrics, final int threads)
+   {
+      metrics.start();
+      return new ConcurrentBenchmark(name) {
+         @Override
+         protected void operation(int thread, int iteration)
+         {
+            if (thread == 0 && threads > 1)
+            {
+               metrics.getAverageProcessingTime();
+            }
+            else if (iteration % 10 == 0)
+            {
+               metrics.processFaultMessage(metrics.processRequestMessage());
+            }
+            else
+            {
+               metrics.processResponseMessage(metrics.processRequestMessage());
+            }
+         }
+      };
+   }
+
+   /**
+    * The EndpointMetricsImpl before the read-write lock was removed
+    */
+   private static class ReadWriteLockEndpointMetrics implements EndpointMetrics
+   {
+      private volatile boolean started = false;
+      private final ReadWriteLock lock = new ReentrantReadWriteLock();
+      private final Lock r = lock.readLock();
+      private final Lock w = lock.writeLock();
+      private final AtomicLong requestCount = new AtomicLong(0);
+      private final AtomicLong responseCount = new AtomicLong(0);
+      private final AtomicLong faultCount = new AtomicLong(0);
+      private final AtomicLong maxProcessingTime = new AtomicLong(0);
+      private final AtomicLong minProcessingTime = new AtomicLong(0);
+      private final AtomicLong totalProcessingTime = new AtomicLong(0);
+      private volatile long updateTime = 0;
+
+      public void start()
+      {
+         started = true;
+      }
+
+      public void stop()
+      {
+         started = false;
+      }
+
+      public long processRequestMessage()
+      {
+         if (!started)
+         {
+            return 0;
+         }
+         requestCount.incrementAndGet();
+         updateTime = System.nanoTime();
+         return updateTime;
+      }
+
+      public void processResponseMessage(long beginTime)
+      {
+         process(responseCount, beginTime);
+      }
+
+      public void processFaultMessage(long beginTime)
+      {
+         process(faultCount, beginTime);
+      }
+
+      private void process(AtomicLong count, long beginTime)
+      {
+         if (beginTime > 0)
+         {
+            final long procTime = System.nanoTime() - beginTime;
+            r.lock();
+            try
+            {
+               count.incrementAndGet();
+               totalProcessingTime.addAndGet(procTime);
+               updateTime = System.nanoTime();
+            }
+            finally
+            {
+               r.unlock();
+            }
+            minProcessingTime.compareAndSet(0, procTime);
+            long old = maxProcessingTime.get();
+            while (procTime > old && !maxProcessingTime.compareAndSet(old, procTime))
+               old = maxProcessingTime.get();
+            old = minProcessingTime.get();
+            while (procTime < old && !minProcessingTime.compareAndSet(old, procTime))
+               old = minProcessingTime.get();
+         }
+      }
+
+      public long getAverageProcessingTime()
+      {
+         w.lock();
+         try
+         {
+            final long totResponses = responseCount.get() + faultCount.get();
+            return totResponses != 0 ? totalProcessingTime.get() / (totResponses * 1000000) : 0;
+         }
+         finally
+         {
+            w.unlock();
+         }
+      }
+
+      public long getMinProcessingTime()
+      {
+         return minProcessingTime.get() / 1000000;
+      }
+
+      public long getMaxProcessingTime()
+      {
+         return maxProcessingTime.get() / 1000000;
+      }
+
+      public long getTotalProcessingTime()
+      {
+         return totalProcessingTime.get() / 1000000;
+      }
+
+      public long getRequestCount()
+      {
+         return requestCount.get();
+      }
+
+      public long getFaultCount()
+      {
+         return faultCount.get();
+      }
+
+      public long getResponseCount()
+      {
+         return responseCount.get();
+      }
+
+      public long getUpdateTime()
+      {
+         return updateTime;
+      }
+   }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.EndpointMetricsService;
+import org.jboss.ws.common.management.EndpointRegistry;
+import org.jboss.wsf.spi.deployment.Endpoint;
+import org.jboss.wsf.spi.management.EndpointMetrics;
+
+/**
+ * Test the EndpointMetricsService
+ *
+ * @since 18-Oct-2026
+ */
+public class EndpointMetricsServiceTestCase extends TestCase
+{
+   private static final String[] METRIC_NAMES = new String[] { "requestCount", "responseCount", "faultCount",
+         "minProcessingTime", "maxProcessingTime", "averageProcessingTime", "totalProcessingTime", "p99ProcessingTime",
+         "updateTime" };
+
+   private EndpointMetricsImpl metrics;
+   private Endpoint impl;
+   private Endpoint plain;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      metrics = new EndpointMetricsImpl();
+      metrics.start();
+      metrics.processResponseMessage(metrics.processRequestMessage());
+      metrics.processFaultMessage(metrics.processRequestMessage());
+      metrics.processRequestMessage();
+      impl = endpoint(new ObjectName("jboss.ws:context=ctx,endpoint=Impl"), "Impl", metrics);
+      plain = endpoint(null, "Plain", plainMetrics());
+      EndpointRegistry.register(impl);
+      EndpointRegistry.register(plain);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      EndpointRegistry.unregister(impl);
+      EndpointRegistry.unregister(plain);
+   }
+
+   public void testMetricNames() throws Exception
+   {
+      EndpointMetricsService service = new EndpointMetricsService();
+      assertTrue(Arrays.equals(METRIC_NAMES, service.getMetricNames()));
+      //a copy is returned
+      service.getMetricNames()[0] = "changed";
+      assertEquals("requestCount", service.getMetricNames()[0]);
+   }
+
+   public void testEndpointMetrics() throws Exception
+   {
+      EndpointMetricsService service = new EndpointMetricsService();
+      CompositeData implRow = null;
+      CompositeData plainRow = null;
+      for (CompositeData row : service.getEndpointMetrics())
+      {
+         String name = (String)row.get("endpoint");
+         if ("jboss.ws:context=ctx,endpoint=Impl".equals(name))
+         {
+            implRow = row;
+         }
+         else if ("Plain".equals(name))
+         {
+            plainRow = row;
+         }
+      }
+      assertNotNull(implRow);
+      assertNotNull(plainRow);
+      String[] items = implRow.getCompositeType().keySet().toArray(new String[0]);
+      assertEquals(METRIC_NAMES.length + 1, items.length);
+      for (String metric : METRIC_NAMES)
+      {
+         assertTrue(metric, implRow.containsKey(metric));
+         assertEquals(Long.class, implRow.get(metric).getClass());
+      }
+      assertEquals(3L, implRow.get("requestCount"));
+      assertEquals(1L, implRow.get("responseCount"));
+      assertEquals(1L, implRow.get("faultCount"));
+      assertEquals(metrics.getTotalProcessingTime(), implRow.get("totalProcessingTime"));
+      assertTrue((Long)implRow.get("p99ProcessingTime") >= 0);
+
+      //the percentile is not available from metrics other than EndpointMetricsImpl
+      assertEquals(7L, plainRow.get("requestCount"));
+      assertEquals(5L, plainRow.get("responseCount"));
+      assertEquals(2L, plainRow.get("faultCount"));
+      assertEquals(-1L, plainRow.get("p99ProcessingTime"));
+      assertEquals(42L, plainRow.get("updateTime"));
+   }
+
+   public void testEndpointMetricsValues() throws Exception
+   {
+      EndpointMetricsService service = new EndpointMetricsService();
+      assertEquals(0, service.getEndpointMetricsValues(null).length);
+      assertEquals(0, service.getEndpointMetricsValues(new String[0]).length);
+
+      String[] names = new String[] { "Plain", "unknown", "jboss.ws:context=ctx,endpoint=Impl" };
+      long[] values = service.getEndpointMetricsValues(names);
+      final int n = METRIC_NAMES.length;
+      assertEquals(names.length * n, values.length);
+      assertTrue(Arrays.equals(new long[] { 7, 5, 2, 1, 3, 2, 10, -1, 42 }, Arrays.copyOfRange(values, 0, n)));
+      //endpoints which are not started
+      for (int i = n; i < 2 * n; i++)
+      {
+         assertEquals(-1, values[i]);
+      }
+      assertEquals(3, values[2 * n]);
+      assertEquals(1, values[2 * n + 1]);
+      assertEquals(1, values[2 * n + 2]);
+      assertEquals(metrics.getTotalProcessingTime(), values[2 * n + 6]);
+   }
+
+   private static Endpoint endpoint(final ObjectName name, final String shortName, final EndpointMetrics metrics)
+   {
+      return (Endpoint)Proxy.newProxyInstance(Endpoint.class.getClassLoader(), new Class<?>[] {Endpoint.class},
+            new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  String m = method.getName();
+                  if ("getName".equals(m))
+                     return name;
+                  if ("getShortName".equals(m))
+                     return shortName;
+                  if ("getEndpointMetrics".equals(m))
+                     return metrics;
+                  if ("equals".equals(m))
+                     return proxy == args[0];
+                  if ("hashCode".equals(m))
+                     return System.identityHashCode(proxy);
+                  throw new UnsupportedOperationException(m);
+               }
+            });
+   }
+
+   /**
+    * Metrics with fixed values, not being an EndpointMetricsImpl
+    */
+   private static EndpointMetrics plainMetrics()
+   {
+      return (EndpointMetrics)Proxy.newProxyInstance(EndpointMetrics.class.getClassLoader(),
+            new Class<?>[] {EndpointMetrics.class}, new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  String m = method.getName();
+                  if ("getRequestCount".equals(m))
+                     return 7L;
+                  if ("getResponseCount".equals(m))
+                     return 5L;
+                  if ("getFaultCount".equals(m))
+                     return 2L;
+                  if ("getMinProcessingTime".equals(m))
+                     return 1L;
+                  if ("getMaxProcessingTime".equals(m))
+                     return 3L;
+                  if ("getAverageProcessingTime".equals(m))
+                     return 2L;
+                  if ("getTotalProcessingTime".equals(m))
+                     return 10L;
+                  if ("getUpdateTime".equals(m))
+                     return 42L;
+                  throw new UnsupportedOperationException(m);
+               }
+            });
+   }
+}
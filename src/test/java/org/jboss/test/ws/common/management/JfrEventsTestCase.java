@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.JfrEvents;
+import org.jboss.ws.common.monitoring.RecordingState;
+
+/**
+ * Test the JBossWS JFR events
+ *
+ * @since 18-Oct-2026
+ */
+public class JfrEventsTestCase extends TestCase
+{
+   public void testDisabled() throws Exception
+   {
+      //the events might be enabled by a recording started outside of this test, e.g. on the command line
+      Object event = JfrEvents.beginOperation();
+      assertEquals(isEnabled("org.jboss.ws.OperationInvocation"), event != null);
+      JfrEvents.endOperation(event, "ep", null, false);
+      event = JfrEvents.beginDeploymentAspect();
+      assertEquals(isEnabled("org.jboss.ws.DeploymentAspect"), event != null);
+      JfrEvents.endDeploymentAspect(event, "dep", "aspect", "start");
+      JfrEvents.endOperation(null, "ep", null, false);
+      JfrEvents.endDeploymentAspect(null, "dep", "aspect", "start");
+   }
+
+   private static boolean isEnabled(String eventName)
+   {
+      for (EventType type : FlightRecorder.getFlightRecorder().getEventTypes())
+      {
+         if (eventName.equals(type.getName()))
+         {
+            return type.isEnabled();
+         }
+      }
+      return false;
+   }
+
+   public void testRecordingState() throws Exception
+   {
+      boolean runningOutside = JfrEvents.isRecordingRunning();
+      RecordingState state = RecordingState.compute(Collections.<RecordProcessor>emptyList());
+      assertEquals(runningOutside, state.isFlightRecording());
+      assertEquals(runningOutside, state.isActive());
+      Recording recording = new Recording();
+      recording.enable("org.jboss.ws.OperationInvocation");
+      recording.start();
+      try
+      {
+         //a recording starting makes the states stale
+         assertFalse(state.isCurrent());
+         state = RecordingState.compute(Collections.<RecordProcessor>emptyList());
+         assertTrue(state.isFlightRecording());
+         assertTrue(state.isActive());
+         assertFalse(state.isRecording());
+         assertTrue(state.isCurrent());
+      }
+      finally
+      {
+         recording.stop();
+         recording.close();
+      }
+      assertFalse(state.isCurrent());
+      assertEquals(runningOutside, RecordingState.compute(Collections.<RecordProcessor>emptyList()).isFlightRecording());
+   }
+
+   public void testEvents() throws Exception
+   {
+      File file = File.createTempFile("jbossws-", ".jfr");
+      try
+      {
+         Recording recording = new Recording();
+         recording.enable("org.jboss.ws.EndpointInvocation").withThreshold(Duration.ZERO);
+         recording.enable("org.jboss.ws.OperationInvocation").withThreshold(Duration.ZERO);
+         recording.enable("org.jboss.ws.DeploymentAspect").withThreshold(Duration.ZERO);
+         recording.start();
+
+         EndpointMetricsImpl metrics = new EndpointMetricsImpl();
+         metrics.setEndpointName("TestEndpoint");
+         metrics.start();
+         metrics.processResponseMessage(metrics.processRequestMessage());
+         metrics.processFaultMessage(metrics.processRequestMessage());
+
+         Object event = JfrEvents.beginOperation();
+         assertNotNull(event);
+         JfrEvents.endOperation(event, "TestEndpoint", new QName("urn:test", "echo"), true);
+
+         event = JfrEvents.beginDeploymentAspect();
+         assertNotNull(event);
+         JfrEvents.endDeploymentAspect(event, "test.war", "org.example.TestAspect", "start");
+
+         recording.stop();
+         recording.dump(file.toPath());
+         recording.close();
+
+         List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+         int invocations = 0, faults = 0, operations = 0, aspects = 0;
+         for (RecordedEvent e : events)
+         {
+            String name = e.getEventType().getName();
+            if ("org.jboss.ws.EndpointInvocation".equals(name))
+            {
+               assertEquals("TestEndpoint", e.getString("endpoint"));
+               invocations++;
+               if (e.getBoolean("fault"))
+                  faults++;
+            }
+            else if ("org.jboss.ws.OperationInvocation".equals(name))
+            {
+               assertEquals("TestEndpoint", e.getString("endpoint"));
+               assertEquals("{urn:test}echo", e.getString("operation"));
+               assertTrue(e.getBoolean("fault"));
+               operations++;
+            }
+            else if ("org.jboss.ws.DeploymentAspect".equals(name))
+            {
+               assertEquals("test.war", e.getString("deployment"));
+               assertEquals("org.example.TestAspect", e.getString("aspect"));
+               assertEquals("start", e.getString("phase"));
+               aspects++;
+            }
+         }
+         assertEquals(2, invocations);
+         assertEquals(1, faults);
+         assertEquals(1, operations);
+         assertEquals(1, aspects);
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+}
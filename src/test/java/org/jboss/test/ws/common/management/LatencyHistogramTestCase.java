@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.management.LatencyHistogram;
+
+/**
+ * Test the LatencyHistogram
+ *
+ * @since 18-Oct-2026
+ */
+public class LatencyHistogramTestCase extends TestCase
+{
+   public void testEmpty() throws Exception
+   {
+      LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+      assertEquals(0, snapshot.getCount());
+      assertEquals(0, snapshot.getValueAtPercentile(99));
+   }
+
+   public void testExactLowValues() throws Exception
+   {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 1; i <= 10; i++)
+      {
+         histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+      }
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+      assertEquals(10, snapshot.getCount());
+      assertEquals(5, snapshot.getValueAtPercentile(50));
+      assertEquals(9, snapshot.getValueAtPercentile(90));
+      assertEquals(10, snapshot.getValueAtPercentile(100));
+      assertEquals(10, snapshot.getMax());
+   }
+
+   public void testPercentiles() throws Exception
+   {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 1; i <= 10000; i++)
+      {
+         histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+      }
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+      assertEquals(10000, snapshot.getCount());
+      assertPercentile(5000000, snapshot.getValueAtPercentile(50));
+      assertPercentile(9000000, snapshot.getValueAtPercentile(90));
+      assertPercentile(9900000, snapshot.getValueAtPercentile(99));
+      assertPercentile(9990000, snapshot.getValueAtPercentile(99.9));
+      assertEquals(10000000, snapshot.getValueAtPercentile(100));
+   }
+
+   public void testOutOfRange() throws Exception
+   {
+      LatencyHistogram histogram = new LatencyHistogram(3, 10);
+      histogram.record(-5);
+      histogram.record(TimeUnit.HOURS.toNanos(1));
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+      assertEquals(2, snapshot.getCount());
+      assertEquals(0, snapshot.getValueAtPercentile(50));
+      assertEquals(2047, snapshot.getValueAtPercentile(100));
+   }
+
+   private static void assertPercentile(long expected, long actual)
+   {
+      assertTrue("expected " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.04);
+   }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.OpenMetricsRenderer;
+import org.jboss.ws.common.monitoring.LogRecorder;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * Test the OpenMetrics text rendering of the endpoint metrics
+ *
+ * @since 18-Oct-2026
+ */
+public class OpenMetricsRendererTestCase extends TestCase
+{
+   public void testEmpty() throws Exception
+   {
+      StringBuilder sb = new StringBuilder();
+      OpenMetricsRenderer.render(Collections.<Endpoint>emptyList(), sb);
+      String text = sb.toString();
+      assertTrue(text.startsWith("# TYPE jbossws_endpoint_requests counter\n# HELP jbossws_endpoint_requests "));
+      assertTrue(text.endsWith("\n# EOF\n"));
+      assertEquals(1, text.split("# EOF", -1).length - 1);
+   }
+
+   public void testSamples() throws Exception
+   {
+      EndpointMetricsImpl metrics = new EndpointMetricsImpl();
+      metrics.start();
+      metrics.processResponseMessage(metrics.processRequestMessage());
+      metrics.processFaultMessage(metrics.processRequestMessage());
+      metrics.processRequestMessage();
+
+      List<RecordProcessor> processors = new ArrayList<RecordProcessor>();
+      MemoryBufferRecorder unnamed = new MemoryBufferRecorder();
+      unnamed.setName(null);
+      unnamed.setRecording(true);
+      processors.add(unnamed);
+      LogRecorder named = new LogRecorder();
+      named.setName("log \"x\"\\y\nz");
+      processors.add(named);
+      Endpoint endpoint = endpoint(new ObjectName("jboss.ws:context=ctx"), "My\"Endpoint", metrics, processors);
+
+      StringBuilder sb = new StringBuilder();
+      OpenMetricsRenderer.render(Collections.singletonList(endpoint), sb);
+      String text = sb.toString();
+      String labels = "{context=\"ctx\",endpoint=\"My\\\"Endpoint\"";
+      assertTrue(text.contains("\njbossws_endpoint_requests_total" + labels + "} 3\n"));
+      assertTrue(text.contains("\njbossws_endpoint_responses_total" + labels + "} 1\n"));
+      assertTrue(text.contains("\njbossws_endpoint_faults_total" + labels + "} 1\n"));
+      assertTrue(text.contains("\njbossws_endpoint_processing_time_seconds_bucket" + labels + ",le=\"+Inf\"} 2\n"));
+      assertTrue(text.contains("\njbossws_endpoint_processing_time_seconds_count" + labels + "} 2\n"));
+      assertTrue(text.contains("\njbossws_record_processor_recording" + labels + ",processor=\"\"} 1\n"));
+      assertTrue(text.contains("\njbossws_record_processor_recording" + labels + ",processor=\"log \\\"x\\\"\\\\y\\nz\"} 0\n"));
+      assertTrue(text.contains("\n# TYPE jbossws_endpoint_dropped_records counter\n"));
+      assertFalse(text.contains("jbossws_endpoint_dropped_records_total"));
+      assertTrue(text.endsWith("\n# EOF\n"));
+      //every line is a comment or a sample with a value
+      for (String line : text.split("\n"))
+      {
+         assertTrue(line, line.startsWith("# ") || line.matches("[a-z_]+\\{.*\\} [0-9.]+"));
+      }
+   }
+
+   private static Endpoint endpoint(final ObjectName name, final String shortName, final EndpointMetricsImpl metrics,
+         final List<RecordProcessor> processors)
+   {
+      return (Endpoint)Proxy.newProxyInstance(Endpoint.class.getClassLoader(), new Class<?>[] {Endpoint.class},
+            new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  String m = method.getName();
+                  if ("getName".equals(m))
+                     return name;
+                  if ("getShortName".equals(m))
+                     return shortName;
+                  if ("getEndpointMetrics".equals(m))
+                     return metrics;
+                  if ("getRecordProcessors".equals(m))
+                     return processors;
+                  if ("getAttachment".equals(m))
+                     return null;
+                  throw new UnsupportedOperationException(m);
+               }
+            });
+   }
+}
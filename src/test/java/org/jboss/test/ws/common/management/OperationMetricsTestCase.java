@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.management.OperationMetrics;
+
+/**
+ * Test the OperationMetrics
+ *
+ * @since 18-Oct-2026
+ */
+public class OperationMetricsTestCase extends TestCase
+{
+   private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+   private static final QName ECHO = new QName("urn:test", "echo");
+   private static final QName PING = new QName("urn:test", "ping");
+
+   public void testCounters() throws Exception
+   {
+      OperationMetrics metrics = new OperationMetrics();
+      metrics.processRequest(ECHO);
+      metrics.processRequest(ECHO);
+      metrics.processResponse(ECHO, 10 * MILLI, false);
+      metrics.processResponse(ECHO, 30 * MILLI, true);
+      metrics.processRequest(PING);
+      metrics.processResponse(PING, 5 * MILLI, false);
+
+      TabularData table = metrics.toTabularData();
+      assertEquals(2, table.size());
+      CompositeData echo = table.get(new Object[] {ECHO.toString()});
+      assertEquals(2L, echo.get("requestCount"));
+      assertEquals(1L, echo.get("responseCount"));
+      assertEquals(1L, echo.get("faultCount"));
+      assertEquals(10L, echo.get("minProcessingTime"));
+      assertEquals(30L, echo.get("maxProcessingTime"));
+      assertEquals(20L, echo.get("averageProcessingTime"));
+      assertEquals(40L, echo.get("totalProcessingTime"));
+      assertEquals(1L, table.get(new Object[] {PING.toString()}).get("responseCount"));
+   }
+
+   public void testUnknownOperation() throws Exception
+   {
+      OperationMetrics metrics = new OperationMetrics();
+      assertTrue(metrics.toTabularData().isEmpty());
+      metrics.processRequest(null);
+      metrics.processResponse(null, MILLI, false);
+      TabularData table = metrics.toTabularData();
+      assertEquals(1, table.size());
+      CompositeData other = table.get(new Object[] {OperationMetrics.OTHER});
+      assertEquals(1L, other.get("requestCount"));
+      assertTrue(metrics.getOperations().isEmpty());
+   }
+
+   public void testCardinalityCap() throws Exception
+   {
+      OperationMetrics metrics = new OperationMetrics(2);
+      metrics.processRequest(ECHO);
+      metrics.processRequest(PING);
+      metrics.processRequest(new QName("urn:test", "third"));
+      metrics.processRequest(ECHO);
+      assertEquals(2, metrics.getOperations().size());
+      TabularData table = metrics.toTabularData();
+      assertEquals(3, table.size());
+      assertEquals(2L, table.get(new Object[] {ECHO.toString()}).get("requestCount"));
+      assertEquals(1L, table.get(new Object[] {OperationMetrics.OTHER}).get("requestCount"));
+   }
+
+   public void testConcurrentCardinalityCap() throws Exception
+   {
+      final OperationMetrics metrics = new OperationMetrics(8);
+      final int threads = 16;
+      final int operations = 200;
+      final CountDownLatch start = new CountDownLatch(1);
+      final CountDownLatch done = new CountDownLatch(threads);
+      for (int t = 0; t < threads; t++)
+      {
+         new Thread(new Runnable() {
+            public void run()
+            {
+               try
+               {
+                  start.await();
+                  for (int i = 0; i < operations; i++)
+                  {
+                     metrics.processRequest(new QName("urn:test", "op" + i));
+                  }
+               }
+               catch (InterruptedException e)
+               {
+                  Thread.currentThread().interrupt();
+               }
+               finally
+               {
+                  done.countDown();
+               }
+            }
+         }).start();
+      }
+      start.countDown();
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      assertEquals(8, metrics.getOperations().size());
+      long requests = 0;
+      for (Object row : metrics.toTabularData().values())
+      {
+         requests += (Long)((CompositeData)row).get("requestCount");
+      }
+      assertEquals(threads * operations, requests);
+   }
+}
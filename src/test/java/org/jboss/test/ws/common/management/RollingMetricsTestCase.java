@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.management.RollingMetrics;
+
+/**
+ * Test the RollingMetrics windows
+ *
+ * @since 18-Oct-2026
+ */
+public class RollingMetricsTestCase extends TestCase
+{
+   private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+   private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+   public void testEmpty() throws Exception
+   {
+      RollingMetrics.Window window = new RollingMetrics().getWindow(1);
+      assertEquals(0, window.getRequestCount());
+      assertEquals(0, window.getAverageProcessingTime());
+      assertEquals(0, window.getProcessingTimePercentile(99));
+      assertEquals(0.0, window.getRequestRate());
+   }
+
+   public void testAggregation() throws Exception
+   {
+      RollingMetrics metrics = new RollingMetrics();
+      long t0 = System.nanoTime();
+      for (int i = 0; i < 10; i++)
+      {
+         metrics.processRequest(t0);
+      }
+      for (int i = 0; i < 8; i++)
+      {
+         metrics.processResponse(t0, 10 * MILLI, false);
+      }
+      metrics.processResponse(t0, 30 * MILLI, true);
+      metrics.processResponse(t0, 30 * MILLI, true);
+
+      RollingMetrics.Window window = metrics.getWindow(1, t0 + 10 * TimeUnit.SECONDS.toNanos(1));
+      assertEquals(10, window.getRequestCount());
+      assertEquals(8, window.getResponseCount());
+      assertEquals(2, window.getFaultCount());
+      assertEquals(14, window.getAverageProcessingTime());
+      assertEquals(10, window.getProcessingTimePercentile(50), 1);
+      assertEquals(30, window.getProcessingTimePercentile(100), 4);
+      //only about 10 seconds have been covered so far
+      assertEquals(1.0, window.getRequestRate(), 0.1);
+      assertEquals(0.2, window.getFaultRate(), 0.02);
+   }
+
+   public void testRotation() throws Exception
+   {
+      RollingMetrics metrics = new RollingMetrics();
+      long t0 = System.nanoTime();
+      metrics.processRequest(t0);
+      metrics.processResponse(t0, 10 * MILLI, false);
+      long t1 = t0 + 2 * MINUTE;
+      metrics.processRequest(t1);
+      metrics.processRequest(t1);
+
+      RollingMetrics.Window window = metrics.getWindow(1, t1);
+      assertEquals(2, window.getRequestCount());
+      assertEquals(0, window.getResponseCount());
+      assertEquals(MINUTE, window.getSpan(), MINUTE / 10);
+      assertEquals(2.0 / 60, window.getRequestRate(), 0.005);
+      window = metrics.getWindow(5, t1);
+      assertEquals(3, window.getRequestCount());
+      assertEquals(1, window.getResponseCount());
+      assertEquals(10, window.getAverageProcessingTime());
+
+      //wraps around the ring, replacing the bucket of t0
+      long t2 = t0 + 15 * MINUTE + MINUTE / 2;
+      metrics.processRequest(t2);
+      window = metrics.getWindow(15, t2);
+      assertEquals(3, window.getRequestCount());
+      assertEquals(0, window.getResponseCount());
+
+      //everything is out of the windows
+      window = metrics.getWindow(15, t2 + 20 * MINUTE);
+      assertEquals(0, window.getRequestCount());
+      assertEquals(0, window.getProcessingTimePercentile(50));
+   }
+
+   public void testInvalidWindow() throws Exception
+   {
+      RollingMetrics metrics = new RollingMetrics();
+      try
+      {
+         metrics.getWindow(0);
+         fail("Expected IllegalArgumentException");
+      }
+      catch (IllegalArgumentException e)
+      {
+         //expected
+      }
+      try
+      {
+         metrics.getWindow(16);
+         fail("Expected IllegalArgumentException");
+      }
+      catch (IllegalArgumentException e)
+      {
+         //expected
+      }
+   }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher.OverflowPolicy;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * Test the AsyncRecordDispatcher overflow policies, shared workers and shutdown
+ *
+ * @since 18-Oct-2026
+ */
+public class AsyncRecordDispatcherTestCase extends TestCase
+{
+   public void testDropNewest() throws Exception
+   {
+      BlockingEndpoint endpoint = new BlockingEndpoint();
+      AsyncRecordDispatcher dispatcher = new AsyncRecordDispatcher(endpoint.proxy(), 2, OverflowPolicy.DROP_NEWEST, 1);
+      dispatcher.start();
+      Record[] records = fillQueue(dispatcher, endpoint);
+      assertFalse(dispatcher.dispatch(records[3]));
+      assertEquals(1, dispatcher.getDroppedCount());
+      endpoint.release();
+      dispatcher.stop();
+      assertEquals(list(records[0], records[1], records[2]), endpoint.getProcessed());
+   }
+
+   public void testDropOldest() throws Exception
+   {
+      BlockingEndpoint endpoint = new BlockingEndpoint();
+      AsyncRecordDispatcher dispatcher = new AsyncRecordDispatcher(endpoint.proxy(), 2, OverflowPolicy.DROP_OLDEST, 1);
+      dispatcher.start();
+      Record[] records = fillQueue(dispatcher, endpoint);
+      assertTrue(dispatcher.dispatch(records[3]));
+      assertEquals(1, dispatcher.getDroppedCount());
+      endpoint.release();
+      dispatcher.stop();
+      assertEquals(list(records[0], records[2], records[3]), endpoint.getProcessed());
+   }
+
+   public void testBlock() throws Exception
+   {
+      BlockingEndpoint endpoint = new BlockingEndpoint();
+      final AsyncRecordDispatcher dispatcher = new AsyncRecordDispatcher(endpoint.proxy(), 2, OverflowPolicy.BLOCK, 1);
+      dispatcher.start();
+      final Record[] records = fillQueue(dispatcher, endpoint);
+      final AtomicBoolean queued = new AtomicBoolean();
+      final CountDownLatch done = new CountDownLatch(1);
+      new Thread(new Runnable() {
+         public void run()
+         {
+            queued.set(dispatcher.dispatch(records[3]));
+            done.countDown();
+         }
+      }).start();
+      assertFalse(done.await(300, TimeUnit.MILLISECONDS));
+      endpoint.release();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertTrue(queued.get());
+      dispatcher.stop();
+      assertEquals(0, dispatcher.getDroppedCount());
+      assertEquals(list(records), endpoint.getProcessed());
+   }
+
+   public void testStopDrainsWithoutInterrupting() throws Exception
+   {
+      final BlockingEndpoint endpoint = new BlockingEndpoint();
+      AsyncRecordDispatcher dispatcher = new AsyncRecordDispatcher(endpoint.proxy(), 10, OverflowPolicy.DROP_NEWEST, 1);
+      dispatcher.start();
+      Record[] records = fillQueue(dispatcher, endpoint);
+      new Thread(new Runnable() {
+         public void run()
+         {
+            try
+            {
+               Thread.sleep(300);
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+            endpoint.release();
+         }
+      }).start();
+      //returns once the worker is done with the record being processed and the queued ones
+      dispatcher.stop();
+      assertFalse(endpoint.wasInterrupted());
+      assertEquals(list(records[0], records[1], records[2]), endpoint.getProcessed());
+      assertEquals(0, dispatcher.getQueueSize());
+      assertFalse(dispatcher.dispatch(records[3]));
+      assertEquals(1, dispatcher.getDroppedCount());
+   }
+
+   public void testEnvelopeOfDroppedRecordNotSerialized() throws Exception
+   {
+      BlockingEndpoint endpoint = new BlockingEndpoint();
+      AsyncRecordDispatcher dispatcher = new AsyncRecordDispatcher(endpoint.proxy(), 2, OverflowPolicy.DROP_NEWEST, 1);
+      dispatcher.start();
+      fillQueue(dispatcher, endpoint);
+      final AtomicInteger envelopeCalls = new AtomicInteger();
+      Record record = (Record)Proxy.newProxyInstance(Record.class.getClassLoader(), new Class<?>[] {Record.class}, new InvocationHandler() {
+         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+         {
+            if ("getEnvelope".equals(method.getName()))
+            {
+               envelopeCalls.incrementAndGet();
+            }
+            return null;
+         }
+      });
+      assertFalse(dispatcher.dispatch(record));
+      assertEquals(0, envelopeCalls.get());
+      endpoint.release();
+      dispatcher.stop();
+      assertFalse(dispatcher.dispatch(record));
+      assertEquals(0, envelopeCalls.get());
+   }
+
+   public void testManyRecordsSharedWorkers() throws Exception
+   {
+      BlockingEndpoint first = new BlockingEndpoint();
+      BlockingEndpoint second = new BlockingEndpoint();
+      first.release();
+      second.release();
+      AsyncRecordDispatcher firstDispatcher = new AsyncRecordDispatcher(first.proxy(), 500, OverflowPolicy.BLOCK, 1);
+      AsyncRecordDispatcher secondDispatcher = new AsyncRecordDispatcher(second.proxy(), 500, OverflowPolicy.BLOCK, 2);
+      firstDispatcher.start();
+      secondDispatcher.start();
+      List<Record> firstRecords = new ArrayList<Record>();
+      List<Record> secondRecords = new ArrayList<Record>();
+      for (int i = 0; i < 300; i++)
+      {
+         Record record = RecordFactory.newRecord();
+         firstRecords.add(record);
+         assertTrue(firstDispatcher.dispatch(record));
+         record = RecordFactory.newRecord();
+         secondRecords.add(record);
+         assertTrue(secondDispatcher.dispatch(record));
+      }
+      firstDispatcher.stop();
+      secondDispatcher.stop();
+      //a single worker keeps the order across the batches
+      assertEquals(firstRecords, first.getProcessed());
+      assertEquals(new HashSet<Record>(secondRecords), new HashSet<Record>(second.getProcessed()));
+      assertEquals(0, firstDispatcher.getDroppedCount() + secondDispatcher.getDroppedCount());
+   }
+
+   /**
+    * Dispatches a record the worker blocks on and two more records filling up a queue of size 2,
+    * then returns these three records and a fourth one.
+    */
+   private static Record[] fillQueue(AsyncRecordDispatcher dispatcher, BlockingEndpoint endpoint) throws Exception
+   {
+      Record[] records = new Record[4];
+      for (int i = 0; i < records.length; i++)
+      {
+         records[i] = RecordFactory.newRecord();
+      }
+      assertTrue(dispatcher.dispatch(records[0]));
+      assertTrue(endpoint.awaitProcessing());
+      assertTrue(dispatcher.dispatch(records[1]));
+      assertTrue(dispatcher.dispatch(records[2]));
+      return records;
+   }
+
+   private static List<Record> list(Record... records)
+   {
+      List<Record> list = new ArrayList<Record>();
+      Collections.addAll(list, records);
+      return list;
+   }
+
+   /**
+    * An endpoint whose processRecord blocks until released
+    */
+   private static class BlockingEndpoint implements InvocationHandler
+   {
+      private final CountDownLatch processing = new CountDownLatch(1);
+      private final CountDownLatch released = new CountDownLatch(1);
+      private final List<Record> processed = Collections.synchronizedList(new ArrayList<Record>());
+      private volatile boolean interrupted;
+
+      public Endpoint proxy()
+      {
+         return (Endpoint)Proxy.newProxyInstance(Endpoint.class.getClassLoader(), new Class<?>[] {Endpoint.class}, this);
+      }
+
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+      {
+         if ("processRecord".equals(method.getName()))
+         {
+            processing.countDown();
+            try
+            {
+               released.await();
+            }
+            catch (InterruptedException e)
+            {
+               interrupted = true;
+            }
+            processed.add((Record)args[0]);
+            return null;
+         }
+         if ("getShortName".equals(method.getName()))
+         {
+            return "TestEndpoint";
+         }
+         throw new UnsupportedOperationException(method.getName());
+      }
+
+      public boolean awaitProcessing() throws InterruptedException
+      {
+         return processing.await(5, TimeUnit.SECONDS);
+      }
+
+      public void release()
+      {
+         released.countDown();
+      }
+
+      public List<Record> getProcessed()
+      {
+         synchronized (processed)
+         {
+            return new ArrayList<Record>(processed);
+         }
+      }
+
+      public boolean wasInterrupted()
+      {
+         return interrupted;
+      }
+   }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.common.monitoring.FileRecorder;
+import org.jboss.ws.common.monitoring.HostFilter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordFileReader;
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * Test the FileRecorder
+ * 
+ * @since 18-Oct-2026
+ */
+public class FileRecorderTestCase extends TestCase
+{
+   private static final QName OP = new QName("http://org.jboss.ws/test", "echo");
+
+   private File dir;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      dir = new File(System.getProperty("java.io.tmpdir"), "jbossws-file-recorder-" + System.nanoTime());
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      File[] files = dir.listFiles();
+      if (files != null)
+      {
+         for (File f : files)
+         {
+            f.delete();
+         }
+      }
+      dir.delete();
+   }
+
+   public void testWriteAndRead() throws Exception
+   {
+      FileRecorder recorder = newRecorder();
+      Date date = new Date();
+      Record record = RecordFactory.newRecord();
+      record.setDate(date);
+      record.setMessageType(MessageType.INBOUND);
+      record.setSourceHost("client");
+      record.setDestinationHost("server");
+      record.setOperation(OP);
+      record.addHeaders("SOAPAction", Arrays.asList("\"echo\""));
+      record.setEnvelope("<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'>\u00e8</env:Envelope>");
+      recorder.processRecord(record);
+      assertEquals(1, recorder.getWrittenRecords());
+
+      RecordFileReader reader = recorder.newReader();
+      Record read = reader.next();
+      assertNull(reader.next());
+      reader.close();
+      assertEquals(record.getGroupID(), read.getGroupID());
+      assertEquals(date, read.getDate());
+      assertEquals(MessageType.INBOUND, read.getMessageType());
+      assertEquals("client", read.getSourceHost());
+      assertEquals("server", read.getDestinationHost());
+      assertEquals(OP, read.getOperation());
+      assertEquals(Arrays.asList("\"echo\""), read.getHeaders().get("SOAPAction"));
+      assertEquals(record.getEnvelope(), read.getEnvelope());
+   }
+
+   public void testSegmentsAndFilters() throws Exception
+   {
+      FileRecorder recorder = newRecorder();
+      recorder.setSegmentSize(1024);
+      recorder.setMaxSegments(100);
+      for (int i = 0; i < 100; i++)
+      {
+         recorder.processRecord(newRecord("host" + (i % 2), i));
+      }
+      assertTrue(dir.list().length > 1);
+      List<Record> records = recorder.getMatchingRecords(new RecordFilter[] { new HostFilter("host1", true) }, 1000);
+      assertEquals(50, records.size());
+      for (int i = 0; i < records.size(); i++)
+      {
+         assertEquals("<env" + (i * 2 + 1) + "/>", records.get(i).getEnvelope());
+      }
+      //a new recorder on the same files goes on with the next segment
+      FileRecorder other = newRecorder();
+      other.processRecord(newRecord("host0", 100));
+      assertEquals(101, other.getMatchingRecords(new RecordFilter[0], 1000).size());
+   }
+
+   public void testRetention() throws Exception
+   {
+      FileRecorder recorder = newRecorder();
+      recorder.setSegmentSize(1024);
+      recorder.setMaxSegments(2);
+      for (int i = 0; i < 200; i++)
+      {
+         recorder.processRecord(newRecord("host", i));
+      }
+      assertEquals(2, dir.list().length);
+      List<Record> records = recorder.getMatchingRecords(new RecordFilter[0], 1000);
+      assertTrue(records.size() < 200);
+      assertEquals("<env199/>", records.get(records.size() - 1).getEnvelope());
+   }
+
+   public void testLargeRecord() throws Exception
+   {
+      FileRecorder recorder = newRecorder();
+      recorder.setSegmentSize(1024);
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 1000; i++)
+      {
+         sb.append("<item/>");
+      }
+      Record record = newRecord("host", 0);
+      record.setEnvelope(sb.toString());
+      recorder.processRecord(record);
+      recorder.processRecord(newRecord("host", 1));
+      List<Record> records = recorder.getMatchingRecords(new RecordFilter[0], 10);
+      assertEquals(2, records.size());
+      assertEquals(sb.toString(), records.get(0).getEnvelope());
+   }
+
+   public void testConcurrentWriters() throws Exception
+   {
+      final FileRecorder recorder = newRecorder();
+      recorder.setSegmentSize(4096);
+      recorder.setMaxSegments(1000);
+      final int threads = 8;
+      final int records = 500;
+      final CountDownLatch done = new CountDownLatch(threads);
+      for (int t = 0; t < threads; t++)
+      {
+         final int thread = t;
+         new Thread(new Runnable() {
+            public void run()
+            {
+               try
+               {
+                  for (int i = 0; i < records; i++)
+                  {
+                     recorder.processRecord(newRecord("host", thread * records + i));
+                  }
+               }
+               finally
+               {
+                  done.countDown();
+               }
+            }
+         }).start();
+      }
+      assertTrue(done.await(60, TimeUnit.SECONDS));
+      recorder.close();
+      assertEquals(threads * records, recorder.getWrittenRecords());
+      Set<String> envelopes = new HashSet<String>();
+      for (Record record : recorder.getMatchingRecords(new RecordFilter[0], threads * records + 1))
+      {
+         envelopes.add(record.getEnvelope());
+      }
+      assertEquals(threads * records, envelopes.size());
+
+      //writing goes on in a new segment after closing
+      recorder.processRecord(newRecord("host", -1));
+      assertEquals("<env-1/>", recorder.getMatchingRecords(new RecordFilter[0], threads * records + 1).get(threads * records).getEnvelope());
+   }
+
+   public void testSharedPrefix() throws Exception
+   {
+      FileRecorder first = newRecorder();
+      FileRecorder second = newRecorder();
+      first.processRecord(newRecord("first", 0));
+      second.processRecord(newRecord("second", 0));
+      first.close();
+      second.close();
+      assertEquals(new HashSet<String>(Arrays.asList("test-0000000000.rec", "test-0000000001.rec")),
+            new HashSet<String>(Arrays.asList(dir.list())));
+      Set<String> hosts = new HashSet<String>();
+      for (Record record : first.getMatchingRecords(new RecordFilter[0], 10))
+      {
+         hosts.add(record.getSourceHost());
+      }
+      assertEquals(new HashSet<String>(Arrays.asList("first", "second")), hosts);
+   }
+
+   public void testInitFilePrefix() throws Exception
+   {
+      FileRecorder recorder = newRecorder();
+      FileRecorder first = (FileRecorder)recorder.clone();
+      FileRecorder second = (FileRecorder)recorder.clone();
+      first.initFilePrefix(endpoint("jboss.ws:context=ctx,endpoint=First"));
+      second.initFilePrefix(endpoint("jboss.ws:context=ctx,endpoint=Second"));
+      assertEquals("test_ctx_First", first.getFilePrefix());
+      assertEquals("test_ctx_Second", second.getFilePrefix());
+      FileRecorder unconfigured = new FileRecorder();
+      unconfigured.initFilePrefix(endpoint("jboss.ws:context=ctx,endpoint=First"));
+      assertEquals("FileRecorder_ctx_First", unconfigured.getFilePrefix());
+   }
+
+   public void testSerialization() throws Exception
+   {
+      ByteArrayOutputStream bout = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bout);
+      out.writeObject(newRecorder());
+      out.close();
+      FileRecorder recorder = (FileRecorder)new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray())).readObject();
+      recorder.processRecord(newRecord("host", 0));
+      recorder.close();
+      assertEquals(Arrays.asList("test-0000000000.rec"), Arrays.asList(dir.list()));
+      assertEquals(1, recorder.getMatchingRecords(new RecordFilter[0], 10).size());
+   }
+
+   private static Endpoint endpoint(final String name) throws Exception
+   {
+      final ObjectName on = new ObjectName(name);
+      return (Endpoint)Proxy.newProxyInstance(Endpoint.class.getClassLoader(), new Class<?>[] {Endpoint.class}, new InvocationHandler() {
+         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+         {
+            if ("getName".equals(method.getName()))
+            {
+               return on;
+            }
+            if ("getShortName".equals(method.getName()))
+            {
+               return on.getKeyProperty("endpoint");
+            }
+            throw new UnsupportedOperationException(method.getName());
+         }
+      });
+   }
+
+   private FileRecorder newRecorder()
+   {
+      FileRecorder recorder = new FileRecorder();
+      recorder.setDirectory(dir.getPath());
+      recorder.setFilePrefix("test");
+      return recorder;
+   }
+
+   private static Record newRecord(String host, int i)
+   {
+      Record record = RecordFactory.newRecord();
+      record.setDate(new Date());
+      record.setMessageType(MessageType.INBOUND);
+      record.setSourceHost(host);
+      record.setOperation(OP);
+      record.setEnvelope("<env" + i + "/>");
+      return record;
+   }
+}
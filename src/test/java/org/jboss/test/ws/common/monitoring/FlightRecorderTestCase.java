@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.common.monitoring.FlightRecorder;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+
+/**
+ * Test the FlightRecorder
+ * 
+ * @since 18-Oct-2026
+ */
+public class FlightRecorderTestCase extends TestCase
+{
+   private static final long MS = 1000000L;
+
+   public void testIncidents() throws Exception
+   {
+      FlightRecorder recorder = new FlightRecorder();
+      recorder.setLatencyThreshold(500);
+      String fast = exchange(recorder, 100, false);
+      String fault = exchange(recorder, 10, true);
+      String slow = exchange(recorder, 800, false);
+      assertEquals(3, recorder.getRecentRecords().size());
+      assertEquals(2, recorder.getIncidentCount());
+      Map<String, List<Record>> incidents = recorder.getIncidents();
+      assertEquals(2, incidents.size());
+      assertFalse(incidents.containsKey(fast));
+      assertEquals(2, incidents.get(fault).size());
+      assertEquals(MessageType.INBOUND, incidents.get(slow).get(0).getMessageType());
+      assertEquals("<response/>", incidents.get(slow).get(1).getEnvelope());
+      assertTrue(recorder.getIncidentsAsJSON(false, 0, -1).contains(slow));
+   }
+
+   public void testEvictedInbound() throws Exception
+   {
+      FlightRecorder recorder = new FlightRecorder();
+      recorder.setPreBufferSize(1);
+      recorder.setLatencyThreshold(500);
+      RecordImpl slow = record(null, MessageType.INBOUND, 0);
+      recorder.processRecord(slow);
+      RecordImpl fault = record(null, MessageType.INBOUND, 0);
+      recorder.processRecord(fault);
+      exchange(recorder, 10, false);
+      //the latency can't be measured anymore, only faults are caught
+      recorder.processRecord(record(slow.getGroupID(), MessageType.OUTBOUND, 1000 * MS));
+      assertEquals(0, recorder.getIncidentCount());
+      RecordImpl outbound = record(fault.getGroupID(), MessageType.OUTBOUND, 1000 * MS);
+      outbound.setFault(true);
+      recorder.processRecord(outbound);
+      assertEquals(1, recorder.getIncidentCount());
+      assertEquals(1, recorder.getIncidents().get(fault.getGroupID()).size());
+   }
+
+   private static String exchange(FlightRecorder recorder, long latency, boolean fault)
+   {
+      long begin = RecordImpl.currentTimestamp();
+      RecordImpl inbound = record(null, MessageType.INBOUND, begin);
+      recorder.processRecord(inbound);
+      RecordImpl outbound = record(inbound.getGroupID(), MessageType.OUTBOUND, begin + latency * MS);
+      outbound.setFault(fault);
+      outbound.setEnvelope("<response/>");
+      recorder.processRecord(outbound);
+      return inbound.getGroupID();
+   }
+
+   private static RecordImpl record(String groupID, MessageType type, long timestamp)
+   {
+      RecordImpl record = (RecordImpl)(groupID != null ? RecordFactory.newRecord(groupID) : RecordFactory.newRecord());
+      record.setMessageType(type);
+      record.setTimestamp(timestamp);
+      return record;
+   }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.test.ws.common.ConcurrentBenchmark;
+
+/**
+ * Compares the contention of the ring buffer based MemoryBufferRecorder with
+ * the former synchronized map based implementation, using 64 producer threads.
+ * 
+ * Run with: java -cp ... org.jboss.test.ws.common.monitoring.MemoryBufferRecorderBenchmark
+ * 
+ * @since 18-Oct-2026
+ */
+public class MemoryBufferRecorderBenchmark
+{
+   private static final int THREADS = 64;
+   private static final int ITERATIONS = 100000;
+
+   public static void main(String[] args) throws Exception
+   {
+      final MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(1000);
+      final SynchronizedMapRecorder legacy = new SynchronizedMapRecorder(1000);
+      for (int threads : new int[] {1, 8, THREADS})
+      {
+         benchmark("SynchronizedMapRecorder", legacy).report(threads, ITERATIONS);
+         benchmark("MemoryBufferRecorder", recorder).report(threads, ITERATIONS);
+      }
+   }
+
+   private static ConcurrentBenchmark benchmark(String name, final RecordProcessor processor)
+   {
+      return new ConcurrentBenchmark(name) {
+         @Override
+         protected void operation(int thread, int iteration)
+         {
+            //an inbound and an outbound record for each group, as done by the RecordingServerHandler
+            final String groupID = thread + "-" + iteration;
+            processor.processRecord(RecordFactory.newRecord(groupID));
+            processor.processRecord(RecordFactory.newRecord(groupID));
+         }
+      };
+   }
+
+   /**
+    * The MemoryBufferRecorder storage before the ring buffer was introduced
+    */
+   private static class SynchronizedMapRecorder extends MemoryBufferRecorder
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final Map<String, List<Record>> recentRecords = Collections.synchronizedMap(new HashMap<String, List<Record>>());
+      private final ConcurrentLinkedQueue<String> recentRecordGroups = new ConcurrentLinkedQueue<String>();
+      private volatile int size = 0;
+      private final int maxSize;
+
+      SynchronizedMapRecorder(int maxSize)
+      {
+         this.maxSize = maxSize;
+      }
+
+      @Override
+      public void processRecord(Record record)
+      {
+         synchronized (recentRecords)
+         {
+            List<Record> list = recentRecords.get(record.getGroupID());
+            if (list == null)
+            {
+               list = new LinkedList<Record>();
+               recentRecords.put(record.getGroupID(), list);
+               while (size > maxSize)
+               {
+                  String id = recentRecordGroups.poll();
+                  if (id != null)
+                  {
+                     recentRecords.remove(id);
+                     size--;
+                  }
+               }
+               recentRecordGroups.offer(record.getGroupID());
+               size++;
+            }
+            list.add(record);
+         }
+      }
+   }
+}
@@ -0,0 +1,524 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.monitoring.AbstractRecordProcessor;
+import org.jboss.ws.common.monitoring.FlightRecorder;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.ws.common.monitoring.OperationFilter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+import org.jboss.ws.common.monitoring.RecordRenderer;
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * Test the MemoryBufferRecorder
+ * 
+ * @since 18-Oct-2026
+ */
+public class MemoryBufferRecorderTestCase extends TestCase
+{
+   private static final QName OP = new QName("http://org.jboss.ws/test", "echo");
+
+   public void testGroupsAndEviction() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(3);
+      String[] ids = new String[5];
+      for (int i = 0; i < ids.length; i++)
+      {
+         ids[i] = addGroup(recorder, "host" + i);
+      }
+      assertEquals(3, recorder.getSize());
+      Map<String, List<Record>> records = recorder.getMatchingRecords(new RecordFilter[0]);
+      assertEquals(3, records.size());
+      Iterator<String> it = records.keySet().iterator();
+      for (int i = 2; i < ids.length; i++)
+      {
+         String id = it.next();
+         assertEquals(ids[i], id);
+         assertEquals(2, records.get(id).size());
+      }
+      assertEquals(1, recorder.getRecordsByClientHost("host4").size());
+      assertTrue(recorder.getRecordsByClientHost("host0").isEmpty());
+      assertEquals(3, recorder.getClientHosts().size());
+   }
+
+   public void testResize() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(10);
+      for (int i = 0; i < 10; i++)
+      {
+         addGroup(recorder, "host" + i);
+      }
+      recorder.setMaxSize(4);
+      assertEquals(4, recorder.getSize());
+      assertEquals(1, recorder.getRecordsByClientHost("host9").size());
+      assertTrue(recorder.getRecordsByClientHost("host5").isEmpty());
+      recorder.setMaxSize(20);
+      assertEquals(4, recorder.getSize());
+      assertEquals(4, recorder.getRecordsByOperation(OP.getNamespaceURI(), OP.getLocalPart()).size());
+
+      MemoryBufferRecorder clone = (MemoryBufferRecorder)recorder.clone();
+      addGroup(recorder, "other");
+      assertEquals(5, recorder.getSize());
+      assertEquals(4, clone.getSize());
+   }
+
+   public void testIndexes() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(4);
+      for (int i = 0; i < 6; i++)
+      {
+         addGroup(recorder, "host" + (i % 3));
+      }
+      //groups 2..5 are left, i.e. host2, host0, host1, host2
+      assertEquals(3, recorder.getClientHosts().size());
+      assertEquals(2, recorder.getRecordsByClientHost("HOST2").size());
+      assertEquals(1, recorder.getRecordsByClientHost("host0").size());
+      assertTrue(recorder.getRecordsByClientHost("unknown").isEmpty());
+      Map<String, List<Record>> byOp = recorder.getRecordsByOperation(OP.getNamespaceURI(), OP.getLocalPart());
+      assertEquals(recorder.getMatchingRecords(new RecordFilter[0]).keySet().toString(), byOp.keySet().toString());
+      addGroup(recorder, "host3");
+      addGroup(recorder, "host3");
+      addGroup(recorder, "host3");
+      addGroup(recorder, "host3");
+      assertEquals(1, recorder.getClientHosts().size());
+      assertTrue(recorder.getRecordsByClientHost("host2").isEmpty());
+
+      Record old = RecordFactory.newRecord();
+      old.setDate(new Date(1000));
+      recorder.processRecord(old);
+      Record recent = RecordFactory.newRecord();
+      recent.setDate(new Date(5000));
+      recorder.processRecord(recent);
+      Map<String, List<Record>> byDate = recorder.getRecordsByDate(new Date(4000), null);
+      assertEquals(1, byDate.size());
+      assertEquals(recent.getGroupID(), byDate.keySet().iterator().next());
+      assertEquals(2, recorder.getRecordsByDate(new Date(0), new Date(6000)).size());
+   }
+
+   public void testOutOfOrderDates() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      long[] dates = new long[] {5000, 1000, 9000, 3000, 7000};
+      String[] ids = new String[dates.length];
+      for (int i = 0; i < dates.length; i++)
+      {
+         Record record = RecordFactory.newRecord();
+         record.setDate(new Date(dates[i]));
+         recorder.processRecord(record);
+         ids[i] = record.getGroupID();
+      }
+      Map<String, List<Record>> byDate = recorder.getRecordsByDate(new Date(4000), new Date(8000));
+      assertEquals(Arrays.asList(ids[0], ids[4]).toString(), byDate.keySet().toString());
+      byDate = recorder.getRecordsByDate(new Date(2000), null);
+      assertEquals(Arrays.asList(ids[0], ids[2], ids[3], ids[4]).toString(), byDate.keySet().toString());
+      byDate = recorder.getRecordsByDate(null, new Date(1000));
+      assertEquals(Collections.singletonList(ids[1]).toString(), byDate.keySet().toString());
+   }
+
+   public void testConcurrentProducers() throws Exception
+   {
+      final MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(100);
+      final int threads = 64;
+      final CountDownLatch latch = new CountDownLatch(threads);
+      for (int t = 0; t < threads; t++)
+      {
+         new Thread(new Runnable() {
+            public void run()
+            {
+               try
+               {
+                  for (int i = 0; i < 500; i++)
+                  {
+                     addGroup(recorder, "host");
+                  }
+               }
+               finally
+               {
+                  latch.countDown();
+               }
+            }
+         }).start();
+      }
+      latch.await();
+      assertEquals(100, recorder.getSize());
+      Map<String, List<Record>> records = recorder.getMatchingRecords(new RecordFilter[] {new OperationFilter(OP)});
+      assertEquals(100, records.size());
+      //a group may be evicted between its inbound and outbound record, in which case the
+      //outbound record is dropped, as the evicted group is remembered; that's for the last
+      //max size evicted groups only, so a producer descheduled meanwhile for longer can
+      //still add an outbound record on its own
+      Map<String, List<Record>> byHost = recorder.getRecordsByClientHost("host");
+      for (Map.Entry<String, List<Record>> e : records.entrySet())
+      {
+         List<Record> group = e.getValue();
+         if (group.get(0).getMessageType() == MessageType.INBOUND)
+         {
+            assertEquals(2, group.size());
+            assertTrue(byHost.containsKey(e.getKey()));
+         }
+         else
+         {
+            assertEquals(1, group.size());
+            assertFalse(byHost.containsKey(e.getKey()));
+         }
+      }
+   }
+
+   public void testLateRecordOfEvictedGroup() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(2);
+      Record inbound = RecordFactory.newRecord();
+      inbound.setMessageType(MessageType.INBOUND);
+      inbound.setSourceHost("host");
+      recorder.processRecord(inbound);
+      String second = addGroup(recorder, "host");
+      String third = addGroup(recorder, "host");
+      Record outbound = RecordFactory.newRecord(inbound.getGroupID());
+      outbound.setMessageType(MessageType.OUTBOUND);
+      recorder.processRecord(outbound);
+      assertEquals(2, recorder.getSize());
+      Map<String, List<Record>> records = recorder.getMatchingRecords(new RecordFilter[0]);
+      assertEquals(Arrays.asList(second, third).toString(), records.keySet().toString());
+   }
+
+   public void testConcurrentProducersWithoutEviction() throws Exception
+   {
+      final MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      final int threads = 16;
+      final int groups = 200;
+      recorder.setMaxSize(threads * groups);
+      final CountDownLatch latch = new CountDownLatch(threads);
+      for (int t = 0; t < threads; t++)
+      {
+         new Thread(new Runnable() {
+            public void run()
+            {
+               try
+               {
+                  for (int i = 0; i < groups; i++)
+                  {
+                     addGroup(recorder, "host");
+                  }
+               }
+               finally
+               {
+                  latch.countDown();
+               }
+            }
+         }).start();
+      }
+      latch.await();
+      assertEquals(threads * groups, recorder.getSize());
+      Map<String, List<Record>> records = recorder.getMatchingRecords(new RecordFilter[] {new OperationFilter(OP)});
+      assertEquals(threads * groups, records.size());
+      for (List<Record> group : records.values())
+      {
+         assertEquals(2, group.size());
+      }
+      assertEquals(records.keySet().toString(), recorder.getRecordsByClientHost("host").keySet().toString());
+   }
+
+   public void testRendering() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      String[] ids = new String[5];
+      for (int i = 0; i < ids.length; i++)
+      {
+         ids[i] = addGroup(recorder, "host" + i);
+      }
+      Record record = RecordFactory.newRecord(ids[4]);
+      record.setEnvelope("<env:Envelope a=\"x&amp;y\">\u2028</env:Envelope>");
+      recorder.processRecord(record);
+
+      StringWriter writer = new StringWriter();
+      assertEquals(2, recorder.writeRecords(RecordRenderer.newJsonRenderer(true), writer, 3, 10));
+      String json = writer.toString();
+      assertTrue(json.startsWith("[{\"groupID\":\"" + ids[3] + "\""));
+      assertTrue(json.contains("},{\"groupID\":\"" + ids[4] + "\""));
+      assertTrue(json.contains("\"envelope\":\"\\u003cenv:Envelope a=\\\"x&amp;y\\\">\\u2028\\u003c/env:Envelope>\""));
+      assertTrue(json.endsWith("}]}]"));
+
+      writer = new StringWriter();
+      assertEquals(0, recorder.writeRecords(RecordRenderer.newJsonRenderer(false), writer, 7, 10));
+      assertEquals("[]", writer.toString());
+
+      String html = recorder.getRecordsAsHTMLTable(false, true, 1, 1);
+      assertTrue(html.contains(ids[1]));
+      assertFalse(html.contains(ids[2]));
+      assertEquals(recorder.getRecordsAsHTMLTable(true, true), recorder.getRecordsAsHTMLTable(true, true, 0, -1));
+      html = recorder.getRecordsByClientHostAsHTMLTable(true, false, "host2");
+      assertTrue(html.contains(ids[2]));
+      assertFalse(html.contains(ids[1]));
+      writer = new StringWriter();
+      RecordRenderer.newHtmlRenderer(true, false).render(recorder.getRecordsByClientHost("host2"), writer);
+      assertEquals("</pre></span>" + writer + "<pre><span class='OpResult'>", html);
+      html = recorder.getRecordsByOperationAsHTMLTable(false, true, OP.getNamespaceURI(), OP.getLocalPart());
+      writer = new StringWriter();
+      RecordRenderer.newHtmlRenderer(false, true).render(recorder.getRecordsByOperation(OP.getNamespaceURI(), OP.getLocalPart()), writer);
+      assertEquals("</pre></span>" + writer + "<pre><span class='OpResult'>", html);
+      assertTrue(html.contains(ids[0]) && html.contains(ids[4]));
+      html = recorder.getRecordsAsHTMLTable(true, true, 4, 1);
+      assertTrue(html.contains("&lt;env:Envelope a=\"x&amp;amp;y\"&gt;"));
+      assertEquals(1, html.split("<table").length - 1);
+   }
+
+   public void testOffHeap() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(2);
+      recorder.setOffHeap(true);
+      recorder.setOffHeapCompression(true);
+      StringBuilder sb = new StringBuilder("<env:Envelope>");
+      for (int i = 0; i < 500; i++)
+      {
+         sb.append("<item>caf\u00e9 ").append(i).append("</item>");
+      }
+      String envelope = sb.append("</env:Envelope>").toString();
+      Record record = RecordFactory.newRecord();
+      record.setMessageType(MessageType.INBOUND);
+      record.setEnvelope(envelope);
+      record.addHeaders("SOAPAction", Collections.singletonList("urn:echo"));
+      recorder.processRecord(record);
+      assertTrue(recorder.getOffHeapUsedSize() > 0);
+      assertTrue(recorder.getOffHeapUsedSize() < envelope.length());
+
+      Record stored = recorder.getMatchingRecords(new RecordFilter[0]).get(record.getGroupID()).get(0);
+      assertEquals(envelope, stored.getEnvelope());
+      assertEquals(Collections.singletonList("urn:echo"), stored.getHeaders().get("SOAPAction"));
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(stored);
+      out.close();
+      Record deserialized = (Record)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+      assertEquals(envelope, deserialized.getEnvelope());
+      assertEquals(1, deserialized.getHeaders().size());
+      //the headers view of an off-heap record is live as well
+      stored.getHeaders().put("extra", Collections.singletonList("x"));
+      assertEquals(Collections.singletonList("x"), stored.getHeaders().get("extra"));
+      assertEquals(2, stored.getHeaders().size());
+
+      addGroup(recorder, "host1");
+      addGroup(recorder, "host2");
+      assertEquals(0, recorder.getOffHeapUsedSize());
+      assertNull(stored.getEnvelope());
+   }
+
+   public void testOffHeapClone() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(2);
+      recorder.setOffHeap(true);
+      recorder.setOffHeapCompression(true);
+      String envelope = "<env:Envelope><item>caf\u00e9</item></env:Envelope>";
+      Record record = RecordFactory.newRecord();
+      record.setMessageType(MessageType.INBOUND);
+      record.setEnvelope(envelope);
+      record.addHeaders("SOAPAction", Collections.singletonList("urn:echo"));
+      recorder.processRecord(record);
+      assertTrue(recorder.getOffHeapUsedSize() > 0);
+
+      MemoryBufferRecorder clone = (MemoryBufferRecorder)recorder.clone();
+      Record cloned = clone.getMatchingRecords(new RecordFilter[0]).get(record.getGroupID()).get(0);
+      Record stored = recorder.getMatchingRecords(new RecordFilter[0]).get(record.getGroupID()).get(0);
+      assertNotSame(stored, cloned);
+
+      //evicting the records of either recorder does not affect the other one
+      addGroup(recorder, "host1");
+      addGroup(recorder, "host2");
+      assertEquals(0, recorder.getOffHeapUsedSize());
+      assertNull(stored.getEnvelope());
+      assertEquals(envelope, cloned.getEnvelope());
+      assertEquals(Collections.singletonList("urn:echo"), cloned.getHeaders().get("SOAPAction"));
+
+      recorder = (MemoryBufferRecorder)clone.clone();
+      clone.setMaxSize(0);
+      stored = recorder.getMatchingRecords(new RecordFilter[0]).get(record.getGroupID()).get(0);
+      assertEquals(envelope, stored.getEnvelope());
+      assertEquals(envelope, stored.getEnvelope());
+   }
+
+   public void testOffHeapWithOtherProcessors() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setRecording(true);
+      recorder.setMaxSize(1);
+      recorder.setOffHeap(true);
+      FlightRecorder flightRecorder = new FlightRecorder();
+      flightRecorder.setRecording(true);
+      Endpoint endpoint = endpoint(recorder, flightRecorder);
+
+      Record inbound = RecordFactory.newRecord();
+      inbound.setMessageType(MessageType.INBOUND);
+      inbound.setEnvelope("<request/>");
+      inbound.addHeaders("SOAPAction", Collections.singletonList("urn:echo"));
+      endpoint.processRecord(inbound);
+      RecordImpl outbound = (RecordImpl)RecordFactory.newRecord(inbound.getGroupID());
+      outbound.setMessageType(MessageType.OUTBOUND);
+      outbound.setEnvelope("<fault/>");
+      outbound.setFault(true);
+      endpoint.processRecord(outbound);
+      assertTrue(recorder.getOffHeapUsedSize() > 0);
+      //evicts the exchange from the memory buffer, freeing its off-heap data
+      Record other = RecordFactory.newRecord();
+      other.setMessageType(MessageType.INBOUND);
+      endpoint.processRecord(other);
+      assertEquals(0, recorder.getOffHeapUsedSize());
+
+      List<Record> incident = flightRecorder.getIncidents().get(inbound.getGroupID());
+      assertEquals(2, incident.size());
+      assertEquals("<request/>", incident.get(0).getEnvelope());
+      assertEquals(Collections.singletonList("urn:echo"), incident.get(0).getHeaders().get("SOAPAction"));
+      assertEquals("<fault/>", incident.get(1).getEnvelope());
+      assertEquals("<request/>", inbound.getEnvelope());
+   }
+
+   public void testOffHeapEvictionDuringRead() throws Exception
+   {
+      final MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(1);
+      recorder.setOffHeap(true);
+      Record record = RecordFactory.newRecord();
+      record.setMessageType(MessageType.INBOUND);
+      record.setEnvelope("<env:Envelope/>");
+      recorder.processRecord(record);
+      final String[] envelopes = new String[2];
+      //the filter evicts the record it is matching, which has to stay readable till the end of the lookup
+      RecordFilter filter = new RecordFilter() {
+         private static final long serialVersionUID = 1L;
+
+         public boolean match(Record r)
+         {
+            envelopes[0] = r.getEnvelope();
+            addGroup(recorder, "host1");
+            envelopes[1] = r.getEnvelope();
+            return true;
+         }
+
+         public Object clone() throws CloneNotSupportedException
+         {
+            return super.clone();
+         }
+      };
+      Map<String, List<Record>> result = recorder.getMatchingRecords(new RecordFilter[] {filter});
+      assertEquals("<env:Envelope/>", envelopes[0]);
+      assertEquals("<env:Envelope/>", envelopes[1]);
+      //freed once the lookup is over
+      assertEquals(0, recorder.getOffHeapUsedSize());
+      assertNull(result.get(record.getGroupID()).get(0).getEnvelope());
+   }
+
+   public void testOffHeapBlockSize() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setOffHeap(true);
+      recorder.setOffHeapBlockSize(64);
+      Record record = RecordFactory.newRecord();
+      record.setMessageType(MessageType.INBOUND);
+      record.setEnvelope("<env:Envelope/>");
+      recorder.processRecord(record);
+      //a single small block for the envelope
+      assertEquals(64, recorder.getOffHeapUsedSize());
+      assertEquals(64 * 1024, recorder.getOffHeapAllocatedSize());
+      try
+      {
+         recorder.setOffHeapBlockSize(0);
+         fail("Exception expected");
+      }
+      catch (IllegalArgumentException e)
+      {
+         //expected
+      }
+   }
+
+   private static String addGroup(MemoryBufferRecorder recorder, String host)
+   {
+      Record inbound = RecordFactory.newRecord();
+      inbound.setMessageType(MessageType.INBOUND);
+      inbound.setSourceHost(host);
+      inbound.setOperation(OP);
+      recorder.processRecord(inbound);
+      Record outbound = RecordFactory.newRecord(inbound.getGroupID());
+      outbound.setMessageType(MessageType.OUTBOUND);
+      outbound.setOperation(OP);
+      recorder.processRecord(outbound);
+      return inbound.getGroupID();
+   }
+
+   /**
+    * An endpoint passing the same records to all of its processors, like AbstractDefaultEndpoint
+    */
+   private static Endpoint endpoint(final AbstractRecordProcessor... processors)
+   {
+      final List<RecordProcessor> list = Arrays.<RecordProcessor>asList(processors);
+      return (Endpoint)Proxy.newProxyInstance(Endpoint.class.getClassLoader(), new Class<?>[] {Endpoint.class},
+            new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  String m = method.getName();
+                  if ("getRecordProcessors".equals(m))
+                  {
+                     return list;
+                  }
+                  if ("processRecord".equals(m))
+                  {
+                     for (AbstractRecordProcessor processor : processors)
+                     {
+                        if (processor.isRecording() && processor.matches((Record)args[0]))
+                        {
+                           processor.processRecord((Record)args[0]);
+                        }
+                     }
+                     return null;
+                  }
+                  throw new UnsupportedOperationException(m);
+               }
+            });
+   }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+
+/**
+ * Measures the heap allocated and retained per message exchange by the records
+ * built on the RecordingServerHandler path (without envelope), comparing the
+ * compact RecordImpl layout with the former one.
+ * 
+ * Run with: java -cp ... org.jboss.test.ws.common.monitoring.RecordAllocationBenchmark
+ * 
+ * @since 18-Oct-2026
+ */
+public class RecordAllocationBenchmark
+{
+   private static final int WARMUP = 200000;
+   private static final int ITERATIONS = 1000000;
+   private static final int RETAINED_GROUPS = 20000;
+   private static final QName OPERATION = new QName("http://org.jboss.ws/test", "echo");
+   private static final Map<String, List<String>> REQUEST_HEADERS = new TreeMap<String, List<String>>();
+   private static final Map<String, List<String>> RESPONSE_HEADERS = new TreeMap<String, List<String>>();
+
+   static
+   {
+      REQUEST_HEADERS.put("Content-Type", Collections.singletonList("text/xml;charset=UTF-8"));
+      REQUEST_HEADERS.put("SOAPAction", Collections.singletonList("\"urn:echo\""));
+      REQUEST_HEADERS.put("Host", Collections.singletonList("localhost:8080"));
+      REQUEST_HEADERS.put("User-Agent", Collections.singletonList("Apache-CXF"));
+      RESPONSE_HEADERS.put("Content-Type", Collections.singletonList("text/xml;charset=UTF-8"));
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+      for (boolean compact : new boolean[] {false, true, false, true})
+      {
+         MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+         recorder.setMaxSize(1000);
+         exchanges(recorder, compact, WARMUP);
+         long tid = Thread.currentThread().getId();
+         long before = threads.getThreadAllocatedBytes(tid);
+         exchanges(recorder, compact, ITERATIONS);
+         long allocated = threads.getThreadAllocatedBytes(tid) - before;
+
+         recorder = new MemoryBufferRecorder();
+         recorder.setMaxSize(RETAINED_GROUPS);
+         long used = usedHeap();
+         exchanges(recorder, compact, RETAINED_GROUPS);
+         long retained = usedHeap() - used;
+         System.out.println((compact ? "compact RecordImpl" : "former layout     ") + ": "
+               + (allocated / ITERATIONS) + " bytes allocated, " + (retained / RETAINED_GROUPS) + " bytes retained per exchange"
+               + " (" + recorder.getSize() + " groups)");
+      }
+   }
+
+   private static void exchanges(MemoryBufferRecorder recorder, boolean compact, int count)
+   {
+      for (int i = 0; i < count; i++)
+      {
+         //a servlet container returns new strings at each request
+         String remoteHost = new String(new char[] {'1', '0', '.', '0', '.', '0', '.', (char)('1' + (i & 7))});
+         String localHost = new String(new char[] {'l', 'o', 'c', 'a', 'l', 'h', 'o', 's', 't'});
+         Record inbound = compact ? RecordFactory.newRecord() : new FormerRecord(RecordFactory.newGroupID());
+         stamp(inbound, compact);
+         inbound.setDestinationHost(localHost);
+         inbound.setSourceHost(remoteHost);
+         inbound.setHeaders(REQUEST_HEADERS);
+         inbound.setMessageType(MessageType.INBOUND);
+         inbound.setOperation(OPERATION);
+         recorder.processRecord(inbound);
+         Record outbound = compact ? RecordFactory.newRecord(inbound.getGroupID()) : new FormerRecord(inbound.getGroupID());
+         stamp(outbound, compact);
+         outbound.setHeaders(RESPONSE_HEADERS);
+         outbound.setMessageType(MessageType.OUTBOUND);
+         outbound.setOperation(OPERATION);
+         recorder.processRecord(outbound);
+      }
+   }
+
+   private static void stamp(Record record, boolean compact)
+   {
+      if (compact)
+      {
+         ((RecordImpl)record).setTimestamp(RecordImpl.currentTimestamp());
+      }
+      else
+      {
+         record.setDate(new Date());
+      }
+   }
+
+   private static long usedHeap() throws InterruptedException
+   {
+      Runtime runtime = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++)
+      {
+         System.gc();
+         Thread.sleep(50);
+      }
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+   /**
+    * The RecordImpl layout before it was made compact
+    */
+   private static class FormerRecord implements Record
+   {
+      private static final long serialVersionUID = 1L;
+
+      private String sourceHost;
+      private String destinationHost;
+      private Map<String, List<String>> headers = new HashMap<String, List<String>>();
+      private MessageType messageType;
+      private QName operation;
+      private String groupID;
+      private Date date;
+      private String envelope;
+
+      FormerRecord(String groupID)
+      {
+         this.groupID = groupID;
+      }
+
+      public void addHeaders(String key, List<String> value)
+      {
+         headers.put(key, value);
+      }
+
+      public Map<String, List<String>> getHeaders()
+      {
+         return headers;
+      }
+
+      public MessageType getMessageType()
+      {
+         return messageType;
+      }
+
+      public void setMessageType(MessageType messageType)
+      {
+         this.messageType = messageType;
+      }
+
+      public String getSourceHost()
+      {
+         return sourceHost;
+      }
+
+      public void setSourceHost(String sourceHost)
+      {
+         this.sourceHost = sourceHost;
+      }
+
+      public String getDestinationHost()
+      {
+         return destinationHost;
+      }
+
+      public void setDestinationHost(String destinationHost)
+      {
+         this.destinationHost = destinationHost;
+      }
+
+      public void setHeaders(Map<String, List<String>> headers)
+      {
+         if (headers != null)
+            this.headers = new HashMap<String, List<String>>(headers);
+      }
+
+      public String getGroupID()
+      {
+         return groupID;
+      }
+
+      public QName getOperation()
+      {
+         return operation;
+      }
+
+      public void setGroupID(String groupID)
+      {
+         this.groupID = groupID;
+      }
+
+      public void setOperation(QName operation)
+      {
+         this.operation = operation;
+      }
+
+      public Date getDate()
+      {
+         return date;
+      }
+
+      public void setDate(Date date)
+      {
+         this.date = date;
+      }
+
+      public String getEnvelope()
+      {
+         return envelope;
+      }
+
+      public void setEnvelope(String envelope)
+      {
+         this.envelope = envelope;
+      }
+   }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import org.jboss.test.ws.common.ConcurrentBenchmark;
+import org.jboss.ws.common.monitoring.RecordFactory;
+
+/**
+ * Compares the striped group ID generation of the RecordFactory with the
+ * former synchronized counter, with an increasing number of threads.
+ * 
+ * Run with: java -cp ... org.jboss.test.ws.common.monitoring.RecordFactoryBenchmark
+ * 
+ * @since 18-Oct-2026
+ */
+public class RecordFactoryBenchmark
+{
+   private static final int ITERATIONS = 1000000;
+
+   private static volatile Object sink;
+
+   public static void main(String[] args) throws Exception
+   {
+      for (int threads : new int[] {1, 2, 4, 8, 16})
+      {
+         new ConcurrentBenchmark("synchronized newGroupID") {
+            @Override
+            protected void operation(int thread, int iteration)
+            {
+               sink = SynchronizedGroupIDs.newGroupID();
+            }
+         }.report(threads, ITERATIONS);
+         new ConcurrentBenchmark("RecordFactory.newGroupID") {
+            @Override
+            protected void operation(int thread, int iteration)
+            {
+               sink = RecordFactory.newGroupID();
+            }
+         }.report(threads, ITERATIONS);
+      }
+   }
+
+   /**
+    * The group ID generation before the striped counters were introduced
+    */
+   private static class SynchronizedGroupIDs
+   {
+      private static long count = 0;
+
+      static String newGroupID()
+      {
+         long time = System.currentTimeMillis();
+         StringBuilder sb = new StringBuilder();
+         synchronized (SynchronizedGroupIDs.class)
+         {
+            count++;
+            sb.append(count);
+         }
+         sb.append("-");
+         sb.append(time);
+         return sb.toString();
+      }
+   }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.monitoring.RecordFactory;
+
+/**
+ * Test the RecordFactory group IDs
+ *
+ * @since 18-Oct-2026
+ */
+public class RecordFactoryTestCase extends TestCase
+{
+   public void testUniqueAcrossThreads() throws Exception
+   {
+      final int threads = 16;
+      final int ids = 20000;
+      final Set<String> groupIDs = ConcurrentHashMap.newKeySet();
+      final CountDownLatch start = new CountDownLatch(1);
+      final CountDownLatch done = new CountDownLatch(threads);
+      for (int t = 0; t < threads; t++)
+      {
+         new Thread(new Runnable() {
+            public void run()
+            {
+               try
+               {
+                  start.await();
+                  for (int i = 0; i < ids; i++)
+                  {
+                     groupIDs.add(RecordFactory.newGroupID());
+                  }
+               }
+               catch (InterruptedException e)
+               {
+                  Thread.currentThread().interrupt();
+               }
+               finally
+               {
+                  done.countDown();
+               }
+            }
+         }).start();
+      }
+      start.countDown();
+      assertTrue(done.await(60, TimeUnit.SECONDS));
+      assertEquals(threads * ids, groupIDs.size());
+   }
+
+   public void testUniqueAcrossShortLivedThreads() throws Exception
+   {
+      final int threads = 2000;
+      final Set<String> groupIDs = ConcurrentHashMap.newKeySet();
+      for (int t = 0; t < threads; t++)
+      {
+         Thread thread = new Thread(new Runnable() {
+            public void run()
+            {
+               groupIDs.add(RecordFactory.newGroupID());
+               groupIDs.add(RecordFactory.newGroupID());
+            }
+         });
+         thread.start();
+         thread.join();
+      }
+      assertEquals(2 * threads, groupIDs.size());
+   }
+}
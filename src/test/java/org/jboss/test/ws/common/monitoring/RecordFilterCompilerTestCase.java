@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.common.monitoring.AndFilter;
+import org.jboss.ws.common.monitoring.HostFilter;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.ws.common.monitoring.NotFilter;
+import org.jboss.ws.common.monitoring.OperationFilter;
+import org.jboss.ws.common.monitoring.OrFilter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordFilterCompiler;
+
+/**
+ * Test the RecordFilterCompiler
+ * 
+ * @since 18-Oct-2026
+ */
+public class RecordFilterCompilerTestCase extends TestCase
+{
+   private static final String[] HOSTS = { "localhost", "LocalHost", "10.0.0.1", "example.org", "h\u00f4te", "H\u00d4TE", null };
+   private static final QName[] OPERATIONS = { new QName("urn:test", "echo"), new QName("urn:test", "ping"), null };
+
+   public void testEquivalence() throws Exception
+   {
+      Random random = new Random(42);
+      for (int i = 0; i < 500; i++)
+      {
+         RecordFilter[] filters = new RecordFilter[random.nextInt(3)];
+         for (int j = 0; j < filters.length; j++)
+         {
+            filters[j] = newFilter(random, 4);
+         }
+         RecordFilter compiled = RecordFilterCompiler.compile(Arrays.asList(filters));
+         for (int j = 0; j < 20; j++)
+         {
+            Record record = newRecord(random);
+            boolean expected = true;
+            for (RecordFilter filter : filters)
+            {
+               expected = expected && filter.match(record);
+            }
+            assertEquals(expected, compiled.match(record));
+         }
+      }
+   }
+
+   public void testProcessorFilters() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      Record record = RecordFactory.newRecord();
+      record.setSourceHost("localhost");
+      record.setOperation(OPERATIONS[0]);
+      assertTrue(recorder.matches(record));
+      recorder.addFilter(new HostFilter("LOCALHOST", true));
+      assertTrue(recorder.matches(record));
+      try
+      {
+         recorder.getFilters().add(new OperationFilter(OPERATIONS[1]));
+         fail("the filters list must be immutable");
+      }
+      catch (UnsupportedOperationException e)
+      {
+         //expected
+      }
+      assertTrue(recorder.matches(record));
+      RecordFilter operationFilter = new OperationFilter(OPERATIONS[1]);
+      recorder.addFilter(operationFilter);
+      assertFalse(recorder.matches(record));
+      assertTrue(recorder.removeFilter(operationFilter));
+      assertFalse(recorder.removeFilter(operationFilter));
+      assertTrue(recorder.matches(record));
+      List<RecordFilter> list = new ArrayList<RecordFilter>();
+      list.add(operationFilter);
+      recorder.setFilters(list);
+      assertFalse(recorder.matches(record));
+      //changes to the given list are not seen by the processor
+      list.clear();
+      assertFalse(recorder.matches(record));
+      assertEquals(1, recorder.getFilters().size());
+      recorder.setFilters(Collections.<RecordFilter>singletonList(new NotFilter(new HostFilter("localhost", true))));
+      assertFalse(recorder.matches(record));
+      MemoryBufferRecorder clone = (MemoryBufferRecorder)recorder.clone();
+      record.setSourceHost("example.org");
+      assertTrue(clone.matches(record));
+   }
+
+   public void testSubclassedFilters() throws Exception
+   {
+      Record record = RecordFactory.newRecord();
+      record.setSourceHost("localhost");
+      record.setOperation(OPERATIONS[0]);
+      //a host filter matching any host
+      RecordFilter anyHost = new HostFilter("example.org", true) {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         public boolean match(Record record)
+         {
+            return true;
+         }
+      };
+      //an and filter behaving as an or filter
+      RecordFilter either = new AndFilter(new OperationFilter(OPERATIONS[1]), new HostFilter("localhost", true)) {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         public boolean match(Record record)
+         {
+            return getFilter1().match(record) || getFilter2().match(record);
+         }
+      };
+      assertTrue(RecordFilterCompiler.compile(Collections.singletonList(anyHost)).match(record));
+      assertTrue(RecordFilterCompiler.compile(Collections.singletonList(either)).match(record));
+      assertTrue(RecordFilterCompiler.compile(Arrays.asList(new OperationFilter(OPERATIONS[0]), either, anyHost)).match(record));
+      assertFalse(RecordFilterCompiler.compile(Arrays.<RecordFilter>asList(new NotFilter(anyHost))).match(record));
+   }
+
+   private static RecordFilter newFilter(Random random, int depth)
+   {
+      switch (depth > 0 ? random.nextInt(5) : 3 + random.nextInt(2))
+      {
+         case 0:
+            return new AndFilter(newFilter(random, depth - 1), newFilter(random, depth - 1));
+         case 1:
+            return new OrFilter(newFilter(random, depth - 1), newFilter(random, depth - 1));
+         case 2:
+            return new NotFilter(newFilter(random, depth - 1));
+         case 3:
+            List<String> hosts = Arrays.asList(HOSTS).subList(0, HOSTS.length - 1);
+            int from = random.nextInt(hosts.size());
+            return new HostFilter(hosts.subList(from, from + 1 + random.nextInt(hosts.size() - from)), random.nextBoolean());
+         default:
+            return new OperationFilter(OPERATIONS[random.nextInt(OPERATIONS.length)]);
+      }
+   }
+
+   private static Record newRecord(Random random)
+   {
+      Record record = RecordFactory.newRecord();
+      record.setSourceHost(HOSTS[random.nextInt(HOSTS.length)]);
+      record.setDestinationHost(HOSTS[random.nextInt(HOSTS.length)]);
+      record.setOperation(OPERATIONS[random.nextInt(OPERATIONS.length)]);
+      return record;
+   }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DOMWriter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+import org.w3c.dom.Element;
+
+/**
+ * Test the RecordImpl
+ *
+ * @since 18-Oct-2026
+ */
+public class RecordImplTestCase extends TestCase
+{
+   private static final String ENVELOPE = "<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'>"
+         + "<env:Body><echo>caf\u00e9 \u20ac \ud83d\ude00 &amp; more</echo></env:Body></env:Envelope>";
+   //a record serialized before the timestamp and the envelope size were introduced
+   private static final String OLD_RECORD = "rO0ABXNyAClvcmcuamJvc3Mud3MuY29tbW9uLm1vbml0b3JpbmcuUmVjb3JkSW1wbN5mzHwPbaMsAgAITAAEZGF0ZXQAEExq"
+         + "YXZhL3V0aWwvRGF0ZTtMAA9kZXN0aW5hdGlvbkhvc3R0ABJMamF2YS9sYW5nL1N0cmluZztMAAhlbnZlbG9wZXEAfgACTAAH"
+         + "Z3JvdXBJRHEAfgACTAAHaGVhZGVyc3QAD0xqYXZhL3V0aWwvTWFwO0wAC21lc3NhZ2VUeXBldAAwTG9yZy9qYm9zcy93cy9h"
+         + "cGkvbW9uaXRvcmluZy9SZWNvcmQkTWVzc2FnZVR5cGU7TAAJb3BlcmF0aW9udAAbTGphdmF4L3htbC9uYW1lc3BhY2UvUU5h"
+         + "bWU7TAAKc291cmNlSG9zdHEAfgACeHBzcgAOamF2YS51dGlsLkRhdGVoaoEBS1l0GQMAAHhwdwgAAAEfcfsEy3h0AAZzZXJ2"
+         + "ZXJ0AA88ZW52OkVudmVsb3BlLz50AAdncm91cC0xc3IAEWphdmEudXRpbC5IYXNoTWFwBQfawcMWYNEDAAJGAApsb2FkRmFj"
+         + "dG9ySQAJdGhyZXNob2xkeHA/QAAAAAAADHcIAAAAEAAAAAF0AApTT0FQQWN0aW9uc3IAI2phdmEudXRpbC5Db2xsZWN0aW9u"
+         + "cyRTaW5nbGV0b25MaXN0Ku8pEDynm5cCAAFMAAdlbGVtZW50dAASTGphdmEvbGFuZy9PYmplY3Q7eHB0AAh1cm46ZWNob3h+"
+         + "cgAub3JnLmpib3NzLndzLmFwaS5tb25pdG9yaW5nLlJlY29yZCRNZXNzYWdlVHlwZQAAAAAAAAAAEgAAeHIADmphdmEubGFu"
+         + "Zy5FbnVtAAAAAAAAAAASAAB4cHQAB0lOQk9VTkRzcgAZamF2YXgueG1sLm5hbWVzcGFjZS5RTmFtZYFtqC38O91sAgADTAAJ"
+         + "bG9jYWxQYXJ0cQB+AAJMAAxuYW1lc3BhY2VVUklxAH4AAkwABnByZWZpeHEAfgACeHB0AARlY2hvdAAIdXJuOnRlc3R0AAB0"
+         + "AAZjbGllbnQ=";
+
+   public void testEnvelopeSource() throws Exception
+   {
+      Element source = DOMUtils.parse(ENVELOPE);
+      String expected = DOMWriter.printNode(source, false);
+      RecordImpl record = (RecordImpl)RecordFactory.newRecord();
+      record.setEnvelopeSource(source, 0);
+      assertEquals(-1, record.getEnvelopeSize());
+      assertEquals(expected, record.getEnvelope());
+      assertFalse(record.isEnvelopeTruncated());
+      assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, record.getEnvelopeSize());
+   }
+
+   public void testTruncatedEnvelope() throws Exception
+   {
+      Element source = DOMUtils.parse(ENVELOPE);
+      String expected = DOMWriter.printNode(source, false);
+      byte[] bytes = expected.getBytes(StandardCharsets.UTF_8);
+      for (int max = 1; max < bytes.length; max++)
+      {
+         RecordImpl record = (RecordImpl)RecordFactory.newRecord();
+         record.setEnvelopeSource(source, max);
+         String envelope = record.getEnvelope();
+         assertTrue(record.isEnvelopeTruncated());
+         //the size of the whole envelope
+         assertEquals(bytes.length, record.getEnvelopeSize());
+         //never cut in the middle of a char
+         assertTrue(expected.startsWith(envelope));
+         int length = envelope.getBytes(StandardCharsets.UTF_8).length;
+         assertTrue(length <= max && length > max - 4);
+      }
+      RecordImpl record = (RecordImpl)RecordFactory.newRecord();
+      record.setEnvelopeSource(source, bytes.length);
+      assertEquals(expected, record.getEnvelope());
+      assertFalse(record.isEnvelopeTruncated());
+      assertEquals(bytes.length, record.getEnvelopeSize());
+   }
+
+   public void testHeadersView() throws Exception
+   {
+      Record record = RecordFactory.newRecord();
+      Map<String, List<String>> headers = record.getHeaders();
+      assertTrue(headers.isEmpty());
+      headers.put("a", Collections.singletonList("1"));
+      assertEquals(Collections.singletonList("1"), headers.get("a"));
+      record.addHeaders("b", Collections.singletonList("2"));
+      record.addHeaders("c", Collections.singletonList("3"));
+      assertEquals(3, headers.size());
+      assertEquals(Collections.singletonList("2"), headers.get("b"));
+      assertEquals(Collections.singletonList("1"), headers.put("a", Arrays.asList("1", "one")));
+      assertEquals(Arrays.asList("1", "one"), record.getHeaders().get("a"));
+
+      assertEquals(Collections.singletonList("2"), headers.remove("b"));
+      assertNull(headers.remove("b"));
+      assertFalse(record.getHeaders().containsKey("b"));
+      for (Iterator<Entry<String, List<String>>> it = headers.entrySet().iterator(); it.hasNext();)
+      {
+         Entry<String, List<String>> e = it.next();
+         if ("c".equals(e.getKey()))
+         {
+            it.remove();
+         }
+         else
+         {
+            e.setValue(Collections.singletonList("uno"));
+         }
+      }
+      assertEquals(Collections.singletonMap("a", Collections.singletonList("uno")), record.getHeaders());
+      headers.clear();
+      assertTrue(record.getHeaders().isEmpty());
+   }
+
+   public void testDateOutOfRange() throws Exception
+   {
+      RecordImpl record = (RecordImpl)RecordFactory.newRecord();
+      Date date = new Date(1234567890123L);
+      record.setDate(date);
+      assertEquals(date, record.getDate());
+      assertEquals(1234567890123000000L, record.getTimestamp());
+      record.setDate(new Date(Long.MAX_VALUE));
+      assertEquals(Long.MAX_VALUE, record.getTimestamp());
+      record.setDate(new Date(Long.MIN_VALUE));
+      assertEquals(RecordImpl.NO_TIMESTAMP + 1, record.getTimestamp());
+      assertNotNull(record.getDate());
+      record.setDate(null);
+      assertEquals(RecordImpl.NO_TIMESTAMP, record.getTimestamp());
+      assertNull(record.getDate());
+   }
+
+   public void testOldSerializedForm() throws Exception
+   {
+      ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(OLD_RECORD)));
+      RecordImpl record = (RecordImpl)in.readObject();
+      assertRecord(record);
+      assertEquals(1234567890123000000L, record.getTimestamp());
+      assertEquals(-1, record.getEnvelopeSize());
+      assertFalse(record.isEnvelopeTruncated());
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(record);
+      out.close();
+      assertRecord((RecordImpl)new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject());
+   }
+
+   private static void assertRecord(RecordImpl record)
+   {
+      assertEquals("group-1", record.getGroupID());
+      assertEquals("client", record.getSourceHost());
+      assertEquals("server", record.getDestinationHost());
+      assertEquals(MessageType.INBOUND, record.getMessageType());
+      assertEquals(new QName("urn:test", "echo"), record.getOperation());
+      assertEquals(new Date(1234567890123L), record.getDate());
+      assertEquals("<env:Envelope/>", record.getEnvelope());
+      assertEquals(Collections.singletonMap("SOAPAction", Collections.singletonList("urn:echo")), record.getHeaders());
+   }
+}
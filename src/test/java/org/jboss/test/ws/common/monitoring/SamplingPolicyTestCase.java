@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher;
+import org.jboss.ws.common.monitoring.AsyncRecordDispatcher.OverflowPolicy;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+import org.jboss.ws.common.monitoring.SamplingDecision;
+import org.jboss.ws.common.monitoring.SamplingPolicy;
+import org.jboss.ws.common.monitoring.SamplingPolicy.Decision;
+import org.jboss.ws.common.monitoring.SamplingPolicy.Sample;
+import org.jboss.ws.common.monitoring.SamplingPolicy.Sink;
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * Test the record processor sampling policies
+ * 
+ * @since 18-Oct-2026
+ */
+public class SamplingPolicyTestCase extends TestCase
+{
+   private static final QName OP = new QName("http://org.jboss.ws/test", "echo");
+
+   public void testOneEvery() throws Exception
+   {
+      MemoryBufferRecorder recorder = newRecorder("count:3");
+      for (int i = 0; i < 9; i++)
+      {
+         exchange(recorder, false);
+      }
+      Map<String, List<Record>> records = recorder.getMatchingRecords(new RecordFilter[0]);
+      assertEquals(3, records.size());
+      for (List<Record> group : records.values())
+      {
+         assertEquals(2, group.size());
+      }
+   }
+
+   public void testOutliers() throws Exception
+   {
+      MemoryBufferRecorder recorder = newRecorder("outliers:60000");
+      exchange(recorder, false);
+      exchange(recorder, true);
+      exchange(recorder, false);
+      Map<String, List<Record>> records = recorder.getMatchingRecords(new RecordFilter[0]);
+      assertEquals(1, records.size());
+      List<Record> group = records.values().iterator().next();
+      assertEquals(MessageType.INBOUND, group.get(0).getMessageType());
+      assertEquals(MessageType.OUTBOUND, group.get(1).getMessageType());
+   }
+
+   public void testReservoir() throws Exception
+   {
+      MemoryBufferRecorder recorder = newRecorder("reservoir:2/100");
+      for (int i = 0; i < 10; i++)
+      {
+         exchange(recorder, false);
+      }
+      assertEquals(0, recorder.getSize());
+      //flushed at the end of the period, without waiting for another group
+      Thread.sleep(300);
+      assertEquals(2, recorder.getSize());
+   }
+
+   public void testReservoirUniform() throws Exception
+   {
+      final int trials = 600;
+      final int[] kept = new int[3];
+      for (int t = 0; t < trials; t++)
+      {
+         SamplingPolicy policy = SamplingPolicy.valueOf("reservoir:1/200");
+         Sample[] samples = new Sample[kept.length];
+         for (int i = 0; i < samples.length; i++)
+         {
+            samples[i] = policy.sampleGroup();
+         }
+         //the groups complete in the reverse order
+         for (int i = samples.length - 1; i >= 0; i--)
+         {
+            if (samples[i].getDecision() == Decision.DEFER)
+            {
+               final int group = i;
+               policy.complete(samples[i].getState(), Collections.singletonList(RecordFactory.newRecord()), false, 0, new Sink() {
+                  public void process(List<Record> records)
+                  {
+                     synchronized (kept)
+                     {
+                        kept[group]++;
+                     }
+                  }
+               });
+            }
+         }
+      }
+      Thread.sleep(600);
+      synchronized (kept)
+      {
+         assertEquals(trials, kept[0] + kept[1] + kept[2]);
+         for (int count : kept)
+         {
+            assertTrue(Arrays.toString(kept), Math.abs(count - trials / 3) < 70);
+         }
+      }
+   }
+
+   public void testDeferredThroughDispatcher() throws Exception
+   {
+      MemoryBufferRecorder recorder = newRecorder("outliers:0");
+      Endpoint endpoint = (Endpoint)Proxy.newProxyInstance(Endpoint.class.getClassLoader(), new Class<?>[] {Endpoint.class},
+            new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  //the deferred records are for the recorder only
+                  throw new UnsupportedOperationException(method.getName());
+               }
+            });
+      AsyncRecordDispatcher dispatcher = new AsyncRecordDispatcher(endpoint, 10, OverflowPolicy.DROP_NEWEST, 1);
+      //not started yet, so the records are dropped
+      exchange(recorder, dispatcher, false);
+      assertEquals(2, dispatcher.getDroppedCount());
+      assertEquals(0, recorder.getSize());
+      dispatcher.start();
+      exchange(recorder, dispatcher, false);
+      dispatcher.stop();
+      assertEquals(2, dispatcher.getDroppedCount());
+      assertEquals(1, recorder.getSize());
+      assertEquals(2, recorder.getMatchingRecords(new RecordFilter[0]).values().iterator().next().size());
+   }
+
+   public void testSpecification() throws Exception
+   {
+      for (String spec : new String[] { "rate:0.25", "count:10", "reservoir:5/1000", "outliers:250" })
+      {
+         assertEquals(spec, SamplingPolicy.valueOf(spec).toString());
+      }
+      assertNull(SamplingPolicy.valueOf(" "));
+      try
+      {
+         SamplingPolicy.valueOf("rate:2");
+         fail("IllegalArgumentException expected");
+      }
+      catch (IllegalArgumentException e)
+      {
+         //expected
+      }
+      MemoryBufferRecorder recorder = newRecorder("count:2");
+      MemoryBufferRecorder clone = (MemoryBufferRecorder)recorder.clone();
+      assertEquals("count:2", clone.getSampling());
+      assertNotSame(recorder.getSamplingPolicy(), clone.getSamplingPolicy());
+   }
+
+   private static MemoryBufferRecorder newRecorder(String sampling)
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setRecording(true);
+      recorder.setSampling(sampling);
+      return recorder;
+   }
+
+   /**
+    * Mimics what the recording handler and the endpoint do for a message exchange
+    */
+   private static void exchange(RecordProcessor processor, boolean fault)
+   {
+      exchange(processor, null, fault);
+   }
+
+   private static void exchange(RecordProcessor processor, AsyncRecordDispatcher dispatcher, boolean fault)
+   {
+      List<RecordProcessor> processors = Collections.singletonList(processor);
+      SamplingDecision sampling = SamplingDecision.sample(processors, dispatcher);
+      if (sampling.isDropped())
+      {
+         return;
+      }
+      Record inbound = RecordFactory.newRecord();
+      inbound.setMessageType(MessageType.INBOUND);
+      inbound.setOperation(OP);
+      process(processors, sampling, inbound);
+      Record outbound = RecordFactory.newRecord(inbound.getGroupID());
+      outbound.setMessageType(MessageType.OUTBOUND);
+      outbound.setOperation(OP);
+      process(processors, sampling, outbound);
+      sampling.complete(fault);
+   }
+
+   private static void process(List<RecordProcessor> processors, SamplingDecision sampling, Record record)
+   {
+      ((RecordImpl)record).setSamplingDecision(sampling);
+      for (RecordProcessor processor : processors)
+      {
+         if (sampling.isKept(processor))
+         {
+            processor.processRecord(record);
+         }
+      }
+      sampling.add(record);
+   }
+}
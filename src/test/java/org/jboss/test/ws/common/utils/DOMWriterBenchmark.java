@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DOMWriter;
+import org.jboss.ws.common.StreamingDOMWriter;
+import org.w3c.dom.Element;
+
+/**
+ * Compares the serialization throughput of the DOMWriter and of the
+ * StreamingDOMWriter on SOAP documents of about 10KB, 1MB and 50MB
+ * (or of the sizes given as arguments, in KB), in the default and
+ * in the pretty printing modes.
+ * 
+ * Run with: java -Xmx2g -cp ... org.jboss.test.ws.common.utils.DOMWriterBenchmark [sizeKB...]
+ * 
+ * @since 18-Oct-2026
+ */
+public class DOMWriterBenchmark
+{
+   private static final long BYTES_PER_RUN = 256L * 1024 * 1024;
+
+   public static void main(String[] args) throws Exception
+   {
+      int[] sizes = new int[] { 10, 1024, 50 * 1024 };
+      if (args.length > 0)
+      {
+         sizes = new int[args.length];
+         for (int i = 0; i < args.length; i++)
+         {
+            sizes[i] = Integer.parseInt(args[i]);
+         }
+      }
+      for (int size : sizes)
+      {
+         Element envelope = DOMUtils.parse(new ByteArrayInputStream(newEnvelope(size * 1024).getBytes(StandardCharsets.UTF_8)));
+         for (boolean prettyprint : new boolean[] { false, true })
+         {
+            run("DOMWriter", envelope, size, prettyprint, false);
+            run("StreamingDOMWriter", envelope, size, prettyprint, true);
+         }
+      }
+   }
+
+   private static void run(String name, Element envelope, int size, boolean prettyprint, boolean streaming) throws IOException
+   {
+      CountingOutputStream out = new CountingOutputStream();
+      write(envelope, out, prettyprint, streaming);
+      final long length = out.count;
+      final int iterations = (int)Math.max(5, BYTES_PER_RUN / length);
+      //warm up
+      for (int i = 0; i < Math.max(1, iterations / 5); i++)
+      {
+         write(envelope, out, prettyprint, streaming);
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++)
+      {
+         write(envelope, out, prettyprint, streaming);
+      }
+      long elapsed = System.nanoTime() - start;
+      System.out.println(String.format("%-20s %6dKB prettyprint=%-5s %10.3f ms/op %8.1f MB/s", name, size, prettyprint,
+            elapsed / 1e6 / iterations, (double)length * iterations / (1024 * 1024) / (elapsed / 1e9)));
+   }
+
+   private static void write(Element envelope, OutputStream out, boolean prettyprint, boolean streaming) throws IOException
+   {
+      if (streaming)
+      {
+         new StreamingDOMWriter(out).setPrettyprint(prettyprint).print(envelope);
+      }
+      else
+      {
+         new DOMWriter(out).setPrettyprint(prettyprint).print(envelope);
+      }
+   }
+
+   /**
+    * Creates a SOAP envelope with a WS-Security header and a body made of
+    * order items, of at least the given size
+    */
+   static String newEnvelope(int size)
+   {
+      StringBuilder sb = new StringBuilder(size + 1024);
+      sb.append("<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'");
+      sb.append(" xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance' xmlns:xsd='http://www.w3.org/2001/XMLSchema'>");
+      sb.append("<env:Header><wsse:Security env:mustUnderstand='1'");
+      sb.append(" xmlns:wsse='http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd'");
+      sb.append(" xmlns:wsu='http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-utility-1.0.xsd'>");
+      sb.append("<wsu:Timestamp wsu:Id='TS-1'><wsu:Created>2026-10-18T10:00:00Z</wsu:Created>");
+      sb.append("<wsu:Expires>2026-10-18T10:05:00Z</wsu:Expires></wsu:Timestamp>");
+      sb.append("<wsse:UsernameToken wsu:Id='UT-1'><wsse:Username>kermit</wsse:Username></wsse:UsernameToken>");
+      sb.append("</wsse:Security></env:Header>");
+      sb.append("<env:Body><ns1:submitOrder xmlns:ns1='http://org.jboss.ws/orders' xmlns:ns2='http://org.jboss.ws/types'>");
+      int i = 0;
+      while (sb.length() < size)
+      {
+         sb.append("<item id='").append(i).append("' xsi:type='ns2:OrderItem'>");
+         sb.append("<sku>SKU-").append(i * 7919 % 100000).append("</sku>");
+         sb.append("<description>Widget &amp; gadget, size ").append(i % 12).append(" - ref. &lt;").append(i).append("&gt;</description>");
+         sb.append("<quantity xsi:type='xsd:int'>").append(i % 50 + 1).append("</quantity>");
+         sb.append("<price currency='EUR'>").append(i % 1000).append(".99</price>");
+         sb.append("</item>");
+         i++;
+      }
+      sb.append("</ns1:submitOrder></env:Body></env:Envelope>");
+      return sb.toString();
+   }
+
+   private static class CountingOutputStream extends OutputStream
+   {
+      long count;
+
+      @Override
+      public void write(int b)
+      {
+         count++;
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len)
+      {
+         count += len;
+      }
+   }
+}
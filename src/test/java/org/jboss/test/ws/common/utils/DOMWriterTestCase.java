@@ -20,6 +20,10 @@ package org.jboss.test.ws.common.utils;
 
 import java.io.ByteArrayInputStream;
 import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.nio.charset.StandardCharsets;
 
 import javax.xml.namespace.QName;
@@ -35,6 +39,7 @@ import org.jboss.ws.common.DOMUtils;
 import org.jboss.ws.common.DOMWriter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 
 /**
  * Test the DOMWriter
@@ -180,6 +185,26 @@ public class DOMWriterTestCase extends TestCase
       assertEquals(expStr, wasStr);
    }
    
+   /** The prefixes are redeclared on nested elements.
+    */
+   public void testNamespaceCompletionShadowed() throws Exception
+   {
+      String inStr = 
+         "<a:root xmlns:a='urn:a'>" +
+          "<b:x xmlns:b='urn:b1'>" +
+           "<b:y xmlns:b='urn:b2'>" +
+            "<a:z b:attr='1'/>" +
+           "</b:y>" +
+          "</b:x>" +
+         "</a:root>";
+      
+      Element root = DOMUtils.parse(inStr);
+      Element y = (Element)root.getFirstChild().getFirstChild();
+      
+      assertEquals("<b:y xmlns:b='urn:b2'><a:z b:attr='1' xmlns:a='urn:a'/></b:y>", DOMWriter.printNode(y, false));
+      assertEquals("<a:z b:attr='1' xmlns:a='urn:a' xmlns:b='urn:b2'/>", DOMWriter.printNode(y.getFirstChild(), false));
+   }
+
    public void testEntity() throws Exception
    {
       String expStr = 
@@ -268,4 +293,56 @@ public class DOMWriterTestCase extends TestCase
       String xmlOut = strwr.toString();
       assertEquals("<Hello><Sub>World</Sub></Hello>", xmlOut);
    }
+
+   /** The attributes are sorted by name even if the DOM implementation does not keep them ordered.
+    */
+   public void testUnsortedAttributes() throws Exception
+   {
+      Element element = DOMUtils.parse("<root c='3' xmlns:x='urn:x' a='1' x:d='4' b='2'><child/></root>");
+      String expStr = "<root a='1' b='2' c='3' x:d='4' xmlns:x='urn:x'><child/></root>";
+      assertEquals(expStr, DOMWriter.printNode(element, false));
+      assertEquals(expStr, DOMWriter.printNode(reverseAttributes(element), false));
+   }
+
+   /**
+    * Wraps the element so that its attributes are listed in the reverse order
+    */
+   private static Element reverseAttributes(final Element element)
+   {
+      final NamedNodeMap attributes = element.getAttributes();
+      final NamedNodeMap reversed = (NamedNodeMap)Proxy.newProxyInstance(NamedNodeMap.class.getClassLoader(),
+            new Class<?>[] {NamedNodeMap.class}, new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  if ("item".equals(method.getName()))
+                  {
+                     return attributes.item(attributes.getLength() - 1 - (Integer)args[0]);
+                  }
+                  return invokeTarget(method, attributes, args);
+               }
+            });
+      return (Element)Proxy.newProxyInstance(Element.class.getClassLoader(), new Class<?>[] {Element.class},
+            new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+               {
+                  if ("getAttributes".equals(method.getName()))
+                  {
+                     return reversed;
+                  }
+                  return invokeTarget(method, element, args);
+               }
+            });
+   }
+
+   private static Object invokeTarget(Method method, Object target, Object[] args) throws Throwable
+   {
+      try
+      {
+         return method.invoke(target, args);
+      }
+      catch (InvocationTargetException e)
+      {
+         throw e.getCause();
+      }
+   }
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DocumentBuilderPool;
+
+/**
+ * Compares the parse throughput of DOMUtils with thread-local DocumentBuilders
+ * and with a DocumentBuilderPool, running each parse in a new thread (a virtual
+ * one on JDK 21+, a platform one otherwise) as a thread-per-request executor does,
+ * with up to 256 parses in flight.
+ * 
+ * Run with: java -cp ... org.jboss.test.ws.common.utils.DocumentBuilderPoolBenchmark
+ * 
+ * @since 18-Oct-2026
+ */
+public class DocumentBuilderPoolBenchmark
+{
+   private static final int TASKS = 20000;
+   private static final int IN_FLIGHT = 256;
+   private static final byte[] MESSAGE = DOMWriterBenchmark.newEnvelope(2048).getBytes(StandardCharsets.UTF_8);
+
+   public static void main(String[] args) throws Exception
+   {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      final DocumentBuilderPool pool = new DocumentBuilderPool(factory, 2 * Runtime.getRuntime().availableProcessors());
+      Runnable threadLocal = new Runnable() {
+         public void run()
+         {
+            try
+            {
+               DOMUtils.parse(new ByteArrayInputStream(MESSAGE));
+            }
+            catch (Exception e)
+            {
+               throw new RuntimeException(e);
+            }
+         }
+      };
+      Runnable pooled = new Runnable() {
+         public void run()
+         {
+            DocumentBuilder builder = pool.acquire();
+            try
+            {
+               builder.parse(new ByteArrayInputStream(MESSAGE));
+            }
+            catch (Exception e)
+            {
+               throw new RuntimeException(e);
+            }
+            finally
+            {
+               pool.release(builder);
+            }
+         }
+      };
+      ExecutorService executor = newThreadPerTaskExecutor();
+      System.out.println("Executor: " + (executor != null ? "virtual thread per task" : "platform thread per task"));
+      for (int round = 0; round < 3; round++)
+      {
+         run("thread-local builders", threadLocal, executor);
+         run("pooled builders", pooled, executor);
+      }
+      if (executor != null)
+      {
+         executor.shutdown();
+      }
+   }
+
+   private static void run(String name, final Runnable parse, ExecutorService executor) throws Exception
+   {
+      final Semaphore inFlight = new Semaphore(IN_FLIGHT);
+      final CountDownLatch done = new CountDownLatch(TASKS);
+      Runnable task = new Runnable() {
+         public void run()
+         {
+            try
+            {
+               parse.run();
+            }
+            finally
+            {
+               inFlight.release();
+               done.countDown();
+            }
+         }
+      };
+      long start = System.nanoTime();
+      for (int i = 0; i < TASKS; i++)
+      {
+         inFlight.acquire();
+         if (executor != null)
+         {
+            executor.execute(task);
+         }
+         else
+         {
+            new Thread(task).start();
+         }
+      }
+      done.await(10, TimeUnit.MINUTES);
+      long elapsed = System.nanoTime() - start;
+      System.out.println(String.format("%-22s %10.0f parses/s", name, TASKS / (elapsed / 1e9)));
+   }
+
+   /**
+    * Gets the JDK 21+ virtual thread per task executor, if available
+    */
+   private static ExecutorService newThreadPerTaskExecutor()
+   {
+      try
+      {
+         return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      }
+      catch (Exception e)
+      {
+         return null;
+      }
+   }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.DocumentBuilderPool;
+import org.w3c.dom.Element;
+
+/**
+ * Test the DocumentBuilderPool
+ *
+ * @since 18-Oct-2026
+ */
+public class DocumentBuilderPoolTestCase extends TestCase
+{
+   private static DocumentBuilderPool newPool(int maxSize)
+   {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      return new DocumentBuilderPool(factory, maxSize);
+   }
+
+   private static Element parse(DocumentBuilderPool pool, String xml) throws Exception
+   {
+      DocumentBuilder builder = pool.acquire();
+      try
+      {
+         return builder.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))).getDocumentElement();
+      }
+      finally
+      {
+         pool.release(builder);
+      }
+   }
+
+   public void testReuse() throws Exception
+   {
+      DocumentBuilderPool pool = newPool(2);
+      assertEquals(2, pool.getMaxSize());
+      DocumentBuilder builder = pool.acquire();
+      assertEquals(0, pool.getIdleCount());
+      pool.release(builder);
+      assertEquals(1, pool.getIdleCount());
+      assertSame(builder, pool.acquire());
+   }
+
+   public void testBounded() throws Exception
+   {
+      DocumentBuilderPool pool = newPool(2);
+      DocumentBuilder b1 = pool.acquire();
+      DocumentBuilder b2 = pool.acquire();
+      DocumentBuilder b3 = pool.acquire();
+      assertNotSame(b1, b2);
+      assertNotSame(b2, b3);
+      pool.release(b1);
+      pool.release(b2);
+      pool.release(b3);
+      assertEquals(2, pool.getIdleCount());
+   }
+
+   public void testReuseAfterFailure() throws Exception
+   {
+      DocumentBuilderPool pool = newPool(1);
+      try
+      {
+         parse(pool, "<a><b></a>");
+         fail("Exception expected");
+      }
+      catch (Exception e)
+      {
+         //expected
+      }
+      assertEquals(1, pool.getIdleCount());
+      Element root = parse(pool, "<ns:a xmlns:ns='urn:test'><b/></ns:a>");
+      assertEquals("urn:test", root.getNamespaceURI());
+      assertEquals("a", root.getLocalName());
+   }
+
+   public void testConcurrentParse() throws Exception
+   {
+      final DocumentBuilderPool pool = newPool(4);
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try
+      {
+         List<Future<String>> results = new ArrayList<Future<String>>();
+         for (int i = 0; i < 200; i++)
+         {
+            final String value = "v" + i;
+            results.add(executor.submit(new Callable<String>() {
+               public String call() throws Exception
+               {
+                  return parse(pool, "<root><value>" + value + "</value></root>").getFirstChild().getTextContent();
+               }
+            }));
+         }
+         for (int i = 0; i < results.size(); i++)
+         {
+            assertEquals("v" + i, results.get(i).get());
+         }
+      }
+      finally
+      {
+         executor.shutdown();
+      }
+      assertTrue(pool.getIdleCount() <= 4);
+   }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.utils;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.Normalizer;
+
+/**
+ * Test the Normalizer
+ *
+ * @since 18-Oct-2026
+ */
+public class NormalizerTestCase extends TestCase
+{
+   public void testNothingToEscape() throws Exception
+   {
+      String s = "Hello World, 2026-10-18T10:00:00Z caf\u00e9 \u20ac";
+      assertSame(s, Normalizer.normalize(s));
+      assertSame(s, Normalizer.normalize(s, true));
+      String lines = "line1\r\nline2";
+      assertSame(lines, Normalizer.normalize(lines, false));
+      assertSame("", Normalizer.normalize(""));
+   }
+
+   public void testEscape() throws Exception
+   {
+      assertEquals("&lt;a href=&quot;x&quot;&gt;Tom &amp; Jerry&apos;s&lt;/a&gt;", Normalizer.normalize("<a href=\"x\">Tom & Jerry's</a>"));
+      assertEquals("&amp;&amp;", Normalizer.normalize("&&"));
+      assertEquals("line1\r\nline2 &amp;", Normalizer.normalize("line1\r\nline2 &", false));
+      assertEquals("line1&#13;&#10;line2 &amp;", Normalizer.normalize("line1\r\nline2 &", true));
+      assertEquals("?@AZ[\\]^_`az{|}~\u00ff", Normalizer.normalize("?@AZ[\\]^_`az{|}~\u00ff", true));
+   }
+
+   public void testAppend() throws Exception
+   {
+      StringBuilder sb = new StringBuilder("<v>");
+      assertSame(sb, Normalizer.normalize("a < b", false, sb));
+      Normalizer.normalize("plain", false, sb).append("</v>");
+      assertEquals("<v>a &lt; bplain</v>", sb.toString());
+   }
+}
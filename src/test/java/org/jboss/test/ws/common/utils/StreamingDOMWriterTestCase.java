@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.test.ws.common.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DOMWriter;
+import org.jboss.ws.common.StreamingDOMWriter;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Test the StreamingDOMWriter gives the same output of the DOMWriter
+ *
+ * @since 18-Oct-2026
+ */
+public class StreamingDOMWriterTestCase extends TestCase
+{
+   private static final String ENVELOPE =
+      "<?xml version='1.0' encoding='UTF-8'?>" +
+      "<!-- request -->" +
+      "<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'" +
+      " xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance' xmlns:xsd='http://www.w3.org/2001/XMLSchema'>\n" +
+      " <env:Header>\n" +
+      "  <wsse:Security xmlns:wsse='http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd'" +
+      "   xmlns:wsu='http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-utility-1.0.xsd' env:mustUnderstand='1'>\n" +
+      "   <wsu:Timestamp wsu:Id='TS-1'><wsu:Created>2026-10-18T10:00:00Z</wsu:Created></wsu:Timestamp>\n" +
+      "   <wsse:UsernameToken z='1' b='2' a='3' wsu:Id='UT-1'><wsse:Username>kermit</wsse:Username></wsse:UsernameToken>\n" +
+      "  </wsse:Security>\n" +
+      " </env:Header>\n" +
+      " <env:Body>\n" +
+      "  <ns1:echo xmlns:ns1='http://org.jboss.ws/echo' xmlns:ns2='http://org.jboss.ws/types'>\n" +
+      "   <arg0 xsi:type='ns2:Type'>a &amp; b &lt; c &gt; d \"q\" 'a'\r\nline</arg0>\n" +
+      "   <arg1 xsi:type='xsd:string' attr='x&#10;y'>caf\u00e9 \u20ac \ud83d\ude00 <![CDATA[<raw> & ]]></arg1>\n" +
+      "   <?pi some data?>\n" +
+      "   <Hello xmlns='http://somens'><World/></Hello>\n" +
+      "   <empty/>\n" +
+      "  </ns1:echo>\n" +
+      " </env:Body>\n" +
+      "</env:Envelope>";
+
+   public void testDocument() throws Exception
+   {
+      Document doc = DOMUtils.parse(ENVELOPE).getOwnerDocument();
+      assertSameOutput(doc);
+      assertSameOutput(doc.getDocumentElement());
+   }
+
+   public void testNamespaceCompletion() throws Exception
+   {
+      Element env = DOMUtils.parse(ENVELOPE);
+      assertSameOutput(element(env, "Security"));
+      assertSameOutput(element(env, "Timestamp"));
+      assertSameOutput(element(env, "UsernameToken"));
+      assertSameOutput(element(env, "echo"));
+      assertSameOutput(element(env, "arg0"));
+      assertSameOutput(element(env, "arg1"));
+      assertSameOutput(element(env, "Hello"));
+   }
+
+   public void testXMLDeclaration() throws Exception
+   {
+      Element env = DOMUtils.parse(ENVELOPE);
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      new DOMWriter(expected, "UTF-8").setPrettyprint(true).print(env);
+      ByteArrayOutputStream actual = new ByteArrayOutputStream();
+      new StreamingDOMWriter(actual, "UTF-8").setPrettyprint(true).print(env);
+      assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+   }
+
+   private static Element element(Element root, String localName)
+   {
+      return (Element)root.getElementsByTagNameNS("*", localName).item(0);
+   }
+
+   private static void assertSameOutput(Node node) throws Exception
+   {
+      for (int mode = 0; mode < 16; mode++)
+      {
+         boolean canonical = (mode & 1) != 0;
+         boolean prettyprint = (mode & 2) != 0;
+         boolean completeNamespaces = (mode & 4) != 0;
+         boolean ignoreWhitespace = (mode & 8) != 0 && !prettyprint;
+
+         ByteArrayOutputStream expected = new ByteArrayOutputStream();
+         new DOMWriter(expected).setCanonical(canonical).setPrettyprint(prettyprint)
+               .setCompleteNamespaces(completeNamespaces).setIgnoreWhitespace(ignoreWhitespace).print(node);
+         ByteArrayOutputStream actual = new ByteArrayOutputStream();
+         new StreamingDOMWriter(actual).setCanonical(canonical).setPrettyprint(prettyprint)
+               .setCompleteNamespaces(completeNamespaces).setIgnoreWhitespace(ignoreWhitespace).print(node);
+         assertEquals("mode " + mode, expected.toString("UTF-8"), actual.toString("UTF-8"));
+         assertTrue("mode " + mode, Arrays.equals(expected.toByteArray(), actual.toByteArray()));
+      }
+   }
+}